@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.base.model;
+
+/**
+ * Description: [分页查询的总数统计策略]
+ * Author: [mobaijun]
+ * Date: [2024/7/17 15:17]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public enum CountStrategy {
+
+    /**
+     * 精确统计，每次执行 count 查询
+     */
+    EXACT,
+
+    /**
+     * 按查询语句和参数缓存 count 结果，在有效期内复用
+     */
+    CACHED,
+
+    /**
+     * 使用数据库执行计划的估算行数，不执行 count 查询
+     */
+    ESTIMATED,
+
+    /**
+     * 只统计到当前页之后的一条记录，用于判断是否有下一页，最后一页的总数是精确的
+     */
+    HAS_NEXT
+}
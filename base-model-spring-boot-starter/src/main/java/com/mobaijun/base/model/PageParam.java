@@ -68,6 +68,12 @@ public class PageParam implements Serializable {
     @Valid
     private List<Sort> sorts = new ArrayList<>();
 
+    /**
+     * 总数统计策略，为空时使用默认策略
+     */
+    @Schema(title = "总数统计策略", description = "为空时使用服务端默认策略")
+    private CountStrategy countStrategy;
+
     @Getter
     @Setter
     @ToString
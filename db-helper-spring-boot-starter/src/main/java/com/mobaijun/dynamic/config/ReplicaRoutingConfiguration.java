@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.dynamic.config;
+
+import com.baomidou.dynamic.datasource.DynamicRoutingDataSource;
+import com.mobaijun.dynamic.properties.ReplicaRoutingProperties;
+import com.mobaijun.dynamic.routing.ReplicaLagProbe;
+import com.mobaijun.dynamic.routing.ReplicaLatencyInterceptor;
+import com.mobaijun.dynamic.routing.ReplicaRoutingRegistry;
+import com.mobaijun.dynamic.routing.ReplicaStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Description: [从库延迟路由配置类]
+ * Author: [mobaijun]
+ * Date: [2024/8/13 14:13]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@Configuration
+@ConditionalOnClass(DynamicRoutingDataSource.class)
+@ConditionalOnProperty(value = "db-helper.replica-routing.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+public class ReplicaRoutingConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ReplicaLagProbe replicaLagProbe(DynamicRoutingDataSource dynamicRoutingDataSource,
+                                           ReplicaRoutingProperties properties) {
+        ReplicaRoutingRegistry.setEwmaAlpha(properties.getEwmaAlpha());
+        ReplicaRoutingRegistry.setLatencyHalfLifeSeconds(properties.getLatencyHalfLifeSeconds());
+        ReplicaRoutingRegistry.setExplorationRate(properties.getExplorationRate());
+        return new ReplicaLagProbe(dynamicRoutingDataSource, properties.getProbeIntervalSeconds(),
+                properties.getMaxLagSeconds());
+    }
+
+    @Bean
+    public ReplicaLatencyInterceptor replicaLatencyInterceptor() {
+        return new ReplicaLatencyInterceptor();
+    }
+
+    /**
+     * 从库路由指标，引入 micrometer 时生效
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    static class ReplicaRoutingMetricsConfiguration {
+
+        @Bean
+        public MeterBinder replicaRoutingMeterBinder(DynamicRoutingDataSource dynamicRoutingDataSource) {
+            return registry -> dynamicRoutingDataSource.getDataSources().keySet().stream()
+                    .filter(name -> name.contains("_"))
+                    .map(ReplicaRoutingRegistry::stats)
+                    .forEach(stats -> bind(registry, stats));
+        }
+
+        private static void bind(MeterRegistry registry, ReplicaStats stats) {
+            Gauge.builder("db.replica.latency", stats, ReplicaStats::getLatencyMillis)
+                    .description("查询耗时移动平均（毫秒）").tag("datasource", stats.getName()).register(registry);
+            Gauge.builder("db.replica.lag", stats, ReplicaStats::getLagSeconds)
+                    .description("复制延迟（秒）").tag("datasource", stats.getName()).register(registry);
+            Gauge.builder("db.replica.ejected", stats, s -> s.isEjected() ? 1 : 0)
+                    .description("是否被摘除").tag("datasource", stats.getName()).register(registry);
+            FunctionCounter.builder("db.replica.selected", stats, ReplicaStats::getSelectedCount)
+                    .description("被选中次数").tag("datasource", stats.getName()).register(registry);
+        }
+    }
+}
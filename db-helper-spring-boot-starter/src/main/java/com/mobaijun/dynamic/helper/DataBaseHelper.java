@@ -23,6 +23,8 @@ import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.sql.DataSource;
 
 /**
@@ -35,19 +37,72 @@ public class DataBaseHelper {
 
     private static final DynamicRoutingDataSource DS = SpringUtil.getBean(DynamicRoutingDataSource.class);
 
+    /**
+     * 数据源 -> 数据库类型，每个数据源只读取一次连接元数据
+     */
+    private static final Map<DataSource, DbType> DB_TYPE_CACHE = new ConcurrentHashMap<>();
+
     /**
      * 获取当前数据库类型。
      *
      * @return 当前数据库类型
      */
     public static DbType getDataBaseType() {
-        DataSource dataSource = DS.determineDataSource();
+        return getDataBaseType(DS.determineDataSource());
+    }
+
+    /**
+     * 获取指定数据源的数据库类型。
+     *
+     * @param dsKey 数据源名称
+     * @return 数据库类型
+     */
+    public static DbType getDataBaseType(String dsKey) {
+        return getDataBaseType(DS.getDataSource(dsKey));
+    }
+
+    /**
+     * 重新识别所有已加载数据源的数据库类型，动态增删或替换数据源后调用。
+     * 无法连接的数据源跳过，在首次使用时再识别。
+     */
+    public static void refresh() {
+        DB_TYPE_CACHE.clear();
+        for (DataSource dataSource : DS.getDataSources().values()) {
+            try {
+                getDataBaseType(dataSource);
+            } catch (RuntimeException ignore) {
+            }
+        }
+    }
+
+    /**
+     * 获取数据源的数据库类型，未缓存时说明数据源有增删，先清理已移除数据源的缓存再识别。
+     *
+     * @param dataSource 数据源
+     * @return 数据库类型
+     */
+    private static DbType getDataBaseType(DataSource dataSource) {
+        DbType dbType = DB_TYPE_CACHE.get(dataSource);
+        if (dbType == null) {
+            DB_TYPE_CACHE.keySet().retainAll(DS.getDataSources().values());
+            dbType = DB_TYPE_CACHE.computeIfAbsent(dataSource, DataBaseHelper::resolve);
+        }
+        return dbType;
+    }
+
+    /**
+     * 通过连接元数据识别数据库类型。
+     *
+     * @param dataSource 数据源
+     * @return 数据库类型
+     */
+    private static DbType resolve(DataSource dataSource) {
         try (Connection conn = dataSource.getConnection()) {
             DatabaseMetaData metaData = conn.getMetaData();
             String databaseProductName = metaData.getDatabaseProductName();
             return DbType.getDbType(databaseProductName);
         } catch (SQLException e) {
-            throw new RuntimeException(e.getMessage());
+            throw new RuntimeException(e.getMessage(), e);
         }
     }
 
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.dynamic.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Description: [从库延迟路由配置]
+ * Author: [mobaijun]
+ * Date: [2024/8/13 14:13]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@ConfigurationProperties("db-helper.replica-routing")
+public class ReplicaRoutingProperties {
+
+    /**
+     * 是否开启从库耗时统计和延迟探测，还需配置 spring.datasource.dynamic.strategy 为 LatencyAwareDynamicDataSourceStrategy
+     */
+    private boolean enabled = false;
+
+    /**
+     * 查询耗时移动平均中新样本的权重
+     */
+    private double ewmaAlpha = 0.3;
+
+    /**
+     * 查询耗时评分的衰减半衰期（秒），长时间未被选中的从库评分逐渐回落，0 表示不衰减
+     */
+    private double latencyHalfLifeSeconds = 10;
+
+    /**
+     * 忽略耗时、随机选择从库的概率
+     */
+    private double explorationRate = 0.05;
+
+    /**
+     * 复制延迟探测间隔（秒）
+     */
+    private long probeIntervalSeconds = 5;
+
+    /**
+     * 复制延迟超过该值（秒）的从库暂停路由
+     */
+    private double maxLagSeconds = 10;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getEwmaAlpha() {
+        return ewmaAlpha;
+    }
+
+    public void setEwmaAlpha(double ewmaAlpha) {
+        this.ewmaAlpha = ewmaAlpha;
+    }
+
+    public double getLatencyHalfLifeSeconds() {
+        return latencyHalfLifeSeconds;
+    }
+
+    public void setLatencyHalfLifeSeconds(double latencyHalfLifeSeconds) {
+        this.latencyHalfLifeSeconds = latencyHalfLifeSeconds;
+    }
+
+    public double getExplorationRate() {
+        return explorationRate;
+    }
+
+    public void setExplorationRate(double explorationRate) {
+        this.explorationRate = explorationRate;
+    }
+
+    public long getProbeIntervalSeconds() {
+        return probeIntervalSeconds;
+    }
+
+    public void setProbeIntervalSeconds(long probeIntervalSeconds) {
+        this.probeIntervalSeconds = probeIntervalSeconds;
+    }
+
+    public double getMaxLagSeconds() {
+        return maxLagSeconds;
+    }
+
+    public void setMaxLagSeconds(double maxLagSeconds) {
+        this.maxLagSeconds = maxLagSeconds;
+    }
+}
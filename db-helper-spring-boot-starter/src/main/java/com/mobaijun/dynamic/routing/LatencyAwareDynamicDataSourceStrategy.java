@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.dynamic.routing;
+
+import com.baomidou.dynamic.datasource.strategy.DynamicDataSourceStrategy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Description: [按延迟选择从库的负载均衡策略]
+ * <p>
+ * 排除被摘除的从库后随机取两个，选择查询耗时移动平均更低的一个（power of two choices），
+ * 快的从库承担更多读请求，又不会让所有请求集中到同一个从库；全部被摘除时退化为在所有从库中选择。
+ * 比较使用随时间衰减的评分，并以较小的概率随机选择，偶发变慢的从库仍会被选中并用新样本修正评分。
+ * 配置 spring.datasource.dynamic.strategy 为本类即可启用。
+ * Author: [mobaijun]
+ * Date: [2024/8/13 14:13]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public class LatencyAwareDynamicDataSourceStrategy implements DynamicDataSourceStrategy {
+
+    @Override
+    public String determineKey(List<String> dsNames) {
+        List<String> candidates = new ArrayList<>(dsNames.size());
+        for (String name : dsNames) {
+            if (!ReplicaRoutingRegistry.stats(name).isEjected()) {
+                candidates.add(name);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates = dsNames;
+        }
+        String selected;
+        int size = candidates.size();
+        if (size == 1) {
+            selected = candidates.get(0);
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            String a = candidates.get(first);
+            String b = candidates.get(second);
+            if (random.nextDouble() < ReplicaRoutingRegistry.getExplorationRate()) {
+                selected = a;
+            } else {
+                selected = ReplicaRoutingRegistry.score(a) <= ReplicaRoutingRegistry.score(b) ? a : b;
+            }
+        }
+        ReplicaRoutingRegistry.markSelected(selected);
+        return selected;
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.dynamic.routing;
+
+import com.baomidou.dynamic.datasource.DynamicRoutingDataSource;
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.mobaijun.dynamic.helper.DataBaseHelper;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Description: [从库复制延迟探测]
+ * <p>
+ * 定时查询分组内（名称带下划线）每个数据源的复制延迟，延迟超过阈值或无法连接时摘除，恢复后重新加入。
+ * 支持 MySQL / MariaDB（SHOW REPLICA STATUS）与 PostgreSQL（pg_last_xact_replay_timestamp），
+ * 其余数据库只探测连接是否可用。MySQL 账号缺少 REPLICATION CLIENT 权限时延迟未知，只告警一次，不摘除。
+ * Author: [mobaijun]
+ * Date: [2024/8/13 14:13]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public class ReplicaLagProbe {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagProbe.class);
+
+    /**
+     * PostgreSQL 复制延迟，主库以及已回放全部接收日志的从库返回 0，
+     * 避免主库空闲时最后回放时间不再推进而被误判为延迟
+     */
+    private static final String POSTGRESQL_LAG_SQL = "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 "
+            + "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    /**
+     * MySQL 缺少 SUPER / REPLICATION CLIENT 权限时的错误码
+     */
+    private static final int MYSQL_ACCESS_DENIED = 1227;
+
+    /**
+     * 复制延迟未知
+     */
+    private static final double UNKNOWN_LAG = Double.NaN;
+
+    /**
+     * 动态数据源
+     */
+    private final DynamicRoutingDataSource dynamicRoutingDataSource;
+
+    /**
+     * 探测间隔（秒）
+     */
+    private final long intervalSeconds;
+
+    /**
+     * 摘除的复制延迟阈值（秒）
+     */
+    private final double maxLagSeconds;
+
+    /**
+     * 已告警延迟未知的数据源，只告警一次
+     */
+    private final Set<String> unknownLagWarned = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 探测线程
+     */
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaLagProbe(DynamicRoutingDataSource dynamicRoutingDataSource, long intervalSeconds, double maxLagSeconds) {
+        this.dynamicRoutingDataSource = dynamicRoutingDataSource;
+        this.intervalSeconds = Math.max(intervalSeconds, 1);
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    /**
+     * 启动定时探测
+     */
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::probeAll, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 停止定时探测
+     */
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 探测所有分组内的数据源
+     */
+    public void probeAll() {
+        for (Map.Entry<String, DataSource> entry : dynamicRoutingDataSource.getDataSources().entrySet()) {
+            if (entry.getKey().contains("_")) {
+                probe(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 探测单个数据源并更新摘除状态
+     *
+     * @param name       数据源名称
+     * @param dataSource 数据源
+     */
+    private void probe(String name, DataSource dataSource) {
+        ReplicaStats stats = ReplicaRoutingRegistry.stats(name);
+        boolean eject;
+        try {
+            double lag = lagSeconds(name, dataSource);
+            if (Double.isNaN(lag)) {
+                // 延迟未知但连接可用，保持路由
+                if (unknownLagWarned.add(name)) {
+                    log.warn("从库 {} 账号缺少 REPLICATION CLIENT 权限，无法探测复制延迟，仅探测连接可用性", name);
+                }
+                lag = 0;
+            }
+            stats.setLagSeconds(lag);
+            eject = lag > maxLagSeconds;
+            if (eject && !stats.isEjected()) {
+                log.warn("从库 {} 复制延迟 {} 秒超过阈值 {} 秒，暂停路由", name, lag, maxLagSeconds);
+            }
+        } catch (Exception e) {
+            eject = true;
+            if (!stats.isEjected()) {
+                log.warn("从库 {} 延迟探测失败，暂停路由: {}", name, e.getMessage());
+            }
+        }
+        if (!eject && stats.isEjected()) {
+            log.info("从库 {} 已恢复，重新加入路由", name);
+        }
+        stats.setEjected(eject);
+    }
+
+    /**
+     * 查询复制延迟
+     *
+     * @param name       数据源名称
+     * @param dataSource 数据源
+     * @return 延迟秒数，复制中断时返回 {@link Double#MAX_VALUE}，无权限查询时返回 {@link Double#NaN}
+     * @throws SQLException 查询异常
+     */
+    private double lagSeconds(String name, DataSource dataSource) throws SQLException {
+        DbType dbType = DataBaseHelper.getDataBaseType(name);
+        try (Connection conn = dataSource.getConnection(); Statement statement = conn.createStatement()) {
+            statement.setQueryTimeout((int) intervalSeconds);
+            if (dbType == DbType.MYSQL || dbType == DbType.MARIADB) {
+                return mysqlLagSeconds(statement);
+            }
+            if (dbType == DbType.POSTGRE_SQL) {
+                try (ResultSet rs = statement.executeQuery(POSTGRESQL_LAG_SQL)) {
+                    return rs.next() ? rs.getDouble(1) : 0;
+                }
+            }
+            if (!conn.isValid((int) intervalSeconds)) {
+                throw new SQLException("connection is not valid");
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * MySQL 8.0.22 之前及 MariaDB 不支持 SHOW REPLICA STATUS，改用 SHOW SLAVE STATUS
+     *
+     * @param statement statement
+     * @return 延迟秒数，不是从库时返回 0，无权限查询时返回 {@link Double#NaN}
+     * @throws SQLException 查询异常
+     */
+    private double mysqlLagSeconds(Statement statement) throws SQLException {
+        try {
+            return mysqlLagSeconds(statement, "SHOW REPLICA STATUS", "Seconds_Behind_Source");
+        } catch (SQLException e) {
+            if (e.getErrorCode() == MYSQL_ACCESS_DENIED) {
+                return UNKNOWN_LAG;
+            }
+            try {
+                return mysqlLagSeconds(statement, "SHOW SLAVE STATUS", "Seconds_Behind_Master");
+            } catch (SQLException fallback) {
+                if (fallback.getErrorCode() == MYSQL_ACCESS_DENIED) {
+                    return UNKNOWN_LAG;
+                }
+                throw fallback;
+            }
+        }
+    }
+
+    private double mysqlLagSeconds(Statement statement, String sql, String column) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            if (!rs.next()) {
+                return 0;
+            }
+            long lag = rs.getLong(column);
+            return rs.wasNull() ? Double.MAX_VALUE : lag;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.dynamic.routing;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Description: [从库路由统计注册表]
+ * <p>
+ * dynamic-datasource 通过反射为每个分组创建负载均衡策略实例，无法注入 Spring Bean，
+ * 因此策略、耗时拦截器和延迟探测通过该静态注册表共享统计数据。
+ * Author: [mobaijun]
+ * Date: [2024/8/13 14:13]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public final class ReplicaRoutingRegistry {
+
+    /**
+     * 数据源名称 -> 统计
+     */
+    private static final Map<String, ReplicaStats> STATS = new ConcurrentHashMap<>();
+
+    /**
+     * 当前线程最近一次选中的数据源，供耗时拦截器归属耗时
+     */
+    private static final ThreadLocal<String> SELECTED = new ThreadLocal<>();
+
+    /**
+     * 新耗时样本的权重
+     */
+    private static volatile double ewmaAlpha = 0.3;
+
+    /**
+     * 耗时评分的衰减半衰期（纳秒）
+     */
+    private static volatile long latencyHalfLifeNanos = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * 随机选择从库的概率，使评分较差的从库也能持续获得新样本
+     */
+    private static volatile double explorationRate = 0.05;
+
+    private ReplicaRoutingRegistry() {
+    }
+
+    /**
+     * 获取数据源的统计，不存在时创建
+     *
+     * @param name 数据源名称
+     * @return 统计
+     */
+    public static ReplicaStats stats(String name) {
+        return STATS.computeIfAbsent(name, ReplicaStats::new);
+    }
+
+    /**
+     * 所有数据源的统计
+     *
+     * @return 统计
+     */
+    public static Collection<ReplicaStats> getAll() {
+        return Collections.unmodifiableCollection(STATS.values());
+    }
+
+    /**
+     * 记录当前线程选中的数据源
+     *
+     * @param name 数据源名称
+     */
+    public static void markSelected(String name) {
+        stats(name).recordSelected();
+        SELECTED.set(name);
+    }
+
+    /**
+     * 取出并清除当前线程最近一次选中的数据源
+     *
+     * @return 数据源名称，没有时返回 null
+     */
+    public static String takeSelected() {
+        String name = SELECTED.get();
+        if (name != null) {
+            SELECTED.remove();
+        }
+        return name;
+    }
+
+    /**
+     * 记录一次查询耗时
+     *
+     * @param name  数据源名称
+     * @param nanos 耗时（纳秒）
+     */
+    public static void recordLatency(String name, long nanos) {
+        stats(name).recordLatency(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1), ewmaAlpha);
+    }
+
+    /**
+     * 数据源用于路由比较的耗时评分
+     *
+     * @param name 数据源名称
+     * @return 评分，越小越优先
+     */
+    public static double score(String name) {
+        return stats(name).getScore(latencyHalfLifeNanos);
+    }
+
+    public static double getExplorationRate() {
+        return explorationRate;
+    }
+
+    public static void setEwmaAlpha(double alpha) {
+        ewmaAlpha = Math.min(Math.max(alpha, 0.01), 1);
+    }
+
+    public static void setLatencyHalfLifeSeconds(double seconds) {
+        latencyHalfLifeNanos = (long) (Math.max(seconds, 0) * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public static void setExplorationRate(double rate) {
+        explorationRate = Math.min(Math.max(rate, 0), 1);
+    }
+}
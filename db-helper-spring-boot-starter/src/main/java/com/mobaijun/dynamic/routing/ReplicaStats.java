@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.dynamic.routing;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Description: [单个从库的路由统计，包括查询耗时的指数加权移动平均、复制延迟和是否被摘除]
+ * Author: [mobaijun]
+ * Date: [2024/8/13 14:13]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public class ReplicaStats {
+
+    /**
+     * 数据源名称
+     */
+    private final String name;
+
+    /**
+     * 被选中次数
+     */
+    private final LongAdder selectedCount = new LongAdder();
+
+    /**
+     * 查询耗时的指数加权移动平均（毫秒），受 {@code this} 锁保护
+     */
+    private double latencyMillis;
+
+    /**
+     * 耗时采样次数，受 {@code this} 锁保护
+     */
+    private long sampleCount;
+
+    /**
+     * 最近一次采样的时间（{@link System#nanoTime()}），受 {@code this} 锁保护
+     */
+    private long lastSampleNanos;
+
+    /**
+     * 复制延迟（秒），未探测时为 0
+     */
+    private volatile double lagSeconds;
+
+    /**
+     * 是否因延迟过大或无法连接被摘除
+     */
+    private volatile boolean ejected;
+
+    public ReplicaStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 记录一次查询耗时，第一次采样直接作为平均值
+     *
+     * @param millis 耗时（毫秒）
+     * @param alpha  新样本的权重
+     */
+    public synchronized void recordLatency(double millis, double alpha) {
+        latencyMillis = sampleCount == 0 ? millis : alpha * millis + (1 - alpha) * latencyMillis;
+        sampleCount++;
+        lastSampleNanos = System.nanoTime();
+    }
+
+    /**
+     * 用于路由比较的耗时评分
+     * <p>
+     * 耗时移动平均只在被选中后更新，长时间没有新样本的从库按半衰期逐渐衰减到 0，
+     * 偶发的一次慢查询不会让从库永远选不中，衰减后重新被选中即可用新样本修正；没有样本的从库评分为 0，优先被选中。
+     *
+     * @param halfLifeNanos 半衰期（纳秒），不大于 0 时不衰减
+     * @return 评分，越小越优先
+     */
+    public synchronized double getScore(long halfLifeNanos) {
+        if (sampleCount == 0) {
+            return 0;
+        }
+        if (halfLifeNanos <= 0) {
+            return latencyMillis;
+        }
+        long idleNanos = System.nanoTime() - lastSampleNanos;
+        return latencyMillis * Math.pow(0.5, idleNanos / (double) halfLifeNanos);
+    }
+
+    /**
+     * 记录一次被选中
+     */
+    public void recordSelected() {
+        selectedCount.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public synchronized long getSampleCount() {
+        return sampleCount;
+    }
+
+    public long getSelectedCount() {
+        return selectedCount.sum();
+    }
+
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+
+    public void setLagSeconds(double lagSeconds) {
+        this.lagSeconds = lagSeconds;
+    }
+
+    public boolean isEjected() {
+        return ejected;
+    }
+
+    public void setEjected(boolean ejected) {
+        this.ejected = ejected;
+    }
+}
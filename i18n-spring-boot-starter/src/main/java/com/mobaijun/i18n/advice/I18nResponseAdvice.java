@@ -18,17 +18,21 @@ package com.mobaijun.i18n.advice;
 import com.mobaijun.i18n.annotation.I18nClass;
 import com.mobaijun.i18n.annotation.I18nField;
 import com.mobaijun.i18n.annotation.I18nIgnore;
+import com.mobaijun.i18n.message.I18nMessageLookup;
+import com.mobaijun.i18n.message.I18nMissingKeyTracker;
 import com.mobaijun.i18n.model.I18nOptions;
 import io.micrometer.common.lang.NonNull;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.MessageSource;
-import org.springframework.context.NoSuchMessageException;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.annotation.AnnotationUtils;
@@ -68,11 +72,15 @@ public class I18nResponseAdvice implements ResponseBodyAdvice<Object> {
     /**
      * 表达式缓存
      */
-    private static final Map<String, Expression> EXPRESSION_CACHE = new HashMap<>();
+    private static final Map<String, Expression> EXPRESSION_CACHE = new ConcurrentHashMap<>();
     /**
-     * 国际化配置
+     * 类 -> 国际化处理计划，每个类只反射解析一次
      */
-    private final MessageSource messageSource;
+    private static final Map<Class<?>, ClassPlan> PLAN_CACHE = new ConcurrentHashMap<>();
+    /**
+     * 国际化查找，code 缺失时不抛出异常
+     */
+    private final I18nMessageLookup messageLookup;
     /**
      * 默认语言
      */
@@ -89,7 +97,18 @@ public class I18nResponseAdvice implements ResponseBodyAdvice<Object> {
      * @param i18nOptions   国际化配置
      */
     public I18nResponseAdvice(MessageSource messageSource, I18nOptions i18nOptions) {
-        this.messageSource = messageSource;
+        this(new I18nMessageLookup(messageSource, new I18nMissingKeyTracker(i18nOptions.getMissingKeyMaxSize())),
+                i18nOptions);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param messageLookup 国际化查找
+     * @param i18nOptions   国际化配置
+     */
+    public I18nResponseAdvice(I18nMessageLookup messageLookup, I18nOptions i18nOptions) {
+        this.messageLookup = messageLookup;
 
         String fallbackLanguageTag = i18nOptions.getFallbackLanguageTag();
         if (fallbackLanguageTag != null) {
@@ -152,70 +171,94 @@ public class I18nResponseAdvice implements ResponseBodyAdvice<Object> {
         if (source == null) {
             return;
         }
-        Class<?> sourceClass = source.getClass();
-        // 只对添加了 I18nClass 注解的类进行处理
-        I18nClass i18nClass = sourceClass.getAnnotation(I18nClass.class);
-        if (i18nClass == null) {
+        // 未添加 I18nClass 注解或没有需要处理属性的类直接跳过
+        ClassPlan plan = PLAN_CACHE.computeIfAbsent(source.getClass(), ClassPlan::compile);
+        if (plan.isSkip()) {
             return;
         }
-
-        ReflectionUtils.doWithFields(sourceClass, (field) -> {
-            ReflectionUtils.makeAccessible(field);
-            Class<?> fieldType = field.getType();
-            Object fieldValue = ReflectionUtils.getField(field, source);
-
-            if (fieldValue instanceof String) {
-                // 若不存在国际化注解 直接跳过
-                I18nField i18nField = field.getAnnotation(I18nField.class);
-                if (i18nField == null) {
-                    return;
-                }
-
-                // 国际化条件判断
-                String conditionExpression = i18nField.condition();
-                if (StringUtils.hasText(conditionExpression)) {
-                    Expression expression = EXPRESSION_CACHE.computeIfAbsent(conditionExpression,
-                            PARSER::parseExpression);
-                    Boolean needI18n = expression.getValue(source, Boolean.class);
-                    if (needI18n != null && !needI18n) {
-                        return;
+        for (FieldPlan fieldPlan : plan.fields) {
+            Object fieldValue = ReflectionUtils.getField(fieldPlan.field, source);
+            if (fieldValue == null) {
+                continue;
+            }
+            switch (fieldPlan.kind) {
+                case TRANSLATE -> translate(source, fieldPlan, (String) fieldValue);
+                case COLLECTION -> switchElements((Collection<?>) fieldValue);
+                case ARRAY -> switchElements((Object[]) fieldValue);
+                case NESTED -> switchLanguage(fieldValue);
+                default -> {
+                    // 声明类型无法确定处理方式，按运行时类型判断
+                    if (fieldValue instanceof String stringValue) {
+                        if (fieldPlan.i18nField != null) {
+                            translate(source, fieldPlan, stringValue);
+                        }
+                    } else if (fieldValue instanceof Collection<?> elements) {
+                        switchElements(elements);
+                    } else if (fieldValue instanceof Object[] elements) {
+                        switchElements(elements);
+                    } else {
+                        switchLanguage(fieldValue);
                     }
                 }
+            }
+        }
+    }
 
-                // 获取国际化标识
-                String code = parseMessageCode(source, (String) fieldValue, i18nField);
-                if (!StringUtils.hasLength(code)) {
-                    return;
-                }
+    /**
+     * 集合元素递归处理
+     *
+     * @param elements 集合
+     */
+    private void switchElements(Collection<?> elements) {
+        if (CollectionUtils.isEmpty(elements)) {
+            return;
+        }
+        for (Object element : elements) {
+            switchLanguage(element);
+        }
+    }
 
-                // 把当前 field 的值更新为国际化后的属性
-                Locale locale = LocaleContextHolder.getLocale();
-                String message = codeToMessage(code, locale, (String) fieldValue, this.fallbackLocale);
-                ReflectionUtils.setField(field, source, message);
-            } else if (fieldValue instanceof Collection) {
-                @SuppressWarnings("unchecked")
-                Collection<Object> elements = (Collection<Object>) fieldValue;
-                if (CollectionUtils.isEmpty(elements)) {
-                    return;
-                }
-                // 集合属性 递归处理
-                for (Object element : elements) {
-                    switchLanguage(element);
-                }
-            } else if (fieldType.isArray()) {
-                Object[] elements = (Object[]) fieldValue;
-                if (elements == null || elements.length == 0) {
-                    return;
-                }
-                // 数组 递归处理
-                for (Object element : elements) {
-                    switchLanguage(element);
-                }
-            } else {
-                // 其他类型的属性，递归判断处理
-                switchLanguage(fieldValue);
+    /**
+     * 数组元素递归处理
+     *
+     * @param elements 数组
+     */
+    private void switchElements(Object[] elements) {
+        for (Object element : elements) {
+            switchLanguage(element);
+        }
+    }
+
+    /**
+     * 把注解了 {@link I18nField} 的 String 属性更新为国际化后的文本
+     *
+     * @param source     源对象
+     * @param fieldPlan  属性处理计划
+     * @param fieldValue 属性值
+     */
+    private void translate(Object source, FieldPlan fieldPlan, String fieldValue) {
+        I18nField i18nField = fieldPlan.i18nField;
+        // 国际化条件判断
+        String conditionExpression = i18nField.condition();
+        if (StringUtils.hasText(conditionExpression)) {
+            Expression expression = EXPRESSION_CACHE.computeIfAbsent(conditionExpression,
+                    PARSER::parseExpression);
+            Boolean needI18n = expression.getValue(source, Boolean.class);
+            if (needI18n != null && !needI18n) {
+                return;
             }
-        }, WRITEABLE_FIELDS);
+        }
+
+        // 获取国际化标识
+        String code = parseMessageCode(source, fieldValue, i18nField);
+        if (!StringUtils.hasLength(code)) {
+            return;
+        }
+
+        // 把当前 field 的值更新为国际化后的属性
+        Locale locale = LocaleContextHolder.getLocale();
+        String message = codeToMessage(code, locale, fieldValue, this.fallbackLocale);
+        ReflectionUtils.setField(fieldPlan.field, source, message);
     }
 
     /**
@@ -251,30 +294,120 @@ public class I18nResponseAdvice implements ResponseBodyAdvice<Object> {
      * @return 国际化 text，或者 code 本身
      */
     private String codeToMessage(String code, Locale locale, String defaultMessage, Locale fallbackLocale) {
-        String message;
+        // 缺失的 code 由 I18nMissingKeyTracker 去重记录，这里不再抛出和捕获异常
+        return this.messageLookup.find(code, locale, fallbackLocale)
+                .orElse(this.useCodeAsDefaultMessage ? code : defaultMessage);
+    }
 
-        try {
-            message = this.messageSource.getMessage(code, null, locale);
-            return message;
-        } catch (NoSuchMessageException e) {
-            log.warn("[codeToMessage]未找到对应的国际化配置，code: {}, local: {}", code, locale);
+    /**
+     * 属性处理方式
+     */
+    private enum FieldKind {
+
+        /**
+         * 注解了 I18nField 的 String 属性，直接翻译
+         */
+        TRANSLATE,
+
+        /**
+         * 集合属性，递归处理元素
+         */
+        COLLECTION,
+
+        /**
+         * 对象数组属性，递归处理元素
+         */
+        ARRAY,
+
+        /**
+         * 自定义类型属性，递归处理
+         */
+        NESTED,
+
+        /**
+         * Object、接口等声明类型，按运行时的值判断
+         */
+        RUNTIME
+    }
+
+    /**
+     * 类的国际化处理计划
+     *
+     * @param fields 需要处理的属性，为空表示整个类跳过
+     */
+    private record ClassPlan(List<FieldPlan> fields) {
+
+        /**
+         * 无需处理的类共用的计划
+         */
+        private static final ClassPlan SKIP = new ClassPlan(List.of());
+
+        private boolean isSkip() {
+            return fields.isEmpty();
         }
 
-        // 当配置了回退语言时，尝试回退
-        if (fallbackLocale != null && locale != fallbackLocale) {
-            try {
-                message = this.messageSource.getMessage(code, null, fallbackLocale);
-                return message;
-            } catch (NoSuchMessageException e) {
-                log.warn("[codeToMessage]期望语言和回退语言中皆未找到对应的国际化配置，code: {}, local: {}, fallbackLocale：{}", code, locale,
-                        fallbackLocale);
+        /**
+         * 解析类的所有可写属性，去掉不可能包含国际化内容的属性
+         *
+         * @param type 类
+         * @return 处理计划
+         */
+        private static ClassPlan compile(Class<?> type) {
+            if (type.getAnnotation(I18nClass.class) == null) {
+                return SKIP;
             }
+            List<FieldPlan> fields = new ArrayList<>();
+            ReflectionUtils.doWithFields(type, field -> {
+                // 支持 I18nField 的 value 别名
+                I18nField i18nField = AnnotationUtils.getAnnotation(field, I18nField.class);
+                FieldKind kind = kindOf(field.getType(), i18nField != null);
+                if (kind != null) {
+                    ReflectionUtils.makeAccessible(field);
+                    fields.add(new FieldPlan(field, i18nField, kind));
+                }
+            }, WRITEABLE_FIELDS);
+            return fields.isEmpty() ? SKIP : new ClassPlan(List.copyOf(fields));
         }
 
-        if (this.useCodeAsDefaultMessage) {
-            return code;
-        } else {
-            return defaultMessage;
+        /**
+         * 根据声明类型确定处理方式
+         *
+         * @param fieldType    声明类型
+         * @param hasI18nField 是否注解了 I18nField
+         * @return 处理方式，无需处理时返回 null
+         */
+        private static FieldKind kindOf(Class<?> fieldType, boolean hasI18nField) {
+            if (fieldType == String.class) {
+                return hasI18nField ? FieldKind.TRANSLATE : null;
+            }
+            if (fieldType.isPrimitive() || fieldType.isEnum()) {
+                return null;
+            }
+            if (fieldType.isArray()) {
+                return fieldType.getComponentType().isPrimitive() ? null : FieldKind.ARRAY;
+            }
+            if (Collection.class.isAssignableFrom(fieldType)) {
+                return FieldKind.COLLECTION;
+            }
+            if (fieldType == Object.class || fieldType.isInterface() || Modifier.isAbstract(fieldType.getModifiers())) {
+                return FieldKind.RUNTIME;
+            }
+            // 包装类型、时间、BigDecimal 等 JDK 类型不会有 I18nClass 注解
+            String name = fieldType.getName();
+            if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jakarta.")) {
+                return null;
+            }
+            return FieldKind.NESTED;
         }
     }
+
+    /**
+     * 属性处理计划
+     *
+     * @param field     已设置可访问的属性
+     * @param i18nField 国际化注解，可能为空
+     * @param kind      处理方式
+     */
+    private record FieldPlan(Field field, I18nField i18nField, FieldKind kind) {
+    }
 }
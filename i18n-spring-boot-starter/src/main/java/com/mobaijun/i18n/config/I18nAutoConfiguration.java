@@ -16,9 +16,13 @@
 package com.mobaijun.i18n.config;
 
 import com.mobaijun.i18n.advice.I18nResponseAdvice;
+import com.mobaijun.i18n.controller.I18nMissingKeyController;
+import com.mobaijun.i18n.message.I18nMessageLookup;
+import com.mobaijun.i18n.message.I18nMissingKeyTracker;
 import com.mobaijun.i18n.properties.I18nProperties;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
@@ -35,7 +39,26 @@ public class I18nAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public I18nResponseAdvice i18nResponseAdvice(MessageSource messageSource, I18nProperties i18nProperties) {
-        return new I18nResponseAdvice(messageSource, i18nProperties);
+    public I18nMissingKeyTracker i18nMissingKeyTracker(I18nProperties i18nProperties) {
+        return new I18nMissingKeyTracker(i18nProperties.getMissingKeyMaxSize());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public I18nMessageLookup i18nMessageLookup(MessageSource messageSource, I18nMissingKeyTracker i18nMissingKeyTracker) {
+        return new I18nMessageLookup(messageSource, i18nMissingKeyTracker);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public I18nResponseAdvice i18nResponseAdvice(I18nMessageLookup i18nMessageLookup, I18nProperties i18nProperties) {
+        return new I18nResponseAdvice(i18nMessageLookup, i18nProperties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(value = "i18n.missing-key-endpoint-enabled", havingValue = "true")
+    public I18nMissingKeyController i18nMissingKeyController(I18nMissingKeyTracker i18nMissingKeyTracker) {
+        return new I18nMissingKeyController(i18nMissingKeyTracker);
     }
 }
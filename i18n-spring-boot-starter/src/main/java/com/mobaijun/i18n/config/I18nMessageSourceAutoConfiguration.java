@@ -16,13 +16,24 @@
 package com.mobaijun.i18n.config;
 
 import com.mobaijun.i18n.dynamic.DynamicMessageSource;
+import com.mobaijun.i18n.dynamic.I18nMessageCacheManager;
+import com.mobaijun.i18n.dynamic.RedisI18nMessageCacheManager;
 import com.mobaijun.i18n.message.MessageSourceHierarchicalChanger;
+import com.mobaijun.i18n.properties.I18nProperties;
 import com.mobaijun.i18n.provider.I18nMessageProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.context.MessageSourceAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.AbstractApplicationContext;
 
 /**
@@ -32,19 +43,23 @@ import org.springframework.context.support.AbstractApplicationContext;
  * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
  */
 @AutoConfiguration(after = {CustomMessageSourceAutoConfiguration.class, MessageSourceAutoConfiguration.class})
+@EnableConfigurationProperties(I18nProperties.class)
 public class I18nMessageSourceAutoConfiguration {
 
     @ConditionalOnBean(I18nMessageProvider.class)
     @ConditionalOnMissingBean(name = AbstractApplicationContext.MESSAGE_SOURCE_BEAN_NAME)
     @Bean(name = AbstractApplicationContext.MESSAGE_SOURCE_BEAN_NAME)
-    public DynamicMessageSource messageSource(I18nMessageProvider i18nMessageProvider) {
-        return new DynamicMessageSource(i18nMessageProvider);
+    public DynamicMessageSource messageSource(I18nMessageProvider i18nMessageProvider, I18nProperties i18nProperties) {
+        return new DynamicMessageSource(i18nMessageProvider, i18nProperties.getCacheMaxSize(),
+                i18nProperties.getNegativeCacheSeconds());
     }
 
     @ConditionalOnBean(name = AbstractApplicationContext.MESSAGE_SOURCE_BEAN_NAME, value = I18nMessageProvider.class)
     @Bean(name = DynamicMessageSource.DYNAMIC_MESSAGE_SOURCE_BEAN_NAME)
-    public DynamicMessageSource dynamicMessageSource(I18nMessageProvider i18nMessageProvider) {
-        return new DynamicMessageSource(i18nMessageProvider);
+    public DynamicMessageSource dynamicMessageSource(I18nMessageProvider i18nMessageProvider,
+                                                     I18nProperties i18nProperties) {
+        return new DynamicMessageSource(i18nMessageProvider, i18nProperties.getCacheMaxSize(),
+                i18nProperties.getNegativeCacheSeconds());
     }
 
     @ConditionalOnBean(name = {AbstractApplicationContext.MESSAGE_SOURCE_BEAN_NAME,
@@ -53,4 +68,54 @@ public class I18nMessageSourceAutoConfiguration {
     public MessageSourceHierarchicalChanger messageSourceHierarchicalChanger() {
         return new MessageSourceHierarchicalChanger();
     }
+
+    @ConditionalOnBean(I18nMessageProvider.class)
+    @ConditionalOnMissingBean
+    @Bean
+    public I18nMessageCacheManager i18nMessageCacheManager(ObjectProvider<DynamicMessageSource> messageSources) {
+        return new I18nMessageCacheManager(messageSources.orderedStream().toList());
+    }
+
+    /**
+     * 引入 redisson 时通过 redis 主题广播缓存失效
+     */
+    @Configuration
+    @ConditionalOnClass(name = "com.mobaijun.redisson.util.RedisUtil")
+    static class RedisI18nMessageCacheConfiguration {
+
+        @ConditionalOnBean(I18nMessageProvider.class)
+        @ConditionalOnMissingBean(I18nMessageCacheManager.class)
+        @Bean(initMethod = "subscribe")
+        public RedisI18nMessageCacheManager i18nMessageCacheManager(ObjectProvider<DynamicMessageSource> messageSources,
+                                                                   I18nProperties i18nProperties) {
+            return new RedisI18nMessageCacheManager(messageSources.orderedStream().toList(),
+                    i18nProperties.getCacheInvalidateTopic());
+        }
+    }
+
+    /**
+     * 国际化缓存指标，引入 micrometer 时生效
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    static class I18nMessageCacheMetricsConfiguration {
+
+        @ConditionalOnBean(I18nMessageProvider.class)
+        @Bean
+        public MeterBinder i18nMessageCacheMeterBinder(ObjectProvider<DynamicMessageSource> messageSourceProvider) {
+            return registry -> {
+                List<DynamicMessageSource> messageSources = messageSourceProvider.orderedStream().toList();
+                for (int i = 0; i < messageSources.size(); i++) {
+                    DynamicMessageSource messageSource = messageSources.get(i);
+                    String name = String.valueOf(i);
+                    FunctionCounter.builder("i18n.message.cache", messageSource, DynamicMessageSource::getCacheHitCount)
+                            .description("国际化缓存访问次数").tag("source", name).tag("result", "hit").register(registry);
+                    FunctionCounter.builder("i18n.message.cache", messageSource, DynamicMessageSource::getCacheMissCount)
+                            .description("国际化缓存访问次数").tag("source", name).tag("result", "miss").register(registry);
+                    Gauge.builder("i18n.message.cache.size", messageSource, DynamicMessageSource::getCacheSize)
+                            .description("国际化缓存条数").tag("source", name).register(registry);
+                }
+            };
+        }
+    }
 }
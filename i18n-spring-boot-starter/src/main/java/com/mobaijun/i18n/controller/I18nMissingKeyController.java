@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.i18n.controller;
+
+import com.mobaijun.i18n.message.I18nMissingKeyTracker;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Description: 缺失的国际化 code 查询接口
+ * <p>
+ * 默认关闭，通过 {@code i18n.missing-key-endpoint-enabled=true} 开启，路径由 {@code i18n.missing-key-path} 指定。
+ * Author: [mobaijun]
+ * Date: [2024/8/15 12:40]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@RestController
+public class I18nMissingKeyController {
+
+    private final I18nMissingKeyTracker missingKeyTracker;
+
+    public I18nMissingKeyController(I18nMissingKeyTracker missingKeyTracker) {
+        this.missingKeyTracker = missingKeyTracker;
+    }
+
+    /**
+     * 查询缺失的国际化 code
+     *
+     * @return languageTag -> 缺失的 code
+     */
+    @GetMapping("${i18n.missing-key-path:/i18n/missing-keys}")
+    public Map<String, Set<String>> missingKeys() {
+        return this.missingKeyTracker.getMissingKeys();
+    }
+
+    /**
+     * 清空缺失记录，补充翻译后调用
+     */
+    @DeleteMapping("${i18n.missing-key-path:/i18n/missing-keys}")
+    public void clear() {
+        this.missingKeyTracker.clear();
+    }
+}
@@ -15,24 +15,34 @@
  */
 package com.mobaijun.i18n.dynamic;
 
+import com.mobaijun.i18n.listener.I18nMessageCreateEvent;
 import com.mobaijun.i18n.model.I18nMessage;
 import com.mobaijun.i18n.provider.I18nMessageProvider;
 import io.micrometer.common.lang.NonNullApi;
 import io.micrometer.common.lang.Nullable;
 import java.text.MessageFormat;
+import java.util.LinkedHashMap;
 import java.util.Locale;
-import lombok.RequiredArgsConstructor;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.support.AbstractMessageSource;
 
 /**
  * Description: 动态获取的 MessageSource，比如从数据库 或者 redis 中获取 message 信息
+ * <p>
+ * 解析结果按 (code, locale) 缓存，未找到的 code 同样缓存一段时间，避免每次翻译都访问数据库；
+ * 缓存按访问顺序淘汰（LRU），超过上限时移除最久未访问的记录，常用的 code 不会被淘汰；
+ * 国际化信息修改后通过 {@link #invalidate(String)} 或 {@link I18nMessageCacheManager} 失效缓存。
  * Author: [mobaijun]
  * Date: [2024/8/15 11:57]
  * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
  */
 @NonNullApi
-@RequiredArgsConstructor
-public class DynamicMessageSource extends AbstractMessageSource {
+public class DynamicMessageSource extends AbstractMessageSource implements ApplicationListener<I18nMessageCreateEvent> {
 
     /**
      * 动态 message source bean name
@@ -44,14 +54,188 @@ public class DynamicMessageSource extends AbstractMessageSource {
      */
     private final I18nMessageProvider i18nMessageProvider;
 
+    /**
+     * (code, locale) -> 解析结果，按访问顺序排列，受 {@link #cacheLock} 保护
+     */
+    private final LinkedHashMap<CacheKey, CachedMessage> cache;
+
+    /**
+     * 缓存锁，按访问顺序排列的 LinkedHashMap 读取时也会修改链表
+     */
+    private final ReentrantLock cacheLock = new ReentrantLock();
+
+    /**
+     * 最多缓存条数，小于等于 0 表示不缓存
+     */
+    private final int maxCacheSize;
+
+    /**
+     * 未找到的 code 的缓存时间（毫秒）
+     */
+    private final long negativeCacheMillis;
+
+    /**
+     * 缓存代数，每次失效递增，用于丢弃失效前开始加载的结果
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 缓存命中次数
+     */
+    private final LongAdder hitCount = new LongAdder();
+
+    /**
+     * 缓存未命中次数
+     */
+    private final LongAdder missCount = new LongAdder();
+
+    public DynamicMessageSource(I18nMessageProvider i18nMessageProvider) {
+        this(i18nMessageProvider, 10000, 60);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param i18nMessageProvider  国际化消息提供者
+     * @param maxCacheSize         最多缓存条数，小于等于 0 表示不缓存
+     * @param negativeCacheSeconds 未找到的 code 的缓存秒数
+     */
+    public DynamicMessageSource(I18nMessageProvider i18nMessageProvider, int maxCacheSize, long negativeCacheSeconds) {
+        this.i18nMessageProvider = i18nMessageProvider;
+        this.maxCacheSize = maxCacheSize;
+        this.negativeCacheMillis = TimeUnit.SECONDS.toMillis(negativeCacheSeconds);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedMessage> eldest) {
+                return size() > DynamicMessageSource.this.maxCacheSize;
+            }
+        };
+    }
+
     @Override
     @Nullable
     protected MessageFormat resolveCode(String code, Locale locale) {
+        if (this.maxCacheSize <= 0) {
+            return loadMessageFormat(code, locale);
+        }
+        CacheKey key = new CacheKey(code, locale);
+        long now = System.currentTimeMillis();
+        CachedMessage cached;
+        this.cacheLock.lock();
+        try {
+            cached = this.cache.get(key);
+        } finally {
+            this.cacheLock.unlock();
+        }
+        if (cached != null && (cached.messageFormat != null || cached.expireAt > now)) {
+            this.hitCount.increment();
+            return cached.messageFormat;
+        }
+        this.missCount.increment();
+        long loadGeneration = this.generation.get();
+        MessageFormat messageFormat = loadMessageFormat(code, locale);
+        CachedMessage loaded = new CachedMessage(messageFormat, messageFormat == null ? now + this.negativeCacheMillis : 0);
+        this.cacheLock.lock();
+        try {
+            // 加载期间发生过失效，结果可能是旧值，不写入缓存，由下次访问重新加载
+            if (this.generation.get() == loadGeneration) {
+                this.cache.put(key, loaded);
+            }
+        } finally {
+            this.cacheLock.unlock();
+        }
+        return messageFormat;
+    }
+
+    /**
+     * 从提供者加载国际化信息
+     *
+     * @param code   国际化标识
+     * @param locale 语言
+     * @return MessageFormat，未找到返回 null
+     */
+    @Nullable
+    private MessageFormat loadMessageFormat(String code, Locale locale) {
         I18nMessage i18nMessage = this.i18nMessageProvider.getI18nMessage(code, locale);
         if (i18nMessage != null) {
             return createMessageFormat(i18nMessage.getMessage(), locale);
         }
         return null;
     }
-}
 
+    /**
+     * 失效指定 code 所有语言的缓存
+     *
+     * @param code 国际化标识
+     */
+    public void invalidate(String code) {
+        // 先递增代数再移除，保证进行中的加载要么被移除，要么不再写入
+        this.generation.incrementAndGet();
+        this.cacheLock.lock();
+        try {
+            this.cache.keySet().removeIf(key -> key.code.equals(code));
+        } finally {
+            this.cacheLock.unlock();
+        }
+    }
+
+    /**
+     * 失效全部缓存
+     */
+    public void invalidateAll() {
+        this.generation.incrementAndGet();
+        this.cacheLock.lock();
+        try {
+            this.cache.clear();
+        } finally {
+            this.cacheLock.unlock();
+        }
+    }
+
+    /**
+     * 新增国际化信息后失效对应 code 的缓存，包括未找到的记录
+     *
+     * @param event 创建事件
+     */
+    @Override
+    public void onApplicationEvent(I18nMessageCreateEvent event) {
+        for (I18nMessage i18nMessage : event.getI18nMessages()) {
+            invalidate(i18nMessage.getCode());
+        }
+    }
+
+    public long getCacheHitCount() {
+        return this.hitCount.sum();
+    }
+
+    public long getCacheMissCount() {
+        return this.missCount.sum();
+    }
+
+    public int getCacheSize() {
+        this.cacheLock.lock();
+        try {
+            return this.cache.size();
+        } finally {
+            this.cacheLock.unlock();
+        }
+    }
+
+    /**
+     * 缓存 key
+     *
+     * @param code   国际化标识
+     * @param locale 语言
+     */
+    private record CacheKey(String code, Locale locale) {
+    }
+
+    /**
+     * 缓存的解析结果
+     *
+     * @param messageFormat 解析结果，未找到时为 null
+     * @param expireAt      未找到记录的过期时间
+     */
+    private record CachedMessage(MessageFormat messageFormat, long expireAt) {
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.i18n.dynamic;
+
+import java.util.List;
+
+/**
+ * Description: 国际化信息缓存管理，修改国际化信息后调用以失效 {@link DynamicMessageSource} 的缓存
+ * Author: [mobaijun]
+ * Date: [2024/8/15 11:57]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public class I18nMessageCacheManager {
+
+    /**
+     * 失效全部缓存时使用的 code
+     */
+    public static final String ALL = "*";
+
+    /**
+     * 所有动态 MessageSource
+     */
+    private final List<DynamicMessageSource> messageSources;
+
+    public I18nMessageCacheManager(List<DynamicMessageSource> messageSources) {
+        this.messageSources = messageSources;
+    }
+
+    /**
+     * 失效指定 code 所有语言的缓存
+     *
+     * @param code 国际化标识
+     */
+    public void invalidate(String code) {
+        invalidateLocal(code);
+    }
+
+    /**
+     * 失效全部缓存
+     */
+    public void invalidateAll() {
+        invalidate(ALL);
+    }
+
+    /**
+     * 失效当前节点的缓存
+     *
+     * @param code 国际化标识，{@link #ALL} 表示全部
+     */
+    protected void invalidateLocal(String code) {
+        for (DynamicMessageSource messageSource : messageSources) {
+            if (ALL.equals(code)) {
+                messageSource.invalidateAll();
+            } else {
+                messageSource.invalidate(code);
+            }
+        }
+    }
+}
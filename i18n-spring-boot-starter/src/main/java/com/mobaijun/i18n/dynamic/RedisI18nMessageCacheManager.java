@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.i18n.dynamic;
+
+import com.mobaijun.redisson.util.RedisUtil;
+import java.util.List;
+
+/**
+ * Description: 通过 redis 主题广播缓存失效的国际化信息缓存管理，集群中所有节点同时失效
+ * Author: [mobaijun]
+ * Date: [2024/8/15 11:57]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public class RedisI18nMessageCacheManager extends I18nMessageCacheManager {
+
+    /**
+     * 缓存失效主题
+     */
+    private final String topic;
+
+    public RedisI18nMessageCacheManager(List<DynamicMessageSource> messageSources, String topic) {
+        super(messageSources);
+        this.topic = topic;
+    }
+
+    /**
+     * 订阅缓存失效主题
+     */
+    public void subscribe() {
+        RedisUtil.subscribe(topic, String.class, this::invalidateLocal);
+    }
+
+    /**
+     * 失效当前节点缓存并广播，其他节点通过订阅收到消息后失效
+     *
+     * @param code 国际化标识
+     */
+    @Override
+    public void invalidate(String code) {
+        // 先失效本地缓存，不依赖 redis 消息送达
+        invalidateLocal(code);
+        RedisUtil.publish(topic, code);
+    }
+}
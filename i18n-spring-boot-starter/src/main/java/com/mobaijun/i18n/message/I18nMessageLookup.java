@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.i18n.message;
+
+import java.util.Locale;
+import java.util.Optional;
+import org.springframework.context.MessageSource;
+
+/**
+ * Description: 不抛出异常的国际化查找
+ * <p>
+ * 通过带默认消息的 {@link MessageSource#getMessage(String, Object[], String, Locale)} 查找，
+ * code 缺失时返回空结果而不是抛出 NoSuchMessageException，并交给 {@link I18nMissingKeyTracker} 记录。
+ * Author: [mobaijun]
+ * Date: [2024/8/15 12:03]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public class I18nMessageLookup {
+
+    /**
+     * 缺失标记，作为默认消息传入，返回该值说明 code 不存在
+     */
+    private static final String ABSENT = "\u0000i18n.absent\u0000";
+
+    /**
+     * 国际化配置
+     */
+    private final MessageSource messageSource;
+
+    /**
+     * 缺失 code 记录器
+     */
+    private final I18nMissingKeyTracker missingKeyTracker;
+
+    /**
+     * 构造方法
+     *
+     * @param messageSource     国际化配置
+     * @param missingKeyTracker 缺失 code 记录器
+     */
+    public I18nMessageLookup(MessageSource messageSource, I18nMissingKeyTracker missingKeyTracker) {
+        this.messageSource = messageSource;
+        this.missingKeyTracker = missingKeyTracker;
+    }
+
+    /**
+     * 查找国际化文本
+     *
+     * @param code   国际化 code
+     * @param locale 语言
+     * @return 国际化文本，code 不存在时为空
+     */
+    public Optional<String> find(String code, Locale locale) {
+        return find(code, null, locale);
+    }
+
+    /**
+     * 查找国际化文本
+     *
+     * @param code   国际化 code
+     * @param args   参数
+     * @param locale 语言
+     * @return 国际化文本，code 不存在时为空
+     */
+    public Optional<String> find(String code, Object[] args, Locale locale) {
+        String message = this.messageSource.getMessage(code, args, ABSENT, locale);
+        if (message == null || ABSENT.equals(message)) {
+            this.missingKeyTracker.record(code, locale);
+            return Optional.empty();
+        }
+        return Optional.of(message);
+    }
+
+    /**
+     * 查找国际化文本，期望语言中不存在时尝试回退语言
+     *
+     * @param code           国际化 code
+     * @param locale         语言
+     * @param fallbackLocale 回退语言，为 null 表示不回退
+     * @return 国际化文本，两种语言中都不存在时为空
+     */
+    public Optional<String> find(String code, Locale locale, Locale fallbackLocale) {
+        Optional<String> message = find(code, locale);
+        if (message.isEmpty() && fallbackLocale != null && !fallbackLocale.equals(locale)) {
+            return find(code, fallbackLocale);
+        }
+        return message;
+    }
+
+    /**
+     * 缺失 code 记录器
+     *
+     * @return 缺失 code 记录器
+     */
+    public I18nMissingKeyTracker getMissingKeyTracker() {
+        return this.missingKeyTracker;
+    }
+}
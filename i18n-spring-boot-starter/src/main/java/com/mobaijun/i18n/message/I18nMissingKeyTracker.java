@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.i18n.message;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Description: 未找到的国际化 code 记录器
+ * <p>
+ * 按 (code, locale) 去重，每个缺失的 code 只打印一次日志，供翻译人员查看缺失的配置。
+ * Author: [mobaijun]
+ * Date: [2024/8/15 12:03]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@Slf4j
+public class I18nMissingKeyTracker {
+
+    /**
+     * 语言 -> 缺失的 code
+     */
+    private final Map<Locale, Set<String>> missingKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 最多记录条数，小于等于 0 表示不限制
+     */
+    private final int maxSize;
+
+    /**
+     * 已记录条数
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * 是否已提示超出记录上限
+     */
+    private final AtomicBoolean overflowLogged = new AtomicBoolean();
+
+    /**
+     * 构造方法
+     *
+     * @param maxSize 最多记录条数，小于等于 0 表示不限制
+     */
+    public I18nMissingKeyTracker(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 记录缺失的 code，首次记录时打印日志
+     *
+     * @param code   国际化 code
+     * @param locale 语言
+     * @return 首次记录返回 true
+     */
+    public boolean record(String code, Locale locale) {
+        Set<String> codes = this.missingKeys.get(locale);
+        if (codes != null && codes.contains(code)) {
+            return false;
+        }
+        if (this.maxSize > 0 && this.size.get() >= this.maxSize) {
+            if (this.overflowLogged.compareAndSet(false, true)) {
+                log.warn("[I18nMissingKeyTracker]缺失的国际化配置超过 {} 条，不再记录", this.maxSize);
+            }
+            return false;
+        }
+        if (!this.missingKeys.computeIfAbsent(locale, key -> ConcurrentHashMap.newKeySet()).add(code)) {
+            return false;
+        }
+        this.size.incrementAndGet();
+        log.warn("[I18nMissingKeyTracker]未找到对应的国际化配置，code: {}, locale: {}", code, locale);
+        return true;
+    }
+
+    /**
+     * 是否已记录为缺失
+     *
+     * @param code   国际化 code
+     * @param locale 语言
+     * @return 已记录返回 true
+     */
+    public boolean isMissing(String code, Locale locale) {
+        Set<String> codes = this.missingKeys.get(locale);
+        return codes != null && codes.contains(code);
+    }
+
+    /**
+     * 缺失的 code 快照，按语言标签分组并排序
+     *
+     * @return languageTag -> 缺失的 code
+     */
+    public Map<String, Set<String>> getMissingKeys() {
+        Map<String, Set<String>> snapshot = new TreeMap<>();
+        this.missingKeys.forEach((locale, codes) -> snapshot.put(locale.toLanguageTag(), new TreeSet<>(codes)));
+        return snapshot;
+    }
+
+    /**
+     * 已记录条数
+     *
+     * @return 缺失的 code 数
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * 清空记录，补充翻译后调用，之后再次缺失会重新打印日志
+     */
+    public void clear() {
+        this.missingKeys.clear();
+        this.size.set(0);
+        this.overflowLogged.set(false);
+    }
+}
@@ -19,24 +19,35 @@ import io.micrometer.common.lang.NonNull;
 import io.micrometer.common.lang.NonNullApi;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.support.ReloadableResourceBundleMessageSource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
 
 /**
- * Description:
+ * Description: 支持通配符 basename 的 MessageSource
+ * <p>
+ * 启动时把通配符 basename 解析为各语言对应的具体文件并建立索引，查找时直接使用索引，
+ * 只有调用 {@link #clearCache()} 或超过 cacheSeconds 后才重新扫描 classpath。
  * Author: [mobaijun]
  * Date: [2024/8/15 12:03]
  * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
  */
 @Slf4j
 @NonNullApi
-public class WildcardReloadableResourceBundleMessageSource extends ReloadableResourceBundleMessageSource {
+public class WildcardReloadableResourceBundleMessageSource extends ReloadableResourceBundleMessageSource
+        implements InitializingBean {
 
     /**
      * 国际化文件后缀
@@ -51,6 +62,18 @@ public class WildcardReloadableResourceBundleMessageSource extends ReloadableRes
      * 通配符匹配器
      */
     private final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+    /**
+     * 资源路径（可含通配符） -> 匹配到的文件
+     */
+    private final Map<String, List<String>> resourceIndex = new ConcurrentHashMap<>();
+    /**
+     * basename -> 语言 -> 需要查找的全部文件
+     */
+    private final Map<String, Map<Locale, List<String>>> filenameIndex = new ConcurrentHashMap<>();
+    /**
+     * 索引建立时间
+     */
+    private volatile long indexTimestamp = System.currentTimeMillis();
 
     /**
      * 判断是否包含通配符
@@ -59,6 +82,34 @@ public class WildcardReloadableResourceBundleMessageSource extends ReloadableRes
         super.setResourceLoader(this.resolver);
     }
 
+    /**
+     * 启动时为所有 basename 及其已有的语言文件建立索引
+     */
+    @Override
+    public void afterPropertiesSet() {
+        for (String basename : getBasenameSet()) {
+            Set<Locale> locales = new LinkedHashSet<>();
+            locales.add(Locale.getDefault());
+            for (String filename : resolveResources(basename + "_*")) {
+                Matcher matcher = LOCALE_PROPERTIES_FILE_NAME_PATTERN.matcher(filename + PROPERTIES_SUFFIX);
+                if (matcher.matches()) {
+                    locales.add(StringUtils.parseLocale(matcher.group(1)));
+                }
+            }
+            locales.forEach(locale -> calculateAllFilenames(basename, locale));
+        }
+        log.debug("国际化文件索引建立完成，basename: {}", getBasenameSet());
+    }
+
+    /**
+     * 清除缓存时同时清除文件索引，下次查找时重新扫描
+     */
+    @Override
+    public void clearCache() {
+        super.clearCache();
+        clearIndex();
+    }
+
     /**
      * Calculate all filenames for the given bundle basename and Locale. Will calculate
      * filenames for the given Locale, the system Locale (if applicable), and the default
@@ -72,26 +123,41 @@ public class WildcardReloadableResourceBundleMessageSource extends ReloadableRes
      */
     @Override
     protected List<String> calculateAllFilenames(@NonNull String basename, @NonNull Locale locale) {
-        // 父类默认的方法会将 basename 也放入 filenames 列表
-        List<String> filenames = super.calculateAllFilenames(basename, locale);
-        // 当 basename 有匹配符时，从 filenames 中移除，否则扫描文件将抛出 Illegal char <*> 的异常
-        if (containsWildcard(basename)) {
-            filenames.remove(basename);
-            try {
-                Resource[] resources = getResources(basename);
-                for (Resource resource : resources) {
-                    String resourceUriStr = resource.getURI().toString();
-                    // 根据通配符匹配到的多个 basename 对应的文件添加到文件列表末尾，作为兜底匹配
-                    if (!LOCALE_PROPERTIES_FILE_NAME_PATTERN.matcher(resourceUriStr).matches()) {
-                        String sourcePath = resourceUriStr.replace(PROPERTIES_SUFFIX, "");
-                        filenames.add(sourcePath);
-                    }
+        expireIndex();
+        return this.filenameIndex.computeIfAbsent(basename, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(locale, key -> doCalculateAllFilenames(basename, locale));
+    }
+
+    /**
+     * 计算 basename 在指定语言下需要查找的全部文件
+     *
+     * @param basename basename
+     * @param locale   语言
+     * @return 文件列表
+     */
+    private List<String> doCalculateAllFilenames(String basename, Locale locale) {
+        // 与父类逻辑一致，但不经过父类的文件名缓存，索引过期后才能重新扫描
+        List<String> filenames = new ArrayList<>(calculateFilenamesForLocale(basename, locale));
+        Locale defaultLocale = getDefaultLocale();
+        if (defaultLocale != null && !defaultLocale.equals(locale)) {
+            for (String fallbackFilename : calculateFilenamesForLocale(basename, defaultLocale)) {
+                if (!filenames.contains(fallbackFilename)) {
+                    filenames.add(fallbackFilename);
+                }
+            }
+        }
+        // 当 basename 有匹配符时不能放入 filenames，否则扫描文件将抛出 Illegal char <*> 的异常
+        if (!containsWildcard(basename)) {
+            filenames.add(basename);
+        } else {
+            for (String sourcePath : resolveResources(basename)) {
+                // 根据通配符匹配到的多个 basename 对应的文件添加到文件列表末尾，作为兜底匹配
+                if (!LOCALE_PROPERTIES_FILE_NAME_PATTERN.matcher(sourcePath + PROPERTIES_SUFFIX).matches()) {
+                    filenames.add(sourcePath);
                 }
-            } catch (IOException ex) {
-                log.error("读取国际化信息文件异常", ex);
             }
         }
-        return filenames;
+        return List.copyOf(filenames);
     }
 
     @Override
@@ -101,19 +167,50 @@ public class WildcardReloadableResourceBundleMessageSource extends ReloadableRes
         // 获取到待匹配的国际化信息文件名集合
         List<String> matchFilenames = super.calculateFilenamesForLocale(basename, locale);
         for (String matchFilename : matchFilenames) {
+            fileNames.addAll(resolveResources(matchFilename));
+        }
+        return fileNames;
+    }
+
+    /**
+     * 从索引获取资源路径匹配到的文件，不存在时扫描 classpath
+     *
+     * @param resourceLocationPattern 资源文件路径
+     * @return 去掉后缀的文件路径
+     */
+    private List<String> resolveResources(String resourceLocationPattern) {
+        return this.resourceIndex.computeIfAbsent(resourceLocationPattern, pattern -> {
+            List<String> fileNames = new ArrayList<>();
             try {
-                Resource[] resources = getResources(matchFilename);
-                for (Resource resource : resources) {
+                for (Resource resource : getResources(pattern)) {
                     if (resource.exists()) {
-                        String sourcePath = resource.getURI().toString().replace(PROPERTIES_SUFFIX, "");
-                        fileNames.add(sourcePath);
+                        fileNames.add(resource.getURI().toString().replace(PROPERTIES_SUFFIX, ""));
                     }
                 }
             } catch (IOException ex) {
                 log.error("读取国际化信息文件异常", ex);
             }
+            return List.copyOf(fileNames);
+        });
+    }
+
+    /**
+     * 超过 cacheSeconds 时清除索引，cacheSeconds 为负数时索引永久有效
+     */
+    private void expireIndex() {
+        long cacheMillis = getCacheMillis();
+        if (cacheMillis >= 0 && System.currentTimeMillis() - this.indexTimestamp > cacheMillis) {
+            clearIndex();
         }
-        return fileNames;
+    }
+
+    /**
+     * 清除文件索引
+     */
+    private void clearIndex() {
+        this.indexTimestamp = System.currentTimeMillis();
+        this.resourceIndex.clear();
+        this.filenameIndex.clear();
     }
 
     /**
@@ -39,4 +39,34 @@ public class I18nOptions {
      * 是否使用消息代码作为默认消息而不是抛出“NoSuchMessageException”。
      */
     private boolean useCodeAsDefaultMessage = true;
+
+    /**
+     * 动态国际化信息最多缓存条数，小于等于 0 表示不缓存
+     */
+    private int cacheMaxSize = 10000;
+
+    /**
+     * 未找到的国际化 code 的缓存秒数
+     */
+    private long negativeCacheSeconds = 60;
+
+    /**
+     * 引入 redisson 时广播缓存失效的主题
+     */
+    private String cacheInvalidateTopic = "global:i18n:invalidate";
+
+    /**
+     * 最多记录的缺失国际化 code 条数，小于等于 0 表示不限制
+     */
+    private int missingKeyMaxSize = 10000;
+
+    /**
+     * 是否开启缺失国际化 code 查询接口
+     */
+    private boolean missingKeyEndpointEnabled = false;
+
+    /**
+     * 缺失国际化 code 查询接口路径
+     */
+    private String missingKeyPath = "/i18n/missing-keys";
 }
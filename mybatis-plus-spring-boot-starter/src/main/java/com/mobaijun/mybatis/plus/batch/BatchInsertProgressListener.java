@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2022 www.mobaijun.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.mybatis.plus.batch;
+
+/**
+ * Software：IntelliJ IDEA 2021.3.2
+ * InterfaceName: BatchInsertProgressListener
+ * 接口描述：并行批量插入的进度监听，每完成一个批次（无论成功或失败）回调一次，可能在多个线程中被调用
+ *
+ * @author MoBaiJun 2022/5/7 16:22
+ */
+@FunctionalInterface
+public interface BatchInsertProgressListener {
+
+    /**
+     * 批次完成回调
+     *
+     * @param completedChunks 已完成批次数
+     * @param totalChunks     总批次数
+     * @param insertedRows    已成功插入行数
+     */
+    void onProgress(int completedChunks, int totalChunks, long insertedRows);
+}
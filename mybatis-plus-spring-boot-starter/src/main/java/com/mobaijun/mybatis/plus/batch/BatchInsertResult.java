@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2022 www.mobaijun.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.mybatis.plus.batch;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Software：IntelliJ IDEA 2021.3.2
+ * ClassName: BatchInsertResult
+ * 类描述：并行批量插入结果，失败批次已各自回滚，可根据 {@link ChunkFailure} 重试
+ *
+ * @author MoBaiJun 2022/5/7 16:22
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BatchInsertResult {
+
+    /**
+     * 总行数
+     */
+    private final long totalRows;
+
+    /**
+     * 成功插入行数
+     */
+    private final long insertedRows;
+
+    /**
+     * 每批次行数
+     */
+    private final int chunkSize;
+
+    /**
+     * 总批次数
+     */
+    private final int totalChunks;
+
+    /**
+     * 失败批次
+     */
+    private final List<ChunkFailure> failures;
+
+    /**
+     * 是否全部成功
+     *
+     * @return boolean
+     */
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * 失败批次
+     */
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class ChunkFailure {
+
+        /**
+         * 批次序号，从 0 开始
+         */
+        private final int chunkIndex;
+
+        /**
+         * 批次第一行在原始数据中的下标
+         */
+        private final int fromIndex;
+
+        /**
+         * 批次行数
+         */
+        private final int size;
+
+        /**
+         * 失败原因
+         */
+        private final Throwable cause;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2022 www.mobaijun.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.mybatis.plus.batch;
+
+import com.baomidou.dynamic.datasource.toolkit.DynamicDataSourceContextHolder;
+import com.baomidou.mybatisplus.annotation.DbType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Software：IntelliJ IDEA 2021.3.2
+ * ClassName: ParallelBatchInsertExecutor
+ * 类描述：并行分批插入执行器
+ * <p>
+ * 数据按批次切分后由共享线程池中不超过并行度的线程并行插入，同时占用的数据库连接数不超过并行度；
+ * 每个批次是一条独立提交的多行 insert 语句，失败只影响当前批次。
+ * <p>
+ * 工作线程会沿用调用线程的动态数据源 key，其他线程变量（如租户）通过 {@link TaskDecorator} 透传；
+ * 调用线程处于事务中时，事务无法跨线程共享，所有批次退化为在调用线程中串行执行并加入该事务；
+ * 此时任一批次失败会立即抛出异常，由外层事务回滚，不再继续插入后续批次
+ * （失败的语句在 PostgreSQL 等数据库上会使整个事务失效，继续插入也无法提交）。
+ *
+ * @author MoBaiJun 2022/5/7 16:22
+ */
+@Slf4j
+public final class ParallelBatchInsertExecutor {
+
+    /**
+     * 是否引入了动态数据源
+     */
+    private static final boolean DYNAMIC_DATASOURCE_PRESENT = ClassUtils.isPresent(
+            "com.baomidou.dynamic.datasource.toolkit.DynamicDataSourceContextHolder",
+            ParallelBatchInsertExecutor.class.getClassLoader());
+
+    /**
+     * 共享的插入线程池，空闲线程自动回收，每次执行占用的线程数由并行度限制
+     */
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+
+        private final AtomicInteger threadIndex = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "batch-insert-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private ParallelBatchInsertExecutor() {
+    }
+
+    /**
+     * 数据库单条语句允许的最大占位符数量，取各驱动限制的保守值
+     *
+     * @param dbType 数据库类型
+     * @return 最大占位符数量
+     */
+    public static int maxPlaceholders(DbType dbType) {
+        if (dbType == null) {
+            return 32767;
+        }
+        return switch (dbType) {
+            case MYSQL, MARIADB, ORACLE, ORACLE_12C, DM -> 65535;
+            case SQL_SERVER, SQL_SERVER2005 -> 2100 - 1;
+            case SQLITE -> 999;
+            default -> 32767;
+        };
+    }
+
+    /**
+     * 根据每行占位符数量计算批次大小，保证单条语句不超过驱动的占位符限制
+     *
+     * @param batchSize       期望的批次大小
+     * @param columnsPerRow   每行占位符数量
+     * @param maxPlaceholders 最大占位符数量
+     * @return 批次大小
+     */
+    public static int chunkSize(int batchSize, int columnsPerRow, int maxPlaceholders) {
+        int limit = Math.max(maxPlaceholders / Math.max(columnsPerRow, 1), 1);
+        return Math.max(Math.min(batchSize, limit), 1);
+    }
+
+    /**
+     * 并行分批插入
+     *
+     * @param rows        数据
+     * @param chunkSize   批次大小
+     * @param parallelism 并行度，即最多同时占用的连接数
+     * @param inserter    单批次插入逻辑
+     * @param listener    进度监听，可为 null
+     * @param <T>         数据类型
+     * @return 插入结果
+     */
+    public static <T> BatchInsertResult execute(List<T> rows, int chunkSize, int parallelism,
+                                                Consumer<List<T>> inserter, BatchInsertProgressListener listener) {
+        return execute(rows, chunkSize, parallelism, inserter, listener, null);
+    }
+
+    /**
+     * 并行分批插入
+     *
+     * @param rows          数据
+     * @param chunkSize     批次大小
+     * @param parallelism   并行度，即最多同时占用的连接数
+     * @param inserter      单批次插入逻辑
+     * @param listener      进度监听，可为 null
+     * @param taskDecorator 工作线程任务装饰器，用于透传线程变量，可为 null
+     * @param <T>           数据类型
+     * @return 插入结果
+     */
+    public static <T> BatchInsertResult execute(List<T> rows, int chunkSize, int parallelism,
+                                                Consumer<List<T>> inserter, BatchInsertProgressListener listener,
+                                                TaskDecorator taskDecorator) {
+        int size = Math.max(chunkSize, 1);
+        int totalChunks = (rows.size() + size - 1) / size;
+        if (totalChunks == 0) {
+            return new BatchInsertResult(0, 0, size, 0, Collections.emptyList());
+        }
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicInteger completedChunks = new AtomicInteger();
+        AtomicLong insertedRows = new AtomicLong();
+        List<BatchInsertResult.ChunkFailure> failures = Collections.synchronizedList(new ArrayList<>());
+        // 每个工作线程循环领取批次，直到所有批次领取完毕
+        Runnable worker = () -> {
+            int chunkIndex;
+            while ((chunkIndex = nextChunk.getAndIncrement()) < totalChunks) {
+                int fromIndex = chunkIndex * size;
+                List<T> chunk = rows.subList(fromIndex, Math.min(fromIndex + size, rows.size()));
+                try {
+                    inserter.accept(chunk);
+                    insertedRows.addAndGet(chunk.size());
+                } catch (Throwable e) {
+                    log.warn("批量插入第 {} 批失败, fromIndex: {}, size: {}", chunkIndex, fromIndex, chunk.size(), e);
+                    failures.add(new BatchInsertResult.ChunkFailure(chunkIndex, fromIndex, chunk.size(), e));
+                }
+                int completed = completedChunks.incrementAndGet();
+                if (listener != null) {
+                    listener.onProgress(completed, totalChunks, insertedRows.get());
+                }
+            }
+        };
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            log.debug("当前线程处于事务中，{} 个批次在调用线程中串行插入", totalChunks);
+            // 事务中快速失败，异常直接抛给外层事务回滚
+            for (int chunkIndex = 0; chunkIndex < totalChunks; chunkIndex++) {
+                int fromIndex = chunkIndex * size;
+                List<T> chunk = rows.subList(fromIndex, Math.min(fromIndex + size, rows.size()));
+                inserter.accept(chunk);
+                insertedRows.addAndGet(chunk.size());
+                if (listener != null) {
+                    listener.onProgress(chunkIndex + 1, totalChunks, insertedRows.get());
+                }
+            }
+        } else {
+            int threads = Math.max(Math.min(parallelism, totalChunks), 1);
+            Runnable task = propagate(worker, taskDecorator);
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                futures[i] = CompletableFuture.runAsync(task, EXECUTOR);
+            }
+            CompletableFuture.allOf(futures).join();
+        }
+        List<BatchInsertResult.ChunkFailure> sortedFailures = new ArrayList<>(failures);
+        sortedFailures.sort((a, b) -> Integer.compare(a.getChunkIndex(), b.getChunkIndex()));
+        return new BatchInsertResult(rows.size(), insertedRows.get(), size, totalChunks, sortedFailures);
+    }
+
+    /**
+     * 在调用线程中捕获线程变量，使工作线程沿用调用线程的数据源
+     *
+     * @param worker        工作任务
+     * @param taskDecorator 任务装饰器，可为 null
+     * @return 包装后的任务
+     */
+    private static Runnable propagate(Runnable worker, TaskDecorator taskDecorator) {
+        Runnable task = DYNAMIC_DATASOURCE_PRESENT ? DataSourceKeyPropagation.wrap(worker) : worker;
+        return taskDecorator == null ? task : taskDecorator.decorate(task);
+    }
+
+    /**
+     * 动态数据源 key 透传，仅在引入动态数据源时加载
+     */
+    private static final class DataSourceKeyPropagation {
+
+        private static Runnable wrap(Runnable worker) {
+            String dataSourceKey = DynamicDataSourceContextHolder.peek();
+            if (dataSourceKey == null) {
+                return worker;
+            }
+            return () -> {
+                DynamicDataSourceContextHolder.push(dataSourceKey);
+                try {
+                    worker.run();
+                } finally {
+                    DynamicDataSourceContextHolder.poll();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2022 www.mobaijun.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.mybatis.plus.interceptor;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.ParameterUtils;
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.baomidou.mybatisplus.extension.toolkit.JdbcUtils;
+import com.mobaijun.base.model.CountStrategy;
+import com.mobaijun.mybatis.plus.toolkit.CountStrategyPage;
+import com.mobaijun.mybatis.plus.toolkit.PageCount;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Software：IntelliJ IDEA 2021.3.2
+ * ClassName: CountStrategyPaginationInnerInterceptor
+ * 类描述：支持多种总数统计策略的分页拦截器，替换 PaginationInnerInterceptor 注册即可
+ * <p>
+ * 策略取自 {@link CountStrategyPage}，其次是 mapper 方法上的 {@link PageCount}，都没有时使用 {@link #defaultStrategy}。
+ * ESTIMATED 仅支持 MySQL / MariaDB / PostgreSQL，HAS_NEXT 仅支持 LIMIT OFFSET 语法的数据库，其余数据库退化为精确统计。
+ *
+ * @author MoBaiJun 2022/5/7 16:21
+ */
+@Slf4j
+public class CountStrategyPaginationInnerInterceptor extends PaginationInnerInterceptor {
+
+    /**
+     * PostgreSQL 执行计划中的估算行数
+     */
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    /**
+     * mappedStatementId -> 方法上的 PageCount
+     */
+    private static final Map<String, Optional<PageCount>> ANNOTATION_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 查询语句及参数 -> 缓存的总数
+     */
+    private final Map<CacheKey, CachedCount> countCache = new ConcurrentHashMap<>();
+
+    /**
+     * 默认统计策略
+     */
+    @Getter
+    @Setter
+    private CountStrategy defaultStrategy = CountStrategy.EXACT;
+
+    /**
+     * CACHED 策略的默认缓存秒数
+     */
+    @Getter
+    @Setter
+    private long countCacheSeconds = 60;
+
+    /**
+     * CACHED 策略最多缓存的查询数，超出后清理
+     */
+    @Getter
+    @Setter
+    private int maxCacheSize = 10000;
+
+    public CountStrategyPaginationInnerInterceptor() {
+    }
+
+    public CountStrategyPaginationInnerInterceptor(DbType dbType) {
+        super(dbType);
+    }
+
+    @Override
+    public boolean willDoQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                               ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+        IPage<?> page = ParameterUtils.findPage(parameter).orElse(null);
+        if (page == null || page.getSize() < 0 || !page.searchCount() || resultHandler != Executor.NO_RESULT_HANDLER) {
+            return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+        PageCount annotation = null;
+        CountStrategy strategy = page instanceof CountStrategyPage<?> strategyPage ? strategyPage.getCountStrategy() : null;
+        if (strategy == null) {
+            annotation = getAnnotation(ms);
+            strategy = annotation == null ? this.defaultStrategy : annotation.value();
+        }
+        DbType dbType = this.getDbType() == null ? JdbcUtils.getDbType(executor) : this.getDbType();
+        Long total = switch (strategy) {
+            case CACHED -> {
+                long seconds = page instanceof CountStrategyPage<?> strategyPage && strategyPage.getCountCacheSeconds() > 0
+                        ? strategyPage.getCountCacheSeconds() : annotation != null && annotation.cacheSeconds() > 0
+                        ? annotation.cacheSeconds() : this.countCacheSeconds;
+                yield cachedCount(executor, ms, parameter, rowBounds, resultHandler, boundSql, page, seconds);
+            }
+            case ESTIMATED -> estimatedCount(executor, ms, parameter, boundSql, dbType);
+            case HAS_NEXT -> hasNextCount(executor, ms, parameter, boundSql, page, dbType);
+            default -> null;
+        };
+        if (total == null) {
+            return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+        page.setTotal(total);
+        return continuePage(page);
+    }
+
+    /**
+     * 清空 CACHED 策略缓存的总数，数据大量变更后调用
+     */
+    public void clearCountCache() {
+        this.countCache.clear();
+    }
+
+    /**
+     * 缓存有效期内直接返回缓存的总数，否则执行精确统计并缓存
+     */
+    private Long cachedCount(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                             ResultHandler<?> resultHandler, BoundSql boundSql, IPage<?> page, long seconds) throws SQLException {
+        // 此时 boundSql 尚未拼接分页，缓存与页码无关
+        CacheKey cacheKey = executor.createCacheKey(ms, parameter, RowBounds.DEFAULT, boundSql);
+        long now = System.currentTimeMillis();
+        CachedCount cached = this.countCache.get(cacheKey);
+        if (cached != null && cached.expireAt > now) {
+            return cached.total;
+        }
+        super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        if (this.countCache.size() >= this.maxCacheSize) {
+            this.countCache.values().removeIf(c -> c.expireAt <= now);
+            if (this.countCache.size() >= this.maxCacheSize) {
+                this.countCache.clear();
+            }
+        }
+        this.countCache.put(cacheKey, new CachedCount(page.getTotal(), now + TimeUnit.SECONDS.toMillis(seconds)));
+        return page.getTotal();
+    }
+
+    /**
+     * 使用执行计划的估算行数
+     */
+    private Long estimatedCount(Executor executor, MappedStatement ms, Object parameter, BoundSql boundSql,
+                                DbType dbType) throws SQLException {
+        boolean mysql = dbType == DbType.MYSQL || dbType == DbType.MARIADB;
+        if (!mysql && dbType != DbType.POSTGRE_SQL) {
+            return null;
+        }
+        return queryForLong(executor, ms, parameter, boundSql, "EXPLAIN " + boundSql.getSql(), rs -> {
+            if (mysql) {
+                // 第一行为驱动表的扫描行数估算
+                return rs.getLong("rows");
+            }
+            Matcher matcher = PLAN_ROWS.matcher(rs.getString(1));
+            return matcher.find() ? Long.parseLong(matcher.group(1)) : null;
+        });
+    }
+
+    /**
+     * 统计当前页起最多 size + 1 行，有下一页时总数为下一页的第一行，否则为精确总数
+     */
+    private Long hasNextCount(Executor executor, MappedStatement ms, Object parameter, BoundSql boundSql,
+                              IPage<?> page, DbType dbType) throws SQLException {
+        if (dbType == null || !dbType.mysqlSameType() && !dbType.postgresqlSameType() && dbType != DbType.SQLITE
+                && dbType != DbType.H2) {
+            return null;
+        }
+        long offset = page.offset();
+        String sql = "SELECT COUNT(*) FROM (" + boundSql.getSql() + " LIMIT " + (page.getSize() + 1)
+                + " OFFSET " + offset + ") mp_has_next";
+        Long rows = queryForLong(executor, ms, parameter, boundSql, sql, rs -> rs.getLong(1));
+        return rows == null ? null : offset + rows;
+    }
+
+    /**
+     * 使用原查询的参数执行一条返回单个数值的语句，连接由当前事务管理，不在这里关闭
+     * <p>
+     * 在事务中执行时先设置保存点，失败后回滚到保存点，避免 PostgreSQL 等数据库因一条语句失败使整个事务失效；
+     * 无法设置保存点时放弃探测，直接改为精确统计。
+     */
+    private Long queryForLong(Executor executor, MappedStatement ms, Object parameter, BoundSql boundSql, String sql,
+                              ResultExtractor extractor) throws SQLException {
+        PluginUtils.MPBoundSql mpBoundSql = PluginUtils.mpBoundSql(boundSql);
+        BoundSql querySql = new BoundSql(ms.getConfiguration(), sql, mpBoundSql.parameterMappings(), parameter);
+        PluginUtils.setAdditionalParameter(querySql, mpBoundSql.additionalParameters());
+        Connection connection = executor.getTransaction().getConnection();
+        Savepoint savepoint = null;
+        try {
+            if (!connection.getAutoCommit()) {
+                savepoint = connection.setSavepoint();
+            }
+            Long result;
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                new DefaultParameterHandler(ms, parameter, querySql).setParameters(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    result = rs.next() ? extractor.extract(rs) : null;
+                }
+            }
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+            return result;
+        } catch (SQLException e) {
+            if (savepoint != null) {
+                try {
+                    connection.rollback(savepoint);
+                } catch (SQLException rollbackException) {
+                    // 无法回滚到保存点时事务状态未知，交给调用方处理
+                    e.addSuppressed(rollbackException);
+                    throw e;
+                }
+            }
+            log.warn("分页统计失败，改为精确统计: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 查找 mapper 方法上的 PageCount 注解
+     */
+    private static PageCount getAnnotation(MappedStatement ms) {
+        return ANNOTATION_CACHE.computeIfAbsent(ms.getId(), id -> {
+            int index = id.lastIndexOf('.');
+            try {
+                Class<?> mapperClass = Class.forName(id.substring(0, index), false,
+                        Thread.currentThread().getContextClassLoader());
+                String methodName = id.substring(index + 1);
+                for (Method method : mapperClass.getMethods()) {
+                    if (method.getName().equals(methodName) && method.isAnnotationPresent(PageCount.class)) {
+                        return Optional.of(method.getAnnotation(PageCount.class));
+                    }
+                }
+            } catch (ClassNotFoundException | LinkageError ignore) {
+            }
+            return Optional.empty();
+        }).orElse(null);
+    }
+
+    /**
+     * 结果集读取
+     */
+    @FunctionalInterface
+    private interface ResultExtractor {
+
+        Long extract(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * 缓存的总数
+     */
+    private record CachedCount(long total, long expireAt) {
+    }
+}
@@ -16,11 +16,18 @@
 package com.mobaijun.mybatis.plus.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.mobaijun.base.model.PageParam;
+import com.mobaijun.mybatis.plus.query.LambdaQueryWrapper;
+import com.mobaijun.mybatis.plus.toolkit.KeysetPage;
+import com.mobaijun.mybatis.plus.toolkit.KeysetSort;
 import com.mobaijun.mybatis.plus.toolkit.PageUtil;
 import java.util.Collection;
+import java.util.List;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 /**
  * Software：IntelliJ IDEA 2021.3.2
@@ -42,10 +49,34 @@ public interface ExtendMapper<T> extends BaseMapper<T> {
         return PageUtil.prodPage(pageParam);
     }
 
+    /**
+     * 游标分页（keyset / seek 分页），深分页耗时与页码无关，且不执行 count 查询
+     *
+     * @param wrapper 查询条件，不能包含排序
+     * @param size    每页条数
+     * @param cursor  上一页返回的游标，查询第一页时为空
+     * @param sorts   排序列，最后一列应为唯一列（通常是主键）
+     * @return KeysetPage
+     */
+    default KeysetPage<T> keysetPage(LambdaQueryWrapper<T> wrapper, long size, String cursor, List<KeysetSort<T>> sorts) {
+        return PageUtil.keysetPage(this, wrapper, size, cursor, sorts);
+    }
+
     /**
      * 批量插入数据 实现类 InsertBatchSomeColumn
      *
      * @param list 数据列表
      */
     void insertBatchSomeColumn(@Param("collection") Collection<T> list);
-}
\ No newline at end of file
+
+    /**
+     * 游标查询 实现类 SelectCursor
+     * <p>
+     * 结果按数据库对应的 fetchSize 逐批读取，内存占用与结果行数无关；游标依赖查询所在的连接，
+     * 必须在事务中遍历并在遍历结束后关闭。
+     *
+     * @param queryWrapper 查询条件
+     * @return 游标
+     */
+    Cursor<T> selectCursor(@Param(Constants.WRAPPER) Wrapper<T> queryWrapper);
+}
@@ -15,10 +15,16 @@
  */
 package com.mobaijun.mybatis.plus.methods;
 
+import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.core.injector.AbstractMethod;
 import com.baomidou.mybatisplus.core.metadata.TableInfo;
 import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.mobaijun.mybatis.plus.util.DbTypeUtil;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Setter;
+import lombok.experimental.Accessors;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
@@ -34,15 +40,20 @@ import org.apache.ibatis.mapping.SqlSource;
  */
 public abstract class BaseInsertBatch extends AbstractMethod {
 
+    /**
+     * 数据库类型，为空时在注入阶段根据数据源推断
+     */
+    @Setter
+    @Accessors(chain = true)
+    private DbType dbType;
+
     protected BaseInsertBatch(String methodName) {
         super(methodName);
     }
 
     @Override
     public MappedStatement injectMappedStatement(Class<?> mapperClass, Class<?> modelClass, TableInfo tableInfo) {
-        SqlSource sqlSource = this.languageDriver.createSqlSource(this.configuration, String.format(getSql(),
-                        tableInfo.getTableName(), prepareFieldSql(tableInfo), prepareValuesSqlForMysqlBatch(tableInfo)),
-                modelClass);
+        SqlSource sqlSource = this.languageDriver.createSqlSource(this.configuration, buildSql(tableInfo), modelClass);
 
         // === mybatis 主键逻辑处理：主键生成策略，以及主键回填=======
         KeyGenerator keyGenerator = NoKeyGenerator.INSTANCE;
@@ -69,6 +80,52 @@ public abstract class BaseInsertBatch extends AbstractMethod {
                 keyProperty, keyColumn);
     }
 
+    /**
+     * 生成注册的脚本，子类可按数据库方言重写
+     *
+     * @param tableInfo 表信息
+     * @return mybatis script
+     */
+    protected String buildSql(TableInfo tableInfo) {
+        return String.format(getSql(), tableInfo.getTableName(), prepareFieldSql(tableInfo),
+                prepareValuesSqlForMysqlBatch(tableInfo));
+    }
+
+    /**
+     * 当前数据源对应的 upsert 方言
+     *
+     * @return UpsertDialect
+     */
+    protected UpsertDialect getUpsertDialect() {
+        return UpsertDialect.of(this.dbType != null ? this.dbType : DbTypeUtil.getDbType(this.configuration));
+    }
+
+    /**
+     * 插入列，第一个为主键列，与 {@link #prepareFieldSql(TableInfo)} 顺序一致
+     *
+     * @param tableInfo 表信息
+     * @return 列名
+     */
+    protected List<String> prepareColumns(TableInfo tableInfo) {
+        List<String> columns = new ArrayList<>();
+        columns.add(tableInfo.getKeyColumn());
+        tableInfo.getFieldList().forEach(field -> columns.add(field.getColumn()));
+        return columns;
+    }
+
+    /**
+     * 与插入列一一对应的实体属性
+     *
+     * @param tableInfo 表信息
+     * @return 属性名
+     */
+    protected List<String> prepareProperties(TableInfo tableInfo) {
+        List<String> properties = new ArrayList<>();
+        properties.add(tableInfo.getKeyProperty());
+        tableInfo.getFieldList().forEach(field -> properties.add(field.getProperty()));
+        return properties;
+    }
+
     private String getKeyProperty(TableInfo tableInfo) {
         return "collection." + tableInfo.getKeyProperty();
     }
@@ -17,6 +17,7 @@ package com.mobaijun.mybatis.plus.methods;
 
 import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
 import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import java.util.StringJoiner;
 import java.util.function.Predicate;
 import lombok.Setter;
 import lombok.experimental.Accessors;
@@ -24,15 +25,20 @@ import lombok.experimental.Accessors;
 /**
  * Software：IntelliJ IDEA 2021.3.2
  * ClassName: InsertOrUpdateByBatch
- * 类描述：批量插入或更新
+ * 类描述：批量插入或更新，按数据源的 DbType 生成对应方言的单条多行 upsert 语句
  *
  * @author MoBaiJun 2022/5/7 16:29
  */
 @Setter
 public class InsertOrUpdateByBatch extends BaseInsertBatch {
 
+    /**
+     * 默认 mapper 方法名
+     */
+    public static final String DEFAULT_METHOD_NAME = "insertOrUpdateByBatch";
+
     protected InsertOrUpdateByBatch() {
-        super("insertOrUpdateByBatch");
+        super(DEFAULT_METHOD_NAME);
     }
 
     protected InsertOrUpdateByBatch(String methodName) {
@@ -50,30 +56,60 @@ public class InsertOrUpdateByBatch extends BaseInsertBatch {
         return "<script>insert into %s %s values %s</script>";
     }
 
+    @Override
+    protected String buildSql(TableInfo tableInfo) {
+        UpsertDialect dialect = getUpsertDialect();
+        if (dialect == UpsertDialect.ON_DUPLICATE_KEY) {
+            return super.buildSql(tableInfo);
+        }
+        return dialect.sql(tableInfo.getTableName(), tableInfo.getKeyColumn(), prepareColumns(tableInfo),
+                prepareProperties(tableInfo), prepareUpdateSet(tableInfo, dialect));
+    }
+
     @Override
     protected String prepareValuesSqlForMysqlBatch(TableInfo tableInfo) {
         StringBuilder sql = super.prepareValuesBuildSqlForMysqlBatch(tableInfo);
-        sql.append(" ON DUPLICATE KEY UPDATE ");
-        StringBuilder ignore = new StringBuilder();
+        sql.append(" ON DUPLICATE KEY UPDATE ").append(prepareUpdateSet(tableInfo, UpsertDialect.ON_DUPLICATE_KEY));
+        return sql.toString();
+    }
 
-        tableInfo.getFieldList().forEach(field -> {
+    /**
+     * 生成 update set 子句
+     * <p>
+     * 忽略字段仅在 {@code ignore} 参数为 false 时更新；没有任何可更新字段时使用原值自赋值，保证语句合法。
+     *
+     * @param tableInfo 表信息
+     * @param dialect   方言
+     * @return update set 子句
+     */
+    private String prepareUpdateSet(TableInfo tableInfo, UpsertDialect dialect) {
+        StringJoiner updateSet = new StringJoiner(",");
+        StringJoiner ignore = new StringJoiner(",");
+        String ignoredColumn = null;
+        for (TableFieldInfo field : tableInfo.getFieldList()) {
             // 默认忽略逻辑删除字段
-            if (!field.isLogicDelete()) {
-                // 默认忽略字段
-                if (!this.predicate.test(field)) {
-                    sql.append(field.getColumn()).append("=").append("VALUES(").append(field.getColumn()).append("),");
-                } else {
-                    ignore.append(",").append(field.getColumn()).append("=").append("VALUES(").append(field.getColumn())
-                            .append(")");
-                }
+            if (field.isLogicDelete()) {
+                continue;
             }
-        });
-
-        // 删除最后一个多余的逗号
-        sql.delete(sql.length() - 1, sql.length());
+            String assignment = dialect.target(field.getColumn()) + "=" + dialect.source(field.getColumn());
+            // 默认忽略字段
+            if (this.predicate != null && this.predicate.test(field)) {
+                ignore.add(assignment);
+                ignoredColumn = ignoredColumn == null ? field.getColumn() : ignoredColumn;
+            } else {
+                updateSet.add(assignment);
+            }
+        }
 
-        // 配置不忽略全局配置字段时的sql部分
-        sql.append("<if test=\"!ignore\">").append(ignore).append("</if>");
-        return sql.toString();
+        if (updateSet.length() > 0) {
+            // 配置不忽略全局配置字段时的sql部分
+            return ignore.length() > 0 ? updateSet + "<if test=\"!ignore\">," + ignore + "</if>" : updateSet.toString();
+        }
+        String column = ignoredColumn != null ? ignoredColumn : tableInfo.getKeyColumn();
+        String noop = dialect.target(column) + "=" + dialect.current(tableInfo.getTableName(), column);
+        if (ignore.length() == 0) {
+            return noop;
+        }
+        return "<choose><when test=\"ignore\">" + noop + "</when><otherwise>" + ignore + "</otherwise></choose>";
     }
-}
\ No newline at end of file
+}
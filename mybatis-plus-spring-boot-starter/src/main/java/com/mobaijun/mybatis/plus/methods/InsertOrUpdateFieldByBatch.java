@@ -20,7 +20,7 @@ import com.baomidou.mybatisplus.core.metadata.TableInfo;
 /**
  * Software：IntelliJ IDEA 2021.3.2
  * ClassName: InsertOrUpdateFieldByBatch
- * 类描述：批量插入或更新字段
+ * 类描述：批量插入或更新字段，按数据源的 DbType 生成对应方言的单条多行 upsert 语句
  *
  * @author MoBaiJun 2022/5/7 16:29
  */
@@ -41,6 +41,26 @@ public class InsertOrUpdateFieldByBatch extends BaseInsertBatch {
         return SQL;
     }
 
+    @Override
+    protected String buildSql(TableInfo tableInfo) {
+        UpsertDialect dialect = getUpsertDialect();
+        if (dialect == UpsertDialect.ON_DUPLICATE_KEY) {
+            return super.buildSql(tableInfo);
+        }
+        String updateSet = "<if test=\"!columns.ignore\">"
+                + "<foreach collection=\"columns.list\" item=\"item\" index=\"index\" separator=\",\" >"
+                + dialect.target("${item.name}") + "=${item.val}"
+                + "</foreach>"
+                + "</if>"
+                + "<if test=\"columns.ignore\">"
+                + "<foreach collection=\"columns.back\" item=\"item\" index=\"index\" separator=\",\" >"
+                + dialect.target("${item}") + "=" + dialect.source("${item}")
+                + "</foreach>"
+                + "</if>";
+        return dialect.sql(tableInfo.getTableName(), tableInfo.getKeyColumn(), prepareColumns(tableInfo),
+                prepareProperties(tableInfo), updateSet);
+    }
+
     @Override
     protected String prepareValuesSqlForMysqlBatch(TableInfo tableInfo) {
         StringBuilder sql = super.prepareValuesBuildSqlForMysqlBatch(tableInfo);
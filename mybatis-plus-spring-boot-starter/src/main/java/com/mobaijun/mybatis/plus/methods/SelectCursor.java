@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2022 www.mobaijun.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.mybatis.plus.methods;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.enums.SqlMethod;
+import com.baomidou.mybatisplus.core.injector.AbstractMethod;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.mobaijun.mybatis.plus.util.DbTypeUtil;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.mapping.StatementType;
+
+/**
+ * Software：IntelliJ IDEA 2021.3.2
+ * ClassName: SelectCursor
+ * 类描述：游标查询，与 selectList 生成相同的 SQL，但按数据库设置 fetchSize，结果逐行读取
+ * <p>
+ * MySQL、MariaDB 默认使用 {@link Integer#MIN_VALUE} 逐行流式读取；连接串开启 useCursorFetch=true 时可通过构造参数指定正数 fetchSize
+ * 改用服务端游标。PostgreSQL 等数据库只在非自动提交（事务内）时才按 fetchSize 分批读取，需要在事务中使用。
+ *
+ * @author MoBaiJun 2022/5/7 16:28
+ */
+public class SelectCursor extends AbstractMethod {
+
+    public static final String DEFAULT_METHOD_NAME = "selectCursor";
+
+    /**
+     * 默认每次从数据库读取的行数
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * 指定的 fetchSize，为空时按数据库类型选择
+     */
+    private final Integer fetchSize;
+
+    public SelectCursor() {
+        this(DEFAULT_METHOD_NAME, null);
+    }
+
+    public SelectCursor(Integer fetchSize) {
+        this(DEFAULT_METHOD_NAME, fetchSize);
+    }
+
+    /**
+     * 自定义 mapper 方法名
+     *
+     * @param methodName methodName
+     * @param fetchSize  每次从数据库读取的行数，为空时按数据库类型选择
+     */
+    public SelectCursor(String methodName, Integer fetchSize) {
+        super(methodName);
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public MappedStatement injectMappedStatement(Class<?> mapperClass, Class<?> modelClass, TableInfo tableInfo) {
+        SqlMethod sqlMethod = SqlMethod.SELECT_LIST;
+        String sql = String.format(sqlMethod.getSql(), this.sqlFirst(), this.sqlSelectColumns(tableInfo, true),
+                tableInfo.getTableName(), this.sqlWhereEntityWrapper(true, tableInfo), this.sqlOrderBy(tableInfo),
+                this.sqlComment());
+        SqlSource sqlSource = this.languageDriver.createSqlSource(this.configuration, sql, modelClass);
+        String statementName = mapperClass.getName() + DOT + this.methodName;
+        if (this.hasMappedStatement(statementName)) {
+            logger.warn(LEFT_SQ_BRACKET + statementName + "] Has been loaded by XML or SqlProvider, so ignoring this injection for ["
+                    + this.getClass() + RIGHT_SQ_BRACKET);
+            return null;
+        }
+        String resultMap = tableInfo.getResultMap();
+        Class<?> resultType = resultMap == null ? tableInfo.getEntityType() : null;
+        return this.builderAssistant.addMappedStatement(this.methodName, sqlSource, StatementType.PREPARED,
+                SqlCommandType.SELECT, this.resolveFetchSize(), null, null, null, resultMap, resultType,
+                ResultSetType.FORWARD_ONLY, false, false, false, NoKeyGenerator.INSTANCE, null, null,
+                this.configuration.getDatabaseId(), this.languageDriver, null);
+    }
+
+    /**
+     * 按数据库类型选择 fetchSize
+     *
+     * @return fetchSize
+     */
+    protected Integer resolveFetchSize() {
+        if (this.fetchSize != null) {
+            return this.fetchSize;
+        }
+        DbType dbType = DbTypeUtil.getDbType(this.configuration);
+        // MySQL 驱动只在 fetchSize 为 Integer.MIN_VALUE 时逐行流式读取，MariaDB 驱动兼容该取值
+        return dbType == DbType.MYSQL || dbType == DbType.MARIADB ? Integer.MIN_VALUE : DEFAULT_FETCH_SIZE;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2022 www.mobaijun.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.mybatis.plus.methods;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Software：IntelliJ IDEA 2021.3.2
+ * ClassName: UpsertDialect
+ * 类描述：批量插入或更新的 SQL 方言，按数据源的 DbType 选择，生成单条多行 upsert 语句
+ *
+ * @author MoBaiJun 2022/5/7 16:29
+ */
+public enum UpsertDialect {
+
+    /**
+     * MySQL、MariaDB：INSERT ... ON DUPLICATE KEY UPDATE，未识别的数据库同样使用该方言
+     */
+    ON_DUPLICATE_KEY,
+
+    /**
+     * PostgreSQL、Kingbase、SQLite：INSERT ... ON CONFLICT (主键) DO UPDATE
+     */
+    ON_CONFLICT,
+
+    /**
+     * Oracle、DM：MERGE INTO ... USING (SELECT ... FROM DUAL UNION ALL ...)
+     */
+    MERGE_FROM_DUAL,
+
+    /**
+     * SQL Server：MERGE INTO ... USING (VALUES ...)
+     */
+    MERGE_FROM_VALUES;
+
+    /**
+     * 数据源别名
+     */
+    private static final String SOURCE = "S";
+
+    /**
+     * 目标表别名
+     */
+    private static final String TARGET = "T";
+
+    /**
+     * 根据数据库类型选择方言
+     *
+     * @param dbType 数据库类型
+     * @return 方言
+     */
+    public static UpsertDialect of(DbType dbType) {
+        if (dbType == null) {
+            return ON_DUPLICATE_KEY;
+        }
+        return switch (dbType) {
+            case POSTGRE_SQL, KINGBASE_ES, SQLITE -> ON_CONFLICT;
+            case ORACLE, ORACLE_12C, DM -> MERGE_FROM_DUAL;
+            case SQL_SERVER -> MERGE_FROM_VALUES;
+            default -> ON_DUPLICATE_KEY;
+        };
+    }
+
+    /**
+     * update set 子句中被更新列的写法
+     *
+     * @param column 列名，可以是 ${} 占位符
+     * @return 被更新列
+     */
+    public String target(String column) {
+        return isMerge() ? TARGET + "." + column : column;
+    }
+
+    /**
+     * update set 子句中引用待写入新值的写法
+     *
+     * @param column 列名，可以是 ${} 占位符
+     * @return 新值引用
+     */
+    public String source(String column) {
+        return switch (this) {
+            case ON_DUPLICATE_KEY -> "VALUES(" + column + ")";
+            case ON_CONFLICT -> "EXCLUDED." + column;
+            default -> SOURCE + "." + column;
+        };
+    }
+
+    /**
+     * update set 子句中引用已有记录原值的写法，用于不改变记录的自赋值
+     *
+     * @param tableName 表名
+     * @param column    列名
+     * @return 原值引用
+     */
+    public String current(String tableName, String column) {
+        return switch (this) {
+            case ON_DUPLICATE_KEY -> column;
+            case ON_CONFLICT -> tableName + "." + column;
+            default -> TARGET + "." + column;
+        };
+    }
+
+    /**
+     * 生成完整的 upsert 脚本
+     *
+     * @param tableName  表名
+     * @param keyColumn  主键列
+     * @param columns    插入列，第一个为主键列
+     * @param properties 与插入列一一对应的实体属性
+     * @param updateSet  update set 子句，可包含动态标签
+     * @return mybatis script
+     */
+    public String sql(String tableName, String keyColumn, List<String> columns, List<String> properties, String updateSet) {
+        String columnSql = String.join(",", columns);
+        String rowSql = properties.stream().map(property -> "#{item." + property + "}").collect(Collectors.joining(","));
+        return switch (this) {
+            case ON_DUPLICATE_KEY -> "<script>insert into " + tableName + " (" + columnSql + ") values "
+                    + rows(rowSql) + " ON DUPLICATE KEY UPDATE " + updateSet + "</script>";
+            case ON_CONFLICT -> "<script>insert into " + tableName + " (" + columnSql + ") values "
+                    + rows(rowSql) + " ON CONFLICT (" + keyColumn + ") DO UPDATE SET " + updateSet + "</script>";
+            case MERGE_FROM_DUAL -> {
+                StringBuilder select = new StringBuilder();
+                for (int i = 0; i < columns.size(); i++) {
+                    select.append(i == 0 ? "" : ",").append("#{item.").append(properties.get(i)).append("} ").append(columns.get(i));
+                }
+                yield "<script>MERGE INTO " + tableName + " " + TARGET + " USING ("
+                        + "<foreach collection=\"collection\" item=\"item\" index=\"index\" separator=\" UNION ALL \">"
+                        + "SELECT " + select + " FROM DUAL</foreach>) " + SOURCE
+                        + " ON (" + target(keyColumn) + " = " + source(keyColumn) + ")"
+                        + " WHEN MATCHED THEN UPDATE SET " + updateSet
+                        + " WHEN NOT MATCHED THEN INSERT (" + columnSql + ") VALUES (" + sourceColumns(columns) + ")</script>";
+            }
+            case MERGE_FROM_VALUES -> "<script>MERGE INTO " + tableName + " AS " + TARGET + " USING (VALUES " + rows(rowSql)
+                    + ") AS " + SOURCE + " (" + columnSql + ")"
+                    + " ON " + target(keyColumn) + " = " + source(keyColumn)
+                    + " WHEN MATCHED THEN UPDATE SET " + updateSet
+                    + " WHEN NOT MATCHED THEN INSERT (" + columnSql + ") VALUES (" + sourceColumns(columns) + ");</script>";
+        };
+    }
+
+    /**
+     * 是否为 MERGE 语句
+     *
+     * @return boolean
+     */
+    private boolean isMerge() {
+        return this == MERGE_FROM_DUAL || this == MERGE_FROM_VALUES;
+    }
+
+    /**
+     * 多行 values 片段
+     *
+     * @param rowSql 单行占位符
+     * @return foreach 片段
+     */
+    private static String rows(String rowSql) {
+        return "<foreach collection=\"collection\" item=\"item\" index=\"index\" open=\"(\" separator=\"),(\" close=\")\">"
+                + rowSql + "</foreach>";
+    }
+
+    /**
+     * 数据源中的全部列
+     *
+     * @param columns 列名
+     * @return S.col1,S.col2...
+     */
+    private static String sourceColumns(List<String> columns) {
+        return columns.stream().map(column -> SOURCE + "." + column).collect(Collectors.joining(","));
+    }
+}
@@ -27,6 +27,7 @@ import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
 import com.baomidou.mybatisplus.core.toolkit.StringUtils;
 import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -149,6 +150,26 @@ public class LambdaQueryWrapper<T> extends AbstractLambdaWrapper<T, LambdaQueryW
 
     // ======= 分界线，以上 copy 自 mybatis-plus 源码 =====
 
+    /**
+     * 复制查询字段与 where 条件，返回的实例与当前实例互不影响
+     * <p>
+     * 排序、分组以及 last 不复制
+     *
+     * @return 新的查询条件
+     */
+    public LambdaQueryWrapper<T> copyWhere() {
+        LambdaQueryWrapper<T> copy = new LambdaQueryWrapper<>(getEntity(), getEntityClass(),
+                new SharedString(sqlSelect.getStringValue()), new AtomicInteger(paramNameSeq.get()),
+                new HashMap<>(paramNameValuePairs), new MergeSegments(), SharedString.emptyString(),
+                SharedString.emptyString(), SharedString.emptyString());
+        // where 条件中的参数占位符引用 paramNameValuePairs，已随参数一并复制
+        String where = expression.getNormal().getSqlSegment();
+        if (StringUtils.isNotBlank(where)) {
+            copy.apply(where);
+        }
+        return copy;
+    }
+
     /**
      * 当前条件只是否非null，且不为空
      *
@@ -76,6 +76,27 @@ public interface BaseService<T> {
      */
     boolean saveOrUpdateBatch(Collection<T> entityList, int batchSize);
 
+    /**
+     * 批量 upsert，需要 mapper 注册 insertOrUpdateByBatch 注入方法
+     * <p>
+     * 与 {@link #saveOrUpdateBatch(Collection)} 不同，已有记录会被实体的全部字段（包括 null）覆盖，
+     * 且不经过更新填充和乐观锁。
+     *
+     * @param entityList 实体对象集合
+     */
+    @Transactional(rollbackFor = Exception.class)
+    default boolean upsertBatch(Collection<T> entityList) {
+        return upsertBatch(entityList, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * 批量 upsert，需要 mapper 注册 insertOrUpdateByBatch 注入方法
+     *
+     * @param entityList 实体对象集合
+     * @param batchSize  每条 upsert 语句包含的行数
+     */
+    boolean upsertBatch(Collection<T> entityList, int batchSize);
+
     /**
      * 根据 ID 删除
      *
@@ -15,6 +15,8 @@
  */
 package com.mobaijun.mybatis.plus.serevice;
 
+import com.mobaijun.mybatis.plus.batch.BatchInsertProgressListener;
+import com.mobaijun.mybatis.plus.batch.BatchInsertResult;
 import java.util.Collection;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -46,4 +48,32 @@ public interface ExtendService<T> extends BaseService<T> {
      * @return int 改动行
      */
     boolean saveBatchSomeColumn(Collection<T> list, int batchSize);
-}
\ No newline at end of file
+
+    /**
+     * 并行分批插入数据
+     * <p>
+     * 每个批次在独立的连接上作为一条语句提交，批次之间互不影响，失败批次记录在结果中，不保证整体原子性；
+     * 在外层事务中调用时无法并行，所有批次在调用线程中串行执行并加入该事务，
+     * 任一批次失败会直接抛出异常并由外层事务回滚，结果中不会出现失败批次。
+     *
+     * @param list        数据列表
+     * @param batchSize   批次插入数据量，会按数据库占位符上限自动调小
+     * @param parallelism 并行度，即最多同时占用的连接数
+     * @return 插入结果
+     */
+    default BatchInsertResult saveBatchSomeColumnParallel(Collection<T> list, int batchSize, int parallelism) {
+        return this.saveBatchSomeColumnParallel(list, batchSize, parallelism, null);
+    }
+
+    /**
+     * 并行分批插入数据
+     *
+     * @param list        数据列表
+     * @param batchSize   批次插入数据量，会按数据库占位符上限自动调小
+     * @param parallelism 并行度，即最多同时占用的连接数
+     * @param listener    进度监听，可为 null
+     * @return 插入结果
+     */
+    BatchInsertResult saveBatchSomeColumnParallel(Collection<T> list, int batchSize, int parallelism,
+                                                  BatchInsertProgressListener listener);
+}
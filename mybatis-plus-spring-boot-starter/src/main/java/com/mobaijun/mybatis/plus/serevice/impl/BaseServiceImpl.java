@@ -15,6 +15,7 @@
  */
 package com.mobaijun.mybatis.plus.serevice.impl;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.enums.SqlMethod;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.TableInfo;
@@ -22,21 +23,34 @@ import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.baomidou.mybatisplus.core.toolkit.Assert;
 import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
 import com.baomidou.mybatisplus.core.toolkit.Constants;
+import com.baomidou.mybatisplus.core.toolkit.ExceptionUtils;
 import com.baomidou.mybatisplus.core.toolkit.ReflectionKit;
+import com.baomidou.mybatisplus.core.toolkit.StringPool;
 import com.baomidou.mybatisplus.core.toolkit.StringUtils;
 import com.baomidou.mybatisplus.extension.toolkit.SqlHelper;
+import com.mobaijun.mybatis.plus.mapper.ExtendMapper;
+import com.mobaijun.mybatis.plus.methods.InsertOrUpdateByBatch;
+import com.mobaijun.mybatis.plus.methods.SelectCursor;
 import com.mobaijun.mybatis.plus.serevice.BaseService;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.session.SqlSession;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Description: [对 mybatis plus 提供的 IService 服务类做了精简，以防止在 mapper 外使用 Wrapper 构建 Sql]
@@ -52,9 +66,17 @@ public class BaseServiceImpl<M extends BaseMapper<T>, T> implements BaseService<
     @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
     protected M baseMapper;
 
+    @Autowired
+    private ObjectProvider<PlatformTransactionManager> transactionManagerProvider;
+
     protected Class<T> entityClass = currentModelClass();
     protected Class<M> mapperClass = currentMapperClass();
 
+    /**
+     * 流式查询是否已提示过退化为 ResultHandler
+     */
+    private volatile boolean streamFallbackWarned;
+
     @Override
     public Class<T> getEntityClass() {
         return this.entityClass;
@@ -126,6 +148,13 @@ public class BaseServiceImpl<M extends BaseMapper<T>, T> implements BaseService<
         return false;
     }
 
+    /**
+     * 批量修改插入
+     *
+     * @param entityList 实体对象集合
+     * @param batchSize  每次的数量
+     * @return boolean
+     */
     @SuppressWarnings("all")
     @Transactional(rollbackFor = Exception.class)
     @Override
@@ -146,6 +175,58 @@ public class BaseServiceImpl<M extends BaseMapper<T>, T> implements BaseService<
                 });
     }
 
+    /**
+     * 使用注入的 {@link InsertOrUpdateByBatch} 方法批量修改插入，主键为空的实体直接批量插入
+     * <p>
+     * 带主键的实体按批次使用单条多行 upsert 语句写入，以实体的全部字段（包括 null）覆盖已有记录，
+     * 注入方法配置的忽略字段除外；upsert 不经过更新填充和乐观锁，实体包含这两类字段时拒绝执行，
+     * 此时应使用 {@link #saveOrUpdateBatch(Collection, int)}。
+     *
+     * @param entityList 实体对象集合
+     * @param batchSize  每条 upsert 语句包含的行数
+     * @return boolean
+     */
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public boolean upsertBatch(Collection<T> entityList, int batchSize) {
+        if (CollectionUtils.isEmpty(entityList)) {
+            return false;
+        }
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(this.entityClass);
+        Assert.notNull(tableInfo, "error: can not execute. because can not find cache of TableInfo for entity!");
+        Assert.notEmpty(tableInfo.getKeyProperty(), "error: can not execute. because can not find column for id from entity!");
+        Assert.isFalse(tableInfo.isWithVersion() || tableInfo.isWithUpdateFill(),
+                "error: can not execute. because upsert skips @Version and update fill of entity %s!", this.entityClass.getName());
+        String upsertStatement = this.mapperClass.getName() + StringPool.DOT + InsertOrUpdateByBatch.DEFAULT_METHOD_NAME;
+        Assert.isTrue(tableInfo.getConfiguration().hasStatement(upsertStatement, false),
+                "error: can not execute. because mapper %s does not register %s!", this.mapperClass.getName(),
+                InsertOrUpdateByBatch.DEFAULT_METHOD_NAME);
+        List<T> inserts = new ArrayList<>();
+        List<T> upserts = new ArrayList<>();
+        for (T entity : entityList) {
+            Object idVal = tableInfo.getPropertyValue(entity, tableInfo.getKeyProperty());
+            (StringUtils.checkValNull(idVal) ? inserts : upserts).add(entity);
+        }
+        if (!inserts.isEmpty()) {
+            saveBatch(inserts, batchSize);
+        }
+        if (!upserts.isEmpty()) {
+            int size = Math.max(batchSize, 1);
+            List<List<T>> chunks = new ArrayList<>();
+            for (int i = 0; i < upserts.size(); i += size) {
+                chunks.add(upserts.subList(i, Math.min(i + size, upserts.size())));
+            }
+            executeBatch(chunks, chunks.size(), (sqlSession, chunk) -> {
+                MapperMethod.ParamMap<Object> param = new MapperMethod.ParamMap<>();
+                param.put("collection", chunk);
+                // 保留注入方法配置的忽略字段
+                param.put("ignore", true);
+                sqlSession.insert(upsertStatement, param);
+            });
+        }
+        return true;
+    }
+
     @Transactional(rollbackFor = Exception.class)
     @Override
     public boolean updateBatchById(Collection<T> entityList, int batchSize) {
@@ -300,4 +381,69 @@ public class BaseServiceImpl<M extends BaseMapper<T>, T> implements BaseService<
     public List<T> list() {
         return this.baseMapper.selectList(null);
     }
+
+    /**
+     * 流式查询，逐行回调，内存占用与结果行数无关
+     * <p>
+     * mapper 注入了 {@link SelectCursor} 时使用游标读取：不在事务中则开启只读事务，保证 PostgreSQL 等数据库在非自动提交下按
+     * fetchSize 分批读取，且游标在遍历期间不会被关闭；未注入或既不在事务中又没有唯一的事务管理器时，
+     * 退化为 selectList + ResultHandler：结果对象不会在 List 中累积，但语句使用默认 fetchSize，
+     * MySQL 驱动和非事务下的 PostgreSQL 驱动仍会把整个结果集读入内存，大结果集请注入 {@link SelectCursor} 并配置事务管理器。
+     *
+     * @param queryWrapper 查询条件
+     * @param consumer     逐行处理逻辑
+     */
+    protected void stream(Wrapper<T> queryWrapper, Consumer<T> consumer) {
+        String cursorStatement = this.mapperClass.getName() + StringPool.DOT + SelectCursor.DEFAULT_METHOD_NAME;
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(this.entityClass);
+        if (!(this.baseMapper instanceof ExtendMapper<T> extendMapper) || tableInfo == null
+                || !tableInfo.getConfiguration().hasStatement(cursorStatement, false)) {
+            this.streamWithResultHandler(queryWrapper, consumer, cursorStatement + " is not injected");
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            this.consumeCursor(extendMapper, queryWrapper, consumer);
+            return;
+        }
+        PlatformTransactionManager transactionManager = this.transactionManagerProvider.getIfUnique();
+        if (transactionManager == null) {
+            // 游标需要在事务中遍历，否则语句执行后连接即被释放
+            this.streamWithResultHandler(queryWrapper, consumer, "no unique PlatformTransactionManager for " + cursorStatement);
+            return;
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> this.consumeCursor(extendMapper, queryWrapper, consumer));
+    }
+
+    /**
+     * 使用 selectList + ResultHandler 逐行回调，驱动可能一次读取全部结果，首次退化时输出警告
+     *
+     * @param queryWrapper 查询条件
+     * @param consumer     逐行处理逻辑
+     * @param reason       退化原因
+     */
+    private void streamWithResultHandler(Wrapper<T> queryWrapper, Consumer<T> consumer, String reason) {
+        if (!this.streamFallbackWarned) {
+            this.streamFallbackWarned = true;
+            this.log.warn(reason + ", stream falls back to ResultHandler without fetchSize,"
+                    + " the driver may buffer the whole result set in memory");
+        }
+        this.baseMapper.selectList(queryWrapper, context -> consumer.accept(context.getResultObject()));
+    }
+
+    /**
+     * 遍历游标并在结束后关闭
+     *
+     * @param extendMapper 扩展 mapper
+     * @param queryWrapper 查询条件
+     * @param consumer     逐行处理逻辑
+     */
+    private void consumeCursor(ExtendMapper<T> extendMapper, Wrapper<T> queryWrapper, Consumer<T> consumer) {
+        try (Cursor<T> cursor = extendMapper.selectCursor(queryWrapper)) {
+            cursor.forEach(consumer);
+        } catch (IOException e) {
+            throw ExceptionUtils.mpe("close cursor error", e);
+        }
+    }
 }
@@ -15,12 +15,22 @@
  */
 package com.mobaijun.mybatis.plus.serevice.impl;
 
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
+import com.mobaijun.mybatis.plus.batch.BatchInsertProgressListener;
+import com.mobaijun.mybatis.plus.batch.BatchInsertResult;
+import com.mobaijun.mybatis.plus.batch.ParallelBatchInsertExecutor;
 import com.mobaijun.mybatis.plus.mapper.ExtendMapper;
 import com.mobaijun.mybatis.plus.serevice.ExtendService;
+import com.mobaijun.mybatis.plus.util.DbTypeUtil;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -32,6 +42,9 @@ import org.springframework.transaction.annotation.Transactional;
  */
 public class ExtendServiceImpl<M extends ExtendMapper<T>, T> extends BaseServiceImpl<M, T> implements ExtendService<T> {
 
+    @Autowired
+    private ObjectProvider<TaskDecorator> taskDecoratorProvider;
+
     /**
      * 批量插入数据
      *
@@ -45,7 +58,7 @@ public class ExtendServiceImpl<M extends ExtendMapper<T>, T> extends BaseService
         if (CollectionUtils.isEmpty(list)) {
             return false;
         }
-        final int batch = Math.min(list.size(), batchSize);
+        final int batch = Math.min(list.size(), this.chunkSize(batchSize));
         List<T> subList = new ArrayList<>(batch);
         for (T t : list) {
             if (subList.size() >= batch) {
@@ -60,4 +73,45 @@ public class ExtendServiceImpl<M extends ExtendMapper<T>, T> extends BaseService
         }
         return true;
     }
-}
\ No newline at end of file
+
+    /**
+     * 并行分批插入数据
+     * <p>
+     * 工作线程沿用调用线程的动态数据源，容器中存在唯一的 {@link TaskDecorator} 时用其透传其他线程变量；
+     * 调用线程处于事务中时退化为串行插入，任一批次失败直接抛出异常。
+     *
+     * @param list        数据列表
+     * @param batchSize   批次插入数据量，会按数据库占位符上限自动调小
+     * @param parallelism 并行度，即最多同时占用的连接数
+     * @param listener    进度监听，可为 null
+     * @return 插入结果
+     */
+    @Override
+    public BatchInsertResult saveBatchSomeColumnParallel(Collection<T> list, int batchSize, int parallelism,
+                                                         BatchInsertProgressListener listener) {
+        if (CollectionUtils.isEmpty(list)) {
+            return new BatchInsertResult(0, 0, batchSize, 0, Collections.emptyList());
+        }
+        List<T> rows = list instanceof List<T> l ? l : new ArrayList<>(list);
+        return ParallelBatchInsertExecutor.execute(rows, this.chunkSize(batchSize), parallelism,
+                chunk -> this.baseMapper.insertBatchSomeColumn(new ArrayList<>(chunk)), listener,
+                this.taskDecoratorProvider.getIfUnique());
+    }
+
+    /**
+     * 按每行占位符数量限制批次大小，避免单条 insert 超出驱动的占位符上限
+     *
+     * @param batchSize 期望的批次大小
+     * @return 批次大小
+     */
+    protected int chunkSize(int batchSize) {
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(getEntityClass());
+        if (tableInfo == null) {
+            return batchSize;
+        }
+        // 主键 + 全部字段，是实际插入列数的上限
+        int columnsPerRow = tableInfo.getFieldList().size() + 1;
+        int maxPlaceholders = ParallelBatchInsertExecutor.maxPlaceholders(DbTypeUtil.getDbType(tableInfo.getConfiguration()));
+        return ParallelBatchInsertExecutor.chunkSize(batchSize, columnsPerRow, maxPlaceholders);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2022 www.mobaijun.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.mybatis.plus.toolkit;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.mobaijun.base.model.CountStrategy;
+import java.io.Serial;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Software：IntelliJ IDEA 2021.3.2
+ * ClassName: CountStrategyPage
+ * 类描述：指定总数统计策略的分页对象，需要注册 CountStrategyPaginationInnerInterceptor 才会生效
+ *
+ * @author MoBaiJun 2022/5/7 16:21
+ */
+@Getter
+@Setter
+public class CountStrategyPage<T> extends Page<T> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 总数统计策略
+     */
+    private CountStrategy countStrategy;
+
+    /**
+     * {@link CountStrategy#CACHED} 的缓存秒数，小于等于 0 时使用拦截器的默认值
+     */
+    private long countCacheSeconds;
+
+    public CountStrategyPage(long current, long size, CountStrategy countStrategy) {
+        super(current, size);
+        this.countStrategy = countStrategy;
+    }
+}
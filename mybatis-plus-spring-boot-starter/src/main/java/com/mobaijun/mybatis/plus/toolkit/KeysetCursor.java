@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2022 www.mobaijun.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.mybatis.plus.toolkit;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Software：IntelliJ IDEA 2021.3.2
+ * ClassName: KeysetCursor
+ * 类描述：游标分页的游标编解码，游标由上一页最后一行的排序列值组成，每个值带类型标记，解码后类型与实体字段一致
+ *
+ * @author MoBaiJun 2022/5/7 16:21
+ */
+final class KeysetCursor {
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * 编码游标
+     *
+     * @param values 排序列值
+     * @return url 安全的 base64 字符串
+     */
+    static String encode(List<Object> values) {
+        StringBuilder cursor = new StringBuilder();
+        for (Object value : values) {
+            String text;
+            char type;
+            if (value == null) {
+                throw new IllegalArgumentException("游标分页的排序列值不能为 null");
+            } else if (value instanceof Long) {
+                type = 'L';
+                text = value.toString();
+            } else if (value instanceof Integer) {
+                type = 'I';
+                text = value.toString();
+            } else if (value instanceof Short) {
+                type = 'H';
+                text = value.toString();
+            } else if (value instanceof BigDecimal decimal) {
+                type = 'D';
+                text = decimal.toPlainString();
+            } else if (value instanceof BigInteger) {
+                type = 'N';
+                text = value.toString();
+            } else if (value instanceof Double) {
+                type = 'F';
+                text = value.toString();
+            } else if (value instanceof Boolean) {
+                type = 'B';
+                text = value.toString();
+            } else if (value instanceof LocalDateTime) {
+                type = 'T';
+                text = value.toString();
+            } else if (value instanceof LocalDate) {
+                type = 'd';
+                text = value.toString();
+            } else if (value instanceof LocalTime) {
+                type = 't';
+                text = value.toString();
+            } else if (value instanceof Instant) {
+                type = 'i';
+                text = value.toString();
+            } else if (value instanceof Date date) {
+                type = 'U';
+                text = String.valueOf(date.getTime());
+            } else if (value instanceof CharSequence) {
+                type = 'S';
+                text = value.toString();
+            } else {
+                throw new IllegalArgumentException("不支持的游标分页排序列类型: " + value.getClass().getName());
+            }
+            cursor.append(type).append(text.length()).append(':').append(text);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param cursor 游标
+     * @return 排序列值
+     */
+    static List<Object> decode(String cursor) {
+        String text;
+        try {
+            text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("非法的分页游标", e);
+        }
+        List<Object> values = new ArrayList<>();
+        int index = 0;
+        try {
+            while (index < text.length()) {
+                char type = text.charAt(index++);
+                int colon = text.indexOf(':', index);
+                int length = Integer.parseInt(text.substring(index, colon));
+                String value = text.substring(colon + 1, colon + 1 + length);
+                index = colon + 1 + length;
+                values.add(switch (type) {
+                    case 'L' -> Long.valueOf(value);
+                    case 'I' -> Integer.valueOf(value);
+                    case 'H' -> Short.valueOf(value);
+                    case 'D' -> new BigDecimal(value);
+                    case 'N' -> new BigInteger(value);
+                    case 'F' -> Double.valueOf(value);
+                    case 'B' -> Boolean.valueOf(value);
+                    case 'T' -> LocalDateTime.parse(value);
+                    case 'd' -> LocalDate.parse(value);
+                    case 't' -> LocalTime.parse(value);
+                    case 'i' -> Instant.parse(value);
+                    case 'U' -> new Date(Long.parseLong(value));
+                    case 'S' -> value;
+                    default -> throw new IllegalArgumentException("非法的分页游标");
+                });
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("非法的分页游标", e);
+        }
+        return values;
+    }
+}
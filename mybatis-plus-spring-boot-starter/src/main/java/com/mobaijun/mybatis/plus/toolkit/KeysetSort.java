@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2022 www.mobaijun.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.mybatis.plus.toolkit;
+
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Software：IntelliJ IDEA 2021.3.2
+ * ClassName: KeysetSort
+ * 类描述：游标分页的排序列，多个排序列组成复合游标，最后一列应为唯一列（通常是主键）以保证顺序稳定
+ *
+ * @author MoBaiJun 2022/5/7 16:21
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class KeysetSort<T> {
+
+    /**
+     * 排序列，列值不能为 null
+     */
+    private final SFunction<T, ?> column;
+
+    /**
+     * 是否正序
+     */
+    private final boolean asc;
+
+    /**
+     * 正序排序列
+     *
+     * @param column 排序列
+     * @param <T>    实体类型
+     * @return KeysetSort
+     */
+    public static <T> KeysetSort<T> asc(SFunction<T, ?> column) {
+        return new KeysetSort<>(column, true);
+    }
+
+    /**
+     * 倒序排序列
+     *
+     * @param column 排序列
+     * @param <T>    实体类型
+     * @return KeysetSort
+     */
+    public static <T> KeysetSort<T> desc(SFunction<T, ?> column) {
+        return new KeysetSort<>(column, false);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2022 www.mobaijun.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.mybatis.plus.toolkit;
+
+import com.mobaijun.base.model.CountStrategy;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Software：IntelliJ IDEA 2021.3.2
+ * AnnotationName: PageCount
+ * 注解描述：注解在 mapper 的分页查询方法上，指定总数统计策略；分页对象自身指定的策略优先
+ *
+ * @author MoBaiJun 2022/5/7 16:21
+ */
+@Target({ ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface PageCount {
+
+    /**
+     * 总数统计策略
+     * @return CountStrategy
+     */
+    CountStrategy value();
+
+    /**
+     * {@link CountStrategy#CACHED} 的缓存秒数，小于等于 0 时使用拦截器的默认值
+     * @return long
+     */
+    long cacheSeconds() default 0;
+}
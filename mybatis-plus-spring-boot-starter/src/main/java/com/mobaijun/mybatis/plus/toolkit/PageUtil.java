@@ -15,12 +15,23 @@
  */
 package com.mobaijun.mybatis.plus.toolkit;
 
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.core.metadata.OrderItem;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.baomidou.mybatisplus.core.toolkit.Assert;
+import com.baomidou.mybatisplus.core.toolkit.LambdaUtils;
+import com.baomidou.mybatisplus.core.toolkit.StringUtils;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.mobaijun.base.model.PageParam;
-
+import com.mobaijun.mybatis.plus.query.LambdaQueryWrapper;
+import com.mobaijun.mybatis.plus.util.DbTypeUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import org.apache.ibatis.reflection.property.PropertyNamer;
 
 /**
  * Software：IntelliJ IDEA 2021.3.2
@@ -42,7 +53,8 @@ public class PageUtil {
      * @return IPage
      */
     public static <V> IPage<V> prodPage(PageParam pageParam) {
-        Page<V> page = new Page<>(pageParam.getCurrent(), pageParam.getSize());
+        Page<V> page = pageParam.getCountStrategy() == null ? new Page<>(pageParam.getCurrent(), pageParam.getSize())
+                : new CountStrategyPage<>(pageParam.getCurrent(), pageParam.getSize(), pageParam.getCountStrategy());
         List<PageParam.Sort> sorts = pageParam.getSorts();
         sorts.forEach(sort -> {
             OrderItem orderItem = sort.isAsc() ? OrderItem.asc(sort.getField()) : OrderItem.desc(sort.getField());
@@ -50,4 +62,117 @@ public class PageUtil {
         });
         return page;
     }
-}
\ No newline at end of file
+
+    /**
+     * 游标分页（keyset / seek 分页）
+     *
+     * @param mapper  mapper
+     * @param wrapper 查询条件，排序、分组以及 last 会被忽略
+     * @param size    每页条数
+     * @param cursor  上一页返回的游标，查询第一页时为空
+     * @param sorts   排序列
+     * @param <T>     实体类型
+     * @return KeysetPage
+     * @see #keysetPage(BaseMapper, LambdaQueryWrapper, long, String, List)
+     */
+    @SafeVarargs
+    public static <T> KeysetPage<T> keysetPage(BaseMapper<T> mapper, LambdaQueryWrapper<T> wrapper, long size,
+                                               String cursor, KeysetSort<T>... sorts) {
+        return keysetPage(mapper, wrapper, size, cursor, Arrays.asList(sorts));
+    }
+
+    /**
+     * 游标分页（keyset / seek 分页）
+     * <p>
+     * 以上一页最后一行的排序列值作为条件定位下一页，查询耗时与页码无关，且不执行 count 查询。
+     * 多个排序列按顺序展开为 {@code (a > ?) OR (a = ? AND b < ?) ...}，支持各列不同的排序方向；
+     * 最后一个排序列应为唯一列（通常是主键），排序列值不能为 null。
+     * <p>
+     * 查询在传入条件的副本上进行，不会修改 {@code wrapper}；条数限制按数据库方言直接拼接，不依赖分页插件。
+     *
+     * @param mapper  mapper
+     * @param wrapper 查询条件，排序、分组以及 last 会被忽略
+     * @param size    每页条数
+     * @param cursor  上一页返回的游标，查询第一页时为空
+     * @param sorts   排序列
+     * @param <T>     实体类型
+     * @return KeysetPage
+     */
+    public static <T> KeysetPage<T> keysetPage(BaseMapper<T> mapper, LambdaQueryWrapper<T> wrapper, long size,
+                                               String cursor, List<KeysetSort<T>> sorts) {
+        Assert.notEmpty(sorts, "游标分页至少需要一个排序列");
+        Assert.isTrue(size > 0, "每页条数必须大于 0");
+        LambdaQueryWrapper<T> query = wrapper == null ? new LambdaQueryWrapper<>() : wrapper.copyWhere();
+        if (StringUtils.isNotBlank(cursor)) {
+            List<Object> values = KeysetCursor.decode(cursor);
+            Assert.isTrue(values.size() == sorts.size(), "分页游标与排序列不匹配");
+            query.and(seek -> {
+                for (int i = 0; i < sorts.size(); i++) {
+                    int current = i;
+                    if (current > 0) {
+                        seek.or();
+                    }
+                    seek.nested(nested -> {
+                        for (int j = 0; j < current; j++) {
+                            nested.eq(sorts.get(j).getColumn(), values.get(j));
+                        }
+                        KeysetSort<T> sort = sorts.get(current);
+                        if (sort.isAsc()) {
+                            nested.gt(sort.getColumn(), values.get(current));
+                        } else {
+                            nested.lt(sort.getColumn(), values.get(current));
+                        }
+                    });
+                }
+            });
+        }
+        sorts.forEach(sort -> query.orderBy(true, sort.isAsc(), sort.getColumn()));
+
+        // 多查一条用于判断是否有下一页，不执行 count
+        query.last(limitSql(sorts.get(0), size + 1));
+        List<T> records = mapper.selectList(query);
+        boolean hasNext = records.size() > size;
+        if (hasNext) {
+            records = new ArrayList<>(records.subList(0, (int) size));
+        }
+        String nextCursor = hasNext ? KeysetCursor.encode(sortValues(records.get(records.size() - 1), sorts)) : null;
+        return new KeysetPage<>(records, nextCursor, hasNext);
+    }
+
+    /**
+     * 按排序列所属实体绑定数据源的数据库类型生成条数限制语句
+     *
+     * @param sort  排序列
+     * @param limit 条数
+     * @param <T>   实体类型
+     * @return 条数限制语句
+     */
+    private static <T> String limitSql(KeysetSort<T> sort, long limit) {
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(LambdaUtils.extract(sort.getColumn()).getInstantiatedClass());
+        DbType dbType = tableInfo == null ? DbType.OTHER : DbTypeUtil.getDbType(tableInfo.getConfiguration());
+        return switch (dbType) {
+            case ORACLE, ORACLE_12C, DB2, DERBY -> "FETCH FIRST " + limit + " ROWS ONLY";
+            case SQL_SERVER -> "OFFSET 0 ROWS FETCH NEXT " + limit + " ROWS ONLY";
+            default -> "LIMIT " + limit;
+        };
+    }
+
+    /**
+     * 读取实体的排序列值
+     *
+     * @param entity 实体
+     * @param sorts  排序列
+     * @param <T>    实体类型
+     * @return 排序列值
+     */
+    private static <T> List<Object> sortValues(T entity, List<KeysetSort<T>> sorts) {
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(entity.getClass());
+        Assert.notNull(tableInfo, "can not find TableInfo for entity: %s", entity.getClass().getName());
+        List<Object> values = new ArrayList<>(sorts.size());
+        for (KeysetSort<T> sort : sorts) {
+            String property = PropertyNamer.methodToProperty(LambdaUtils.extract(sort.getColumn()).getImplMethodName());
+            values.add(tableInfo.getPropertyValue(entity, property));
+        }
+        return values;
+    }
+}
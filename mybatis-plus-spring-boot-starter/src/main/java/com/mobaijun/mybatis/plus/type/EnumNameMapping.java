@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2022 www.mobaijun.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.mybatis.plus.type;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Software：IntelliJ IDEA 2021.3.2
+ * AnnotationName: EnumNameMapping
+ * 注解描述：注解在枚举类上，配置 {@link EnumNameTypeHandler} 的匹配方式
+ *
+ * @author MoBaiJun 2022/5/7 16:11
+ */
+@Target({ ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface EnumNameMapping {
+
+    /**
+     * 是否忽略大小写匹配
+     * @return boolean
+     */
+    boolean ignoreCase() default false;
+
+    /**
+     * 匹配不到枚举时的处理策略
+     * @return UnknownEnumPolicy
+     */
+    UnknownEnumPolicy unknown() default UnknownEnumPolicy.NULL;
+
+    /**
+     * 策略为 {@link UnknownEnumPolicy#DEFAULT} 时返回的枚举 name()
+     * @return String
+     */
+    String defaultName() default "";
+}
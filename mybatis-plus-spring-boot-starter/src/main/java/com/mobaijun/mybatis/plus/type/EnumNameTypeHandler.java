@@ -16,18 +16,24 @@
 package com.mobaijun.mybatis.plus.type;
 
 import com.baomidou.mybatisplus.annotation.IEnum;
-import org.apache.ibatis.type.BaseTypeHandler;
-import org.apache.ibatis.type.JdbcType;
-
 import java.sql.CallableStatement;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
 
 /**
  * Software：IntelliJ IDEA 2021.3.2
  * ClassName: EnumNameTypeHandler
  * 类描述：普通枚举类型处理. 根据 name() 返回值判断枚举值
+ * <p>
+ * 值到枚举的映射在构造时一次性建立，读取时为一次哈希查找；可通过 {@link EnumNameMapping} 开启忽略大小写、
+ * 配置未知值策略，通过 {@link EnumAlias} 为枚举常量增加别名。
  *
  * @author MoBaiJun 2022/5/7 16:11
  */
@@ -35,11 +41,88 @@ public class EnumNameTypeHandler<E extends Enum<E>> extends BaseTypeHandler<E> {
 
     private final Class<E> type;
 
+    /**
+     * 是否忽略大小写匹配
+     */
+    private final boolean ignoreCase;
+
+    /**
+     * 匹配不到枚举时的处理策略
+     */
+    private final UnknownEnumPolicy unknownPolicy;
+
+    /**
+     * 值 -> 枚举，忽略大小写时 key 为大写
+     */
+    private final Map<String, E> constants;
+
+    /**
+     * 值为 null 的枚举
+     */
+    private final E nullConstant;
+
+    /**
+     * 匹配不到时返回的默认枚举
+     */
+    private final E defaultConstant;
+
     public EnumNameTypeHandler(Class<E> type) {
+        this(type, type == null ? null : type.getAnnotation(EnumNameMapping.class));
+    }
+
+    private EnumNameTypeHandler(Class<E> type, EnumNameMapping mapping) {
+        this(type, mapping != null && mapping.ignoreCase(),
+                mapping == null ? UnknownEnumPolicy.NULL : mapping.unknown(),
+                mapping == null ? null : mapping.defaultName());
+    }
+
+    /**
+     * 手动注册时指定匹配方式
+     *
+     * @param type          枚举类型
+     * @param ignoreCase    是否忽略大小写匹配
+     * @param unknownPolicy 匹配不到枚举时的处理策略
+     * @param defaultName   策略为 DEFAULT 时返回的枚举 name()
+     */
+    public EnumNameTypeHandler(Class<E> type, boolean ignoreCase, UnknownEnumPolicy unknownPolicy, String defaultName) {
         if (type == null) {
             throw new IllegalArgumentException("Type argument cannot be null");
         }
         this.type = type;
+        this.ignoreCase = ignoreCase;
+        this.unknownPolicy = unknownPolicy == null ? UnknownEnumPolicy.NULL : unknownPolicy;
+        Map<String, E> map = new HashMap<>();
+        E nullValue = null;
+        E defaultValue = null;
+        E[] enumConstants = type.getEnumConstants();
+        // 别名优先级低于真实值，先放别名再由真实值覆盖
+        for (E e : enumConstants) {
+            EnumAlias alias = getAlias(e);
+            if (alias != null) {
+                for (String name : alias.value()) {
+                    map.putIfAbsent(key(name), e);
+                }
+            }
+        }
+        // 倒序放入，值重复时与原先的线性查找一样取第一个
+        for (int i = enumConstants.length - 1; i >= 0; i--) {
+            E e = enumConstants[i];
+            Object ev = getValByEnum(e);
+            if (ev == null) {
+                nullValue = e;
+            } else {
+                map.put(key(ev.toString()), e);
+            }
+            if (e.name().equals(defaultName)) {
+                defaultValue = e;
+            }
+        }
+        if (this.unknownPolicy == UnknownEnumPolicy.DEFAULT && defaultValue == null) {
+            throw new IllegalArgumentException("Default enum constant '" + defaultName + "' not found in " + type.getName());
+        }
+        this.constants = Collections.unmodifiableMap(map);
+        this.nullConstant = nullValue;
+        this.defaultConstant = defaultValue;
     }
 
     @Override
@@ -87,19 +170,29 @@ public class EnumNameTypeHandler<E extends Enum<E>> extends BaseTypeHandler<E> {
      * 根据枚举 name() 获取枚举
      */
     E getEnumByName(String val) {
-        for (E e : type.getEnumConstants()) {
-            Object ev = getValByEnum(e);
-            if (ev == null) {
-                if (val == null) {
-                    return e;
-                }
-                continue;
-            }
+        if (val == null) {
+            return this.nullConstant;
+        }
+        E e = this.constants.get(key(val));
+        if (e != null) {
+            return e;
+        }
+        return switch (this.unknownPolicy) {
+            case EXCEPTION -> throw new IllegalArgumentException("No enum constant " + this.type.getName() + " for value '" + val + "'");
+            case DEFAULT -> this.defaultConstant;
+            default -> null;
+        };
+    }
 
-            if (val.equals(ev.toString())) {
-                return e;
-            }
+    private String key(String val) {
+        return this.ignoreCase ? val.toUpperCase(Locale.ROOT) : val;
+    }
+
+    private EnumAlias getAlias(E e) {
+        try {
+            return this.type.getField(e.name()).getAnnotation(EnumAlias.class);
+        } catch (NoSuchFieldException ex) {
+            return null;
         }
-        return null;
     }
-}
\ No newline at end of file
+}
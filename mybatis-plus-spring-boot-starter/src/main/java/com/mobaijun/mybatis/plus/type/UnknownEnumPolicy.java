@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2022 www.mobaijun.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.mybatis.plus.type;
+
+/**
+ * Software：IntelliJ IDEA 2021.3.2
+ * EnumName: UnknownEnumPolicy
+ * 枚举描述：数据库中的值匹配不到任何枚举时的处理策略
+ *
+ * @author MoBaiJun 2022/5/7 16:11
+ */
+public enum UnknownEnumPolicy {
+
+    /**
+     * 返回 null
+     */
+    NULL,
+
+    /**
+     * 抛出异常
+     */
+    EXCEPTION,
+
+    /**
+     * 返回 {@link EnumNameMapping#defaultName()} 指定的枚举
+     */
+    DEFAULT
+}
@@ -0,0 +1,63 @@
+package com.mobaijun.mybatis.plus.util;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.extension.toolkit.JdbcUtils;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Description: [数据库类型工具类]
+ * <p>
+ * 根据 MyBatis {@link Configuration} 绑定的数据源推断数据库类型，结果按数据源缓存，
+ * 供注入方法在启动阶段选择对应的 SQL 方言。
+ * </p>
+ * Author: [mobaijun]
+ * Date: [2026/01/06]
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class DbTypeUtil {
+
+    /**
+     * 数据源 -> 数据库类型
+     */
+    private static final Map<DataSource, DbType> DB_TYPE_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 获取 MyBatis 配置绑定数据源的数据库类型
+     *
+     * @param configuration MyBatis 配置
+     * @return 数据库类型，无法识别时返回 {@link DbType#OTHER}
+     */
+    public static DbType getDbType(Configuration configuration) {
+        Environment environment = configuration == null ? null : configuration.getEnvironment();
+        if (environment == null || environment.getDataSource() == null) {
+            return DbType.OTHER;
+        }
+        DbType dbType = DB_TYPE_CACHE.computeIfAbsent(environment.getDataSource(), DbTypeUtil::resolve);
+        return dbType == null ? DbType.OTHER : dbType;
+    }
+
+    /**
+     * 通过连接元数据中的 url 推断数据库类型，获取连接失败时不缓存
+     *
+     * @param dataSource 数据源
+     * @return 数据库类型
+     */
+    private static DbType resolve(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return JdbcUtils.getDbType(connection.getMetaData().getURL());
+        } catch (SQLException e) {
+            log.warn("无法获取数据源的数据库类型: {}", e.getMessage());
+            return null;
+        }
+    }
+}
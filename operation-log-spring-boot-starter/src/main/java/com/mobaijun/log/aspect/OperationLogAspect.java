@@ -16,9 +16,9 @@
 package com.mobaijun.log.aspect;
 
 import com.mobaijun.log.annotation.OperationLog;
+import com.mobaijun.log.async.AsyncOperationLogDispatcher;
 import com.mobaijun.log.handler.OperationLogHandler;
 import java.lang.reflect.Method;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -35,7 +35,6 @@ import org.springframework.util.Assert;
  */
 @Slf4j
 @Aspect
-@RequiredArgsConstructor
 public class OperationLogAspect<T> {
 
     /**
@@ -43,6 +42,20 @@ public class OperationLogAspect<T> {
      */
     private final OperationLogHandler<T> operationLogHandler;
 
+    /**
+     * 异步分发器，为 null 时在请求线程中处理日志
+     */
+    private final AsyncOperationLogDispatcher<T> dispatcher;
+
+    public OperationLogAspect(OperationLogHandler<T> operationLogHandler) {
+        this(operationLogHandler, null);
+    }
+
+    public OperationLogAspect(OperationLogHandler<T> operationLogHandler, AsyncOperationLogDispatcher<T> dispatcher) {
+        this.operationLogHandler = operationLogHandler;
+        this.dispatcher = dispatcher;
+    }
+
     /**
      * 操作日志切面
      *
@@ -97,10 +110,14 @@ public class OperationLogAspect<T> {
         try {
             // 结束时间
             long executionTime = System.currentTimeMillis() - startTime;
-            // 记录执行信息
+            // 记录执行信息，依赖切点和请求上下文，必须在当前线程完成
             this.operationLogHandler.recordExecutionInfo(operationLog, joinPoint, executionTime, throwable, isSaveResult, result);
-            // 处理操作日志
-            this.operationLogHandler.handleLog(operationLog);
+            // 处理操作日志，开启异步时只入队
+            if (this.dispatcher != null) {
+                this.dispatcher.publish(operationLog);
+            } else {
+                this.operationLogHandler.handleLog(operationLog);
+            }
         } catch (Exception e) {
             log.error("记录操作日志异常：{}", operationLog);
         }
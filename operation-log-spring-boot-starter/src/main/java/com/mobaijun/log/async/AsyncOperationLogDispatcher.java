@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.log.async;
+
+import com.mobaijun.log.enums.LogOverflowPolicy;
+import com.mobaijun.log.handler.OperationLogBatchException;
+import com.mobaijun.log.handler.OperationLogHandler;
+import com.mobaijun.log.properties.OperationLogProperties;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Description: [操作日志异步分发器]
+ * <p>
+ * 切面在请求线程中完成日志记录后只负责入队，后台线程从有界队列中批量取出日志并调用
+ * {@link OperationLogHandler#handleLogs(List)}，日志处理不再计入接口耗时。
+ * 队列已满时按 {@link LogOverflowPolicy} 阻塞、丢弃或采样。
+ * Author: [mobaijun]
+ * Date: [2024/8/15 11:07]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@Slf4j
+public class AsyncOperationLogDispatcher<T> {
+
+    /**
+     * 后台线程等待日志的最长时间，毫秒
+     */
+    private static final long POLL_TIMEOUT_MILLIS = 200;
+
+    /**
+     * 关闭时等待后台线程处理剩余日志的最长时间，毫秒
+     */
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * 操作日志处理器
+     */
+    private final OperationLogHandler<T> operationLogHandler;
+
+    /**
+     * 异步处理配置
+     */
+    private final OperationLogProperties.Async options;
+
+    /**
+     * 待处理日志队列
+     */
+    private final BlockingQueue<T> queue;
+
+    /**
+     * 开始采样的队列长度
+     */
+    private final int sampleThresholdSize;
+
+    /**
+     * 后台处理线程
+     */
+    private final List<Thread> workers = new ArrayList<>();
+
+    /**
+     * 入队日志数
+     */
+    private final AtomicLong publishedCount = new AtomicLong();
+
+    /**
+     * 丢弃日志数
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * 处理成功日志数
+     */
+    private final AtomicLong handledCount = new AtomicLong();
+
+    /**
+     * 处理失败日志数
+     */
+    private final AtomicLong failedCount = new AtomicLong();
+
+    /**
+     * 采样计数
+     */
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    /**
+     * 是否运行中
+     */
+    private volatile boolean running;
+
+    public AsyncOperationLogDispatcher(OperationLogHandler<T> operationLogHandler,
+                                       OperationLogProperties.Async options) {
+        this.operationLogHandler = operationLogHandler;
+        this.options = options;
+        this.queue = new ArrayBlockingQueue<>(Math.max(options.getBufferSize(), 1));
+        this.sampleThresholdSize = (int) (Math.max(options.getBufferSize(), 1)
+                * Math.min(Math.max(options.getSampleThreshold(), 0), 1));
+    }
+
+    /**
+     * 启动后台处理线程
+     */
+    public synchronized void start() {
+        if (this.running) {
+            return;
+        }
+        this.running = true;
+        for (int i = 0; i < Math.max(this.options.getWorkers(), 1); i++) {
+            Thread worker = new Thread(this::work, "operation-log-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            this.workers.add(worker);
+        }
+    }
+
+    /**
+     * 停止后台处理线程，等待队列中剩余的日志处理完成
+     */
+    public synchronized void stop() {
+        this.running = false;
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS;
+        for (Thread worker : this.workers) {
+            try {
+                worker.join(Math.max(deadline - System.currentTimeMillis(), 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        this.workers.clear();
+        if (!this.queue.isEmpty()) {
+            log.warn("操作日志异步队列关闭时仍有 {} 条日志未处理", this.queue.size());
+        }
+    }
+
+    /**
+     * 日志入队
+     *
+     * @param operationLog 操作日志
+     * @return 入队成功返回 true，被丢弃返回 false
+     */
+    public boolean publish(T operationLog) {
+        if (!this.running) {
+            // 未启动或已关闭时在当前线程处理，避免日志丢失
+            this.operationLogHandler.handleLog(operationLog);
+            return true;
+        }
+        boolean accepted = switch (this.options.getOverflowPolicy()) {
+            case BLOCK -> offer(operationLog);
+            case SAMPLE -> sample() && this.queue.offer(operationLog);
+            default -> this.queue.offer(operationLog);
+        };
+        if (accepted) {
+            this.publishedCount.incrementAndGet();
+        } else {
+            long dropped = this.droppedCount.incrementAndGet();
+            if (dropped == 1 || dropped % 1000 == 0) {
+                log.warn("操作日志异步队列已满，累计丢弃 {} 条日志", dropped);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * BLOCK 策略下等待队列空间
+     *
+     * @param operationLog 操作日志
+     * @return 入队成功返回 true
+     */
+    private boolean offer(T operationLog) {
+        try {
+            return this.queue.offer(operationLog, this.options.getBlockTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * SAMPLE 策略下判断当前日志是否保留
+     *
+     * @return 保留返回 true
+     */
+    private boolean sample() {
+        if (this.queue.size() < this.sampleThresholdSize) {
+            return true;
+        }
+        return this.sampleCounter.getAndIncrement() % Math.max(this.options.getSampleRate(), 1) == 0;
+    }
+
+    /**
+     * 后台线程批量处理日志，关闭后处理完剩余日志再退出
+     */
+    private void work() {
+        int batchSize = Math.max(this.options.getBatchSize(), 1);
+        List<T> batch = new ArrayList<>(batchSize);
+        while (this.running || !this.queue.isEmpty()) {
+            T first;
+            try {
+                first = this.queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            this.queue.drainTo(batch, batchSize - 1);
+            try {
+                this.operationLogHandler.handleLogs(batch);
+                this.handledCount.addAndGet(batch.size());
+            } catch (OperationLogBatchException e) {
+                // 失败的日志已逐条记录，其余日志已处理
+                this.handledCount.addAndGet(batch.size() - e.getFailedCount());
+                this.failedCount.addAndGet(e.getFailedCount());
+            } catch (Exception e) {
+                this.failedCount.addAndGet(batch.size());
+                log.error("异步处理操作日志异常，条数：{}", batch.size(), e);
+            }
+            batch.clear();
+        }
+    }
+
+    public int getQueueDepth() {
+        return this.queue.size();
+    }
+
+    public int getRemainingCapacity() {
+        return this.queue.remainingCapacity();
+    }
+
+    public long getPublishedCount() {
+        return this.publishedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    public long getHandledCount() {
+        return this.handledCount.get();
+    }
+
+    public long getFailedCount() {
+        return this.failedCount.get();
+    }
+}
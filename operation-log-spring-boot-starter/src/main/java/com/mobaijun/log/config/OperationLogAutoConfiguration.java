@@ -16,12 +16,21 @@
 package com.mobaijun.log.config;
 
 import com.mobaijun.log.aspect.OperationLogAspect;
+import com.mobaijun.log.async.AsyncOperationLogDispatcher;
+import com.mobaijun.log.handler.AbstractOperationLogHandler;
 import com.mobaijun.log.handler.OperationLogHandler;
 import com.mobaijun.log.properties.OperationLogProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 
 /**
  * Description: []
@@ -41,7 +50,68 @@ public class OperationLogAutoConfiguration {
      */
     @Bean
     @ConditionalOnBean(OperationLogHandler.class)
-    public <T> OperationLogAspect<T> operationLogAspect(OperationLogHandler<T> operationLogHandler) {
-        return new OperationLogAspect<>(operationLogHandler);
+    public <T> OperationLogAspect<T> operationLogAspect(OperationLogHandler<T> operationLogHandler,
+                                                        ObjectProvider<AsyncOperationLogDispatcher<T>> dispatcher) {
+        return new OperationLogAspect<>(operationLogHandler, dispatcher.getIfAvailable());
+    }
+
+    /**
+     * 将 {@code log.operation.max-params-bytes} 应用到操作日志处理器
+     *
+     * @param propertiesProvider 操作日志配置
+     * @return BeanPostProcessor
+     */
+    @Bean
+    public static BeanPostProcessor operationLogHandlerPostProcessor(ObjectProvider<OperationLogProperties> propertiesProvider) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractOperationLogHandler<?> handler) {
+                    OperationLogProperties properties = propertiesProvider.getIfAvailable();
+                    if (properties != null && properties.getMaxParamsBytes() != null) {
+                        handler.setMaxParamsBytes(properties.getMaxParamsBytes());
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * 注册操作日志异步分发器
+     *
+     * @return AsyncOperationLogDispatcher
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnBean(OperationLogHandler.class)
+    @ConditionalOnProperty(prefix = OperationLogProperties.PREFIX, name = "async.enabled", havingValue = "true")
+    public <T> AsyncOperationLogDispatcher<T> asyncOperationLogDispatcher(OperationLogHandler<T> operationLogHandler,
+                                                                          OperationLogProperties properties) {
+        return new AsyncOperationLogDispatcher<>(operationLogHandler, properties.getAsync());
+    }
+
+    /**
+     * 操作日志异步队列指标，引入 micrometer 时生效
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    static class OperationLogMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnProperty(prefix = OperationLogProperties.PREFIX, name = "async.enabled", havingValue = "true")
+        public MeterBinder operationLogMeterBinder(ObjectProvider<AsyncOperationLogDispatcher<?>> dispatcherProvider) {
+            return registry -> dispatcherProvider.ifAvailable(dispatcher -> {
+                Gauge.builder("operation.log.queue.depth", dispatcher, AsyncOperationLogDispatcher::getQueueDepth)
+                        .description("待处理日志数").register(registry);
+                FunctionCounter.builder("operation.log.published", dispatcher, AsyncOperationLogDispatcher::getPublishedCount)
+                        .description("入队日志数").register(registry);
+                FunctionCounter.builder("operation.log.dropped", dispatcher, AsyncOperationLogDispatcher::getDroppedCount)
+                        .description("丢弃日志数").register(registry);
+                FunctionCounter.builder("operation.log.handled", dispatcher, AsyncOperationLogDispatcher::getHandledCount)
+                        .description("处理成功日志数").register(registry);
+                FunctionCounter.builder("operation.log.failed", dispatcher, AsyncOperationLogDispatcher::getFailedCount)
+                        .description("处理失败日志数").register(registry);
+            });
+        }
     }
 }
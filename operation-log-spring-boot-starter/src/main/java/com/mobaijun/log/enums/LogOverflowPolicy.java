@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.log.enums;
+
+/**
+ * Description: [异步日志队列已满时的处理策略]
+ * Author: [mobaijun]
+ * Date: [2024/8/15 11:06]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public enum LogOverflowPolicy {
+
+    /**
+     * 阻塞等待，超过 blockTimeout 仍无空间时丢弃
+     */
+    BLOCK,
+    /**
+     * 直接丢弃
+     */
+    DROP,
+    /**
+     * 队列超过 sampleThreshold 后按 sampleRate 采样，队列满时丢弃
+     */
+    SAMPLE
+}
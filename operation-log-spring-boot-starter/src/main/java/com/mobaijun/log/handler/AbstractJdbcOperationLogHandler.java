@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.log.handler;
+
+import com.mobaijun.log.jdbc.JdbcOperationLogWriter;
+import java.util.List;
+
+/**
+ * Description: [通过 JDBC 批量写入的操作日志处理器，只需实现日志的创建和执行信息补充]
+ * Author: [mobaijun]
+ * Date: [2024/8/15 11:07]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public abstract class AbstractJdbcOperationLogHandler<T> extends AbstractOperationLogHandler<T> {
+
+    /**
+     * JDBC 批量写入器
+     */
+    private final JdbcOperationLogWriter<T> writer;
+
+    protected AbstractJdbcOperationLogHandler(JdbcOperationLogWriter<T> writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * 日志进入写入缓冲，按条数或时间窗口批量写库
+     *
+     * @param operationLog 操作日志
+     */
+    @Override
+    public void handleLog(T operationLog) {
+        this.writer.write(operationLog);
+    }
+
+    /**
+     * 日志进入写入缓冲，按条数或时间窗口批量写库
+     *
+     * @param operationLogs 操作日志
+     */
+    @Override
+    public void handleLogs(List<T> operationLogs) {
+        this.writer.writeAll(operationLogs);
+    }
+}
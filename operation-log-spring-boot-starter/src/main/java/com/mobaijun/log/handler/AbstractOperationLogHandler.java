@@ -15,18 +15,22 @@
  */
 package com.mobaijun.log.handler;
 
-import com.mobaijun.json.util.JsonUtil;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import jakarta.servlet.http.HttpSession;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.Signature;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.util.ObjectUtils;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -39,14 +43,30 @@ import org.springframework.web.multipart.MultipartFile;
 @Slf4j
 public abstract class AbstractOperationLogHandler<T> implements OperationLogHandler<T> {
 
+    /**
+     * 方法入参序列化后的默认最大字节数，不限制
+     */
+    public static final int DEFAULT_MAX_PARAMS_BYTES = 0;
+
     /**
      * <p>
      * 忽略记录的参数类型列表
      * </p>
      * 忽略判断时只针对方法入参类型，如果入参为对象，其某个属性需要忽略的无法处理，可以使用 @JsonIgnore 进行忽略。
      */
-    private final List<Class<?>> ignoredParamClasses = new ArrayList<>(
-            Arrays.asList(ServletRequest.class, ServletResponse.class, MultipartFile.class));
+    private final List<Class<?>> ignoredParamClasses = new CopyOnWriteArrayList<>(
+            List.of(ServletRequest.class, ServletResponse.class, HttpSession.class, MultipartFile.class,
+                    InputStreamSource.class, InputStream.class, OutputStream.class, Reader.class, Writer.class));
+
+    /**
+     * 参数类型 -> 是否忽略，每个类型只判断一次
+     */
+    private final Map<Class<?>, Boolean> ignoredTypeCache = new ConcurrentHashMap<>();
+
+    /**
+     * 方法入参序列化后的最大字节数，超出部分被截断并包装为合法 JSON，小于等于 0 表示不限制
+     */
+    private int maxParamsBytes = DEFAULT_MAX_PARAMS_BYTES;
 
     /**
      * 添加忽略记录的参数类型
@@ -55,6 +75,16 @@ public abstract class AbstractOperationLogHandler<T> implements OperationLogHand
      */
     public void addIgnoredParamClass(Class<?> clazz) {
         this.ignoredParamClasses.add(clazz);
+        this.ignoredTypeCache.clear();
+    }
+
+    /**
+     * 设置方法入参序列化后的最大字节数
+     *
+     * @param maxParamsBytes 最大字节数，小于等于 0 表示不限制
+     */
+    public void setMaxParamsBytes(int maxParamsBytes) {
+        this.maxParamsBytes = maxParamsBytes;
     }
 
     /**
@@ -64,43 +94,60 @@ public abstract class AbstractOperationLogHandler<T> implements OperationLogHand
      * @return 当前方法入参的Json Str
      */
     public String getParams(ProceedingJoinPoint joinPoint) {
+        OperationLogParams params = captureParams(joinPoint);
+        return params == null ? null : params.toJson();
+    }
+
+    /**
+     * 捕获方法参数，不立即序列化
+     * <p>
+     * 日志对象保存返回值并在 {@link #handleLog} 中调用 {@link OperationLogParams#toJson()}，
+     * 开启异步处理后序列化就不再占用请求线程。
+     *
+     * @param joinPoint 切点
+     * @return 方法参数，方法没有参数时返回 null
+     */
+    public OperationLogParams captureParams(ProceedingJoinPoint joinPoint) {
         // 获取方法签名
         Signature signature = joinPoint.getSignature();
-        String strClassName = joinPoint.getTarget().getClass().getName();
-        String strMethodName = signature.getName();
         MethodSignature methodSignature = (MethodSignature) signature;
-        log.debug("[getParams]，获取方法参数[类名]:{},[方法]:{}", strClassName, strMethodName);
+        if (log.isDebugEnabled()) {
+            log.debug("[getParams]，获取方法参数[类名]:{},[方法]:{}", joinPoint.getTarget().getClass().getName(),
+                    signature.getName());
+        }
 
         String[] parameterNames = methodSignature.getParameterNames();
-        Object[] args = joinPoint.getArgs();
         if (ObjectUtils.isEmpty(parameterNames)) {
             return null;
         }
-        Map<String, Object> paramsMap = new HashMap<>();
+        Object[] args = joinPoint.getArgs();
+        Object[] values = new Object[parameterNames.length];
         for (int i = 0; i < parameterNames.length; i++) {
             Object arg = args[i];
-            if (arg == null) {
-                paramsMap.put(parameterNames[i], null);
-                continue;
-            }
-            Class<?> argClass = arg.getClass();
             // 忽略部分类型的参数记录
-            for (Class<?> ignoredParamClass : this.ignoredParamClasses) {
-                if (ignoredParamClass.isAssignableFrom(argClass)) {
-                    arg = "ignored param type: " + argClass;
-                    break;
-                }
+            if (arg != null && isIgnoredType(arg.getClass())) {
+                arg = "ignored param type: " + arg.getClass();
             }
-            paramsMap.put(parameterNames[i], arg);
+            values[i] = arg;
         }
+        return new OperationLogParams(parameterNames, values, this.maxParamsBytes);
+    }
 
-        String params = "";
-        try {
-            // 入参类中的属性可以通过注解进行数据落库脱敏以及忽略等操作
-            params = JsonUtil.toJsonString(paramsMap);
-        } catch (Exception e) {
-            log.error("[getParams]，获取方法参数异常，[类名]:{},[方法]:{}", strClassName, strMethodName, e);
-        }
-        return params;
+    /**
+     * 判断参数类型是否忽略记录，数组按元素类型判断
+     *
+     * @param type 参数类型
+     * @return 忽略返回 true
+     */
+    private boolean isIgnoredType(Class<?> type) {
+        return this.ignoredTypeCache.computeIfAbsent(type, key -> {
+            Class<?> componentType = key.isArray() ? key.getComponentType() : key;
+            for (Class<?> ignoredParamClass : this.ignoredParamClasses) {
+                if (ignoredParamClass.isAssignableFrom(componentType)) {
+                    return true;
+                }
+            }
+            return false;
+        });
     }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.log.handler;
+
+import lombok.Getter;
+
+/**
+ * Description: [批量处理操作日志时部分日志处理失败]
+ * <p>
+ * 批次中的其余日志已经处理完成，失败的日志已记录错误日志，调用方只需统计失败条数。
+ * Author: [mobaijun]
+ * Date: [2024/8/15 11:07]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@Getter
+public class OperationLogBatchException extends RuntimeException {
+
+    /**
+     * 处理失败的日志条数
+     */
+    private final int failedCount;
+
+    public OperationLogBatchException(int failedCount, int totalCount, Throwable cause) {
+        super("批量处理操作日志部分失败，失败条数：" + failedCount + "，总条数：" + totalCount, cause);
+        this.failedCount = failedCount;
+    }
+}
@@ -16,7 +16,9 @@
 package com.mobaijun.log.handler;
 
 import com.mobaijun.log.annotation.OperationLog;
+import java.util.List;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.slf4j.LoggerFactory;
 
 /**
  * Description: [操作日志处理器，自行实现接口]
@@ -55,4 +57,30 @@ public interface OperationLogHandler<T> {
      * @param operationLog 操作日志
      */
     void handleLog(T operationLog);
+
+    /**
+     * 批量处理日志，异步处理时由后台线程调用，默认逐条调用 {@link #handleLog}
+     * <p>
+     * 单条日志处理失败时记录错误日志并继续处理后续日志，全部处理完后抛出 {@link OperationLogBatchException} 报告失败条数。
+     *
+     * @param operationLogs 操作日志
+     */
+    default void handleLogs(List<T> operationLogs) {
+        int failed = 0;
+        Exception firstFailure = null;
+        for (T operationLog : operationLogs) {
+            try {
+                handleLog(operationLog);
+            } catch (Exception e) {
+                failed++;
+                if (firstFailure == null) {
+                    firstFailure = e;
+                }
+                LoggerFactory.getLogger(getClass()).error("处理操作日志异常：{}", operationLog, e);
+            }
+        }
+        if (failed > 0) {
+            throw new OperationLogBatchException(failed, operationLogs.size(), firstFailure);
+        }
+    }
 }
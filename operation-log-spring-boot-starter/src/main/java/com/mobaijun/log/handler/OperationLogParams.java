@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.log.handler;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.mobaijun.json.util.JsonUtil;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Description: [延迟序列化的方法入参]
+ * <p>
+ * 请求线程中只保存参数名和参数引用，第一次调用 {@link #toJson()} 时才序列化，开启异步处理后序列化在后台线程完成。
+ * 序列化结果超过 maxBytes 时截断，截断的前缀包装为 {"_truncated":"前缀"}，结果仍是合法 JSON，可以写入 JSON 类型的列。
+ * 参数对象在请求结束后仍被修改时，序列化结果以序列化时的状态为准。
+ * 作为日志实体的字段时，以序列化结果的字符串形式参与 JSON 序列化与反序列化（如日志落盘与补写）。
+ * Author: [mobaijun]
+ * Date: [2024/8/15 11:07]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@Slf4j
+public class OperationLogParams {
+
+    /**
+     * 截断后保存前缀的字段名
+     */
+    public static final String TRUNCATED_FIELD = "_truncated";
+
+    /**
+     * 参数名
+     */
+    private final String[] names;
+
+    /**
+     * 参数值，忽略的参数已替换为说明文字
+     */
+    private final Object[] values;
+
+    /**
+     * 序列化结果最大字节数，小于等于 0 表示不限制
+     */
+    private final int maxBytes;
+
+    /**
+     * 序列化结果
+     */
+    private volatile String json;
+
+    /**
+     * 是否已序列化
+     */
+    private volatile boolean serialized;
+
+    public OperationLogParams(String[] names, Object[] values, int maxBytes) {
+        this.names = names;
+        this.values = values;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 由已序列化的结果创建，用于从 JSON 中还原
+     *
+     * @param json 方法入参的 JSON
+     * @return OperationLogParams
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static OperationLogParams ofJson(String json) {
+        OperationLogParams params = new OperationLogParams(new String[0], new Object[0], 0);
+        params.json = json;
+        params.serialized = true;
+        return params;
+    }
+
+    /**
+     * 序列化为 JSON，结果会被缓存
+     *
+     * @return 方法入参的 JSON，超过上限时返回包装截断前缀的 JSON，序列化失败返回空字符串
+     */
+    @JsonValue
+    public String toJson() {
+        if (!this.serialized) {
+            synchronized (this) {
+                if (!this.serialized) {
+                    this.json = serialize();
+                    this.serialized = true;
+                }
+            }
+        }
+        return this.json;
+    }
+
+    /**
+     * 以流的方式序列化，超过上限时立即停止
+     *
+     * @return 序列化结果
+     */
+    private String serialize() {
+        Map<String, Object> paramsMap = new LinkedHashMap<>(this.names.length * 4 / 3 + 1);
+        for (int i = 0; i < this.names.length; i++) {
+            paramsMap.put(this.names[i], this.values[i]);
+        }
+        BoundedOutputStream out = new BoundedOutputStream(this.maxBytes);
+        try {
+            // 入参类中的属性可以通过注解进行数据落库脱敏以及忽略等操作
+            JsonUtil.getObjectMapper().writeValue(out, paramsMap);
+        } catch (IOException e) {
+            if (!out.truncated) {
+                log.error("[getParams]，序列化方法参数异常，参数：{}", Arrays.toString(this.names), e);
+                return "";
+            }
+        }
+        if (!out.truncated) {
+            return new String(out.buffer, 0, out.count, StandardCharsets.UTF_8);
+        }
+        // 截断处可能落在多字节字符中间，去掉解码出的替换字符
+        String text = new String(out.buffer, 0, out.count, StandardCharsets.UTF_8);
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == '\uFFFD') {
+            end--;
+        }
+        return JsonUtil.getObjectMapper().createObjectNode()
+                .put(TRUNCATED_FIELD, text.substring(0, end))
+                .toString();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+    /**
+     * 超过上限时抛出异常中止序列化的输出流
+     */
+    private static final class BoundedOutputStream extends OutputStream {
+
+        /**
+         * 最大字节数，小于等于 0 表示不限制
+         */
+        private final int limit;
+
+        /**
+         * 已写入数据
+         */
+        private byte[] buffer = new byte[256];
+
+        /**
+         * 已写入字节数
+         */
+        private int count;
+
+        /**
+         * 是否已截断
+         */
+        private boolean truncated;
+
+        private BoundedOutputStream(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (this.truncated) {
+                throw new LimitExceededException();
+            }
+            int accepted = this.limit > 0 ? Math.min(length, this.limit - this.count) : length;
+            ensureCapacity(this.count + accepted);
+            System.arraycopy(bytes, offset, this.buffer, this.count, accepted);
+            this.count += accepted;
+            if (accepted < length) {
+                this.truncated = true;
+                throw new LimitExceededException();
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > this.buffer.length) {
+                int newCapacity = Math.max(capacity, this.buffer.length * 2);
+                this.buffer = Arrays.copyOf(this.buffer, this.limit > 0 ? Math.min(newCapacity, this.limit) : newCapacity);
+            }
+        }
+    }
+
+    /**
+     * 超过上限，不记录堆栈
+     */
+    private static final class LimitExceededException extends IOException {
+
+        private LimitExceededException() {
+            super("operation log params size limit exceeded", null);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,589 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.log.jdbc;
+
+import com.mobaijun.json.util.JsonUtil;
+import com.mobaijun.log.properties.OperationLogProperties;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLNonTransientException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Description: [操作日志 JDBC 批量写入器]
+ * <p>
+ * 日志先进入内存缓冲，达到 batchSize 或每隔 flushInterval 由后台写入线程通过 JDBC batch 一次写入一批，
+ * 调用线程只负责入缓冲和唤醒写入线程，不会因写库、重试等待而阻塞；
+ * MySQL 需在连接串中开启 {@code rewriteBatchedStatements=true} 才会改写为多行 insert。
+ * 写入失败时按指数退避重试，超过 maxRetries 后以 JSON 行的形式落盘到 spillPath，
+ * 之后任意一批写入成功时自动补写落盘的日志。缓冲最多容纳 maxBufferSize 条，
+ * 写入线程跟不上（如正在重试等待）时超出的日志由调用线程直接落盘，内存占用有上限。
+ * Author: [mobaijun]
+ * Date: [2024/8/15 11:07]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@Slf4j
+public class JdbcOperationLogWriter<T> implements InitializingBean, DisposableBean {
+
+    /**
+     * 落盘文件名
+     */
+    private static final String SPILL_FILE = "operation-log-spill.jsonl";
+
+    /**
+     * 补写时的临时文件名
+     */
+    private static final String REPLAY_FILE = "operation-log-replay.jsonl";
+
+    /**
+     * 无法写入数据库的日志文件名
+     */
+    private static final String FAILED_FILE = "operation-log-failed.jsonl";
+
+    /**
+     * 数据源
+     */
+    private final DataSource dataSource;
+
+    /**
+     * 单行插入语句
+     */
+    private final String insertSql;
+
+    /**
+     * 插入语句参数设置
+     */
+    private final OperationLogStatementSetter<T> statementSetter;
+
+    /**
+     * 日志类型，用于补写时反序列化
+     */
+    private final Class<T> logClass;
+
+    /**
+     * JDBC 批量写入配置
+     */
+    private final OperationLogProperties.Jdbc options;
+
+    /**
+     * 落盘目录
+     */
+    private final Path spillDirectory;
+
+    /**
+     * 待写入日志，受 {@code this} 锁保护
+     */
+    private final List<T> buffer = new ArrayList<>();
+
+    /**
+     * 保证同一时间只有一个线程写库和补写落盘文件
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * 保护落盘文件的追加和改名，缓冲已满时调用线程也会落盘
+     */
+    private final ReentrantLock fileLock = new ReentrantLock();
+
+    /**
+     * 写入成功日志数
+     */
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    /**
+     * 落盘日志数
+     */
+    private final AtomicLong spilledCount = new AtomicLong();
+
+    /**
+     * 缓冲已满而直接落盘的日志数
+     */
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    /**
+     * 是否已提交一次尚未开始的写入，避免缓冲已满时重复唤醒写入线程
+     */
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    /**
+     * 定时写入线程
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 是否存在待补写的落盘日志
+     */
+    private volatile boolean spillPending;
+
+    public JdbcOperationLogWriter(DataSource dataSource, String insertSql,
+                                  OperationLogStatementSetter<T> statementSetter, Class<T> logClass,
+                                  OperationLogProperties.Jdbc options) {
+        this.dataSource = dataSource;
+        this.insertSql = insertSql;
+        this.statementSetter = statementSetter;
+        this.logClass = logClass;
+        this.options = options;
+        this.spillDirectory = Paths.get(options.getSpillPath());
+    }
+
+    /**
+     * 启动定时写入，并补写上次运行遗留的落盘日志
+     */
+    @Override
+    public void afterPropertiesSet() {
+        this.spillPending = Files.exists(this.spillDirectory.resolve(SPILL_FILE))
+                || Files.exists(this.spillDirectory.resolve(REPLAY_FILE));
+        long interval = Math.max(this.options.getFlushInterval().toMillis(), 1);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "operation-log-jdbc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止定时写入并写入剩余日志
+     */
+    @Override
+    public void destroy() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdown();
+            try {
+                if (!this.scheduler.awaitTermination(this.options.getMaxRetryBackoff().toMillis() + 1000,
+                        TimeUnit.MILLISECONDS)) {
+                    log.warn("等待操作日志写入线程结束超时");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * 写入一条日志，缓冲已满时唤醒写入线程
+     *
+     * @param operationLog 操作日志
+     */
+    public void write(T operationLog) {
+        writeAll(Collections.singletonList(operationLog));
+    }
+
+    /**
+     * 写入多条日志，达到 batchSize 时唤醒写入线程，超出 maxBufferSize 的日志直接落盘
+     *
+     * @param operationLogs 操作日志
+     */
+    public void writeAll(List<T> operationLogs) {
+        boolean full;
+        List<T> overflow = null;
+        synchronized (this) {
+            int accepted = Math.min(Math.max(maxBufferSize() - this.buffer.size(), 0), operationLogs.size());
+            this.buffer.addAll(operationLogs.subList(0, accepted));
+            if (accepted < operationLogs.size()) {
+                overflow = operationLogs.subList(accepted, operationLogs.size());
+            }
+            full = this.buffer.size() >= batchSize();
+        }
+        // 先落盘再唤醒写入线程，本次写入即可一并补写
+        if (overflow != null) {
+            if (this.overflowCount.getAndAdd(overflow.size()) == 0) {
+                log.warn("操作日志缓冲已满（{} 条），超出的日志直接落盘", maxBufferSize());
+            }
+            spill(overflow);
+        }
+        if (full) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * 唤醒写入线程立即写入，已有未开始的写入时不重复提交
+     */
+    private void requestFlush() {
+        if (this.scheduler == null || !this.flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.scheduler.execute(() -> {
+                this.flushRequested.set(false);
+                flushQuietly();
+            });
+        } catch (RejectedExecutionException e) {
+            // 写入线程已停止，剩余日志由 destroy 写入
+            this.flushRequested.set(false);
+        }
+    }
+
+    /**
+     * 写入缓冲中的全部日志
+     * <p>
+     * 正常运行时只由写入线程调用，停止时由 destroy 调用。
+     */
+    public void flush() {
+        this.flushLock.lock();
+        try {
+            List<T> pending;
+            synchronized (this) {
+                if (this.buffer.isEmpty() && !this.spillPending) {
+                    return;
+                }
+                pending = new ArrayList<>(this.buffer);
+                this.buffer.clear();
+            }
+            boolean available = true;
+            for (int from = 0; from < pending.size(); from += batchSize()) {
+                List<T> batch = pending.subList(from, Math.min(from + batchSize(), pending.size()));
+                // 数据库不可用时剩余批次直接落盘，不再逐批重试
+                if (available && insertWithRetry(batch)) {
+                    continue;
+                }
+                available = false;
+                spill(batch);
+            }
+            // 本次没有写库时先探测数据库，避免不可用期间反复读写落盘文件
+            if (available && this.spillPending && (!pending.isEmpty() || isDatabaseAvailable())) {
+                replay();
+            }
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * 定时写入，异常不能中断调度
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("定时写入操作日志异常", e);
+        }
+    }
+
+    /**
+     * 探测数据库是否可用
+     *
+     * @return 可用返回 true
+     */
+    private boolean isDatabaseAvailable() {
+        try (Connection connection = this.dataSource.getConnection()) {
+            return connection.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 写入一批日志，失败时按指数退避重试
+     *
+     * @param batch 日志
+     * @return 写入成功返回 true
+     */
+    private boolean insertWithRetry(List<T> batch) {
+        long backoff = this.options.getRetryBackoff().toMillis();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                insert(batch);
+                return true;
+            } catch (RuntimeException e) {
+                // 参数设置异常是数据问题，重试无意义
+                log.error("写入操作日志异常，{} 条日志转存到 {}", batch.size(), FAILED_FILE, e);
+                append(FAILED_FILE, batch);
+                return true;
+            } catch (SQLException e) {
+                if (attempt >= this.options.getMaxRetries()) {
+                    log.error("写入操作日志失败，已重试 {} 次，{} 条日志落盘", attempt, batch.size(), e);
+                    return false;
+                }
+                log.warn("写入操作日志失败，{} 毫秒后第 {} 次重试：{}", backoff, attempt + 1, e.getMessage());
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            backoff = Math.min(backoff * 2, this.options.getMaxRetryBackoff().toMillis());
+        }
+    }
+
+    /**
+     * 在一个事务中通过 JDBC batch 写入一批日志
+     *
+     * @param batch 日志
+     * @throws SQLException 写入异常
+     */
+    private void insert(List<T> batch) throws SQLException {
+        try (Connection connection = this.dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(this.insertSql)) {
+                for (T operationLog : batch) {
+                    this.statementSetter.setValues(statement, operationLog);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        this.writtenCount.addAndGet(batch.size());
+    }
+
+    /**
+     * 日志落盘
+     *
+     * @param batch 日志
+     */
+    private void spill(List<T> batch) {
+        // 标记与追加在同一把锁内，补写改名后不会留下指向空文件的标记
+        this.fileLock.lock();
+        try {
+            if (append(SPILL_FILE, batch)) {
+                this.spillPending = true;
+                this.spilledCount.addAndGet(batch.size());
+            }
+        } finally {
+            this.fileLock.unlock();
+        }
+    }
+
+    /**
+     * 补写落盘的日志
+     * <p>
+     * 先把落盘文件改名再逐批写入，写入期间新落盘的日志进入新文件；数据库再次不可用时剩余日志写回落盘文件，
+     * 数据本身有误导致无法写入的批次以及无法解析的行转存到 {@value #FAILED_FILE}，避免反复补写。
+     */
+    private void replay() {
+        Path spillFile = this.spillDirectory.resolve(SPILL_FILE);
+        Path replayFile = this.spillDirectory.resolve(REPLAY_FILE);
+        this.fileLock.lock();
+        try {
+            this.spillPending = false;
+            if (!Files.exists(replayFile)) {
+                if (!Files.exists(spillFile)) {
+                    return;
+                }
+                Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            this.spillPending = true;
+            log.error("补写操作日志时移动落盘文件异常：{}", spillFile, e);
+            return;
+        } finally {
+            this.fileLock.unlock();
+        }
+        long replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            List<T> batch = new ArrayList<>(batchSize());
+            String line;
+            boolean available = true;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                T operationLog = parseLine(line);
+                if (operationLog == null) {
+                    // 单行损坏不影响其他行，转存后继续，避免整个文件反复补写
+                    appendLines(FAILED_FILE, List.of(line), 1);
+                    continue;
+                }
+                batch.add(operationLog);
+                if (batch.size() >= batchSize()) {
+                    available = replayBatch(batch, available);
+                    replayed += available ? batch.size() : 0;
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                available = replayBatch(batch, available);
+                replayed += available ? batch.size() : 0;
+            }
+        } catch (IOException e) {
+            // 文件保留，下次补写时继续处理
+            this.spillPending = true;
+            log.error("补写操作日志时读取落盘文件异常：{}", replayFile, e);
+            return;
+        }
+        try {
+            Files.delete(replayFile);
+        } catch (IOException e) {
+            log.error("删除已补写的落盘文件异常：{}", replayFile, e);
+        }
+        // 补写期间可能有新的日志落盘
+        this.spillPending = this.spillPending || Files.exists(spillFile);
+        log.info("补写落盘的操作日志 {} 条", replayed);
+    }
+
+    /**
+     * 解析落盘的一行日志
+     *
+     * @param line JSON 行
+     * @return 日志，无法解析时返回 null
+     */
+    private T parseLine(String line) {
+        try {
+            return JsonUtil.parseObject(line, this.logClass);
+        } catch (RuntimeException e) {
+            log.error("无法解析落盘的操作日志，转存到 {}：{}", FAILED_FILE, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 补写一批日志
+     *
+     * @param batch     日志
+     * @param available 数据库是否可用
+     * @return 数据库仍可用返回 true
+     */
+    private boolean replayBatch(List<T> batch, boolean available) {
+        if (available) {
+            try {
+                insert(batch);
+                return true;
+            } catch (SQLNonTransientException e) {
+                if (!(e instanceof SQLNonTransientConnectionException)) {
+                    log.error("补写操作日志失败，{} 条日志转存到 {}", batch.size(), FAILED_FILE, e);
+                    append(FAILED_FILE, batch);
+                    return true;
+                }
+                log.warn("补写操作日志时数据库不可用：{}", e.getMessage());
+            } catch (SQLException e) {
+                log.warn("补写操作日志时数据库不可用：{}", e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("补写操作日志失败，{} 条日志转存到 {}", batch.size(), FAILED_FILE, e);
+                append(FAILED_FILE, batch);
+                return true;
+            }
+        }
+        spill(batch);
+        return false;
+    }
+
+    /**
+     * 以 JSON 行的形式追加日志到文件
+     *
+     * @param fileName 文件名
+     * @param batch    日志
+     * @return 写入成功返回 true
+     */
+    private boolean append(String fileName, List<T> batch) {
+        List<String> lines = new ArrayList<>(batch.size());
+        try {
+            for (T operationLog : batch) {
+                lines.add(JsonUtil.toJsonString(operationLog));
+            }
+        } catch (RuntimeException e) {
+            log.error("操作日志序列化失败，丢弃 {} 条日志", batch.size(), e);
+            return false;
+        }
+        return appendLines(fileName, lines, batch.size());
+    }
+
+    /**
+     * 追加文本行到文件
+     *
+     * @param fileName 文件名
+     * @param lines    文本行
+     * @param count    日志条数，用于日志输出
+     * @return 写入成功返回 true
+     */
+    private boolean appendLines(String fileName, List<String> lines, int count) {
+        Path file = this.spillDirectory.resolve(fileName);
+        this.fileLock.lock();
+        try {
+            Files.createDirectories(this.spillDirectory);
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            log.error("操作日志落盘失败，丢弃 {} 条日志：{}", count, file, e);
+            return false;
+        } finally {
+            this.fileLock.unlock();
+        }
+    }
+
+    /**
+     * 单批写入条数
+     *
+     * @return 单批写入条数
+     */
+    private int batchSize() {
+        return Math.max(this.options.getBatchSize(), 1);
+    }
+
+    /**
+     * 缓冲最多容纳的日志条数
+     *
+     * @return 缓冲最多容纳的日志条数
+     */
+    private int maxBufferSize() {
+        return Math.max(this.options.getMaxBufferSize(), batchSize());
+    }
+
+    public long getWrittenCount() {
+        return this.writtenCount.get();
+    }
+
+    public long getSpilledCount() {
+        return this.spilledCount.get();
+    }
+
+    public long getOverflowCount() {
+        return this.overflowCount.get();
+    }
+
+    public synchronized int getBufferSize() {
+        return this.buffer.size();
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.log.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Description: [操作日志插入语句参数设置]
+ * Author: [mobaijun]
+ * Date: [2024/8/15 11:07]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@FunctionalInterface
+public interface OperationLogStatementSetter<T> {
+
+    /**
+     * 为插入语句设置一行日志的参数
+     *
+     * @param statement    插入语句
+     * @param operationLog 操作日志
+     * @throws SQLException 设置参数异常
+     */
+    void setValues(PreparedStatement statement, T operationLog) throws SQLException;
+}
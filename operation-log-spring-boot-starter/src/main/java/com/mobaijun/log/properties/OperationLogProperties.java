@@ -15,6 +15,8 @@
  */
 package com.mobaijun.log.properties;
 
+import com.mobaijun.log.enums.LogOverflowPolicy;
+import java.time.Duration;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -41,4 +43,107 @@ public class OperationLogProperties {
      * 开启操作日志的记录
      */
     private boolean enabled = true;
+
+    /**
+     * 方法入参序列化后的最大字节数，超出部分被截断并包装为合法 JSON，小于等于 0 表示不限制；
+     * 未配置时使用处理器自身的设置，默认不限制
+     */
+    private Integer maxParamsBytes;
+
+    /**
+     * 异步处理配置
+     */
+    private Async async = new Async();
+
+    /**
+     * JDBC 批量写入配置
+     */
+    private Jdbc jdbc = new Jdbc();
+
+    @Getter
+    @Setter
+    @ToString
+    public static class Async {
+
+        /**
+         * 是否异步处理操作日志，开启后 handleLog 在后台线程中批量执行
+         */
+        private boolean enabled = false;
+
+        /**
+         * 队列容量
+         */
+        private int bufferSize = 8192;
+
+        /**
+         * 单批最多处理条数
+         */
+        private int batchSize = 100;
+
+        /**
+         * 后台处理线程数
+         */
+        private int workers = 1;
+
+        /**
+         * 队列已满时的处理策略
+         */
+        private LogOverflowPolicy overflowPolicy = LogOverflowPolicy.BLOCK;
+
+        /**
+         * BLOCK 策略下最长等待时间
+         */
+        private Duration blockTimeout = Duration.ofMillis(100);
+
+        /**
+         * SAMPLE 策略下开始采样的队列占用比例
+         */
+        private double sampleThreshold = 0.8;
+
+        /**
+         * SAMPLE 策略下每多少条保留一条
+         */
+        private int sampleRate = 10;
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    public static class Jdbc {
+
+        /**
+         * 单批写入条数，缓冲达到该条数时立即写入
+         */
+        private int batchSize = 500;
+
+        /**
+         * 内存缓冲最多容纳的日志条数，写入跟不上时超出的日志直接落盘，不小于 batchSize
+         */
+        private int maxBufferSize = 10000;
+
+        /**
+         * 缓冲未满时的定时写入间隔
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * 写入失败后的最多重试次数
+         */
+        private int maxRetries = 3;
+
+        /**
+         * 首次重试等待时间，之后每次翻倍
+         */
+        private Duration retryBackoff = Duration.ofMillis(200);
+
+        /**
+         * 重试等待时间上限
+         */
+        private Duration maxRetryBackoff = Duration.ofSeconds(5);
+
+        /**
+         * 数据库不可用时日志落盘目录，恢复后自动补写
+         */
+        private String spillPath = "logs/operation-log";
+    }
 }
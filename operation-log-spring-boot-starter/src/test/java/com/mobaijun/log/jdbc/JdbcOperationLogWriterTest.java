@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.log.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mobaijun.log.properties.OperationLogProperties;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Description: [操作日志 JDBC 批量写入器测试]
+ * Author: [mobaijun]
+ * Date: [2024/8/15 11:07]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+class JdbcOperationLogWriterTest {
+
+    private static final String INSERT_SQL = "INSERT INTO operation_log (content) VALUES (?)";
+
+    @TempDir
+    Path spillPath;
+
+    private CountingDataSource dataSource;
+
+    private final Set<String> writerThreads = ConcurrentHashMap.newKeySet();
+
+    private JdbcOperationLogWriter<String> writer;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new CountingDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE operation_log (id BIGINT AUTO_INCREMENT PRIMARY KEY, content VARCHAR(64))");
+        }
+        dataSource.connections.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.destroy();
+        }
+    }
+
+    @Test
+    void writesFullBufferInBatchesOnWriterThread() throws Exception {
+        writer = createWriter(3, Duration.ofHours(1));
+
+        writer.writeAll(IntStream.range(0, 7).mapToObj(i -> "log-" + i).toList());
+
+        await(() -> writer.getWrittenCount() == 7);
+        assertThat(countRows()).isEqualTo(7);
+        // 7 条日志按 3 条一批写入，每批一个连接
+        assertThat(dataSource.connections.get()).isEqualTo(3);
+        assertThat(writerThreads).containsExactly("operation-log-jdbc");
+    }
+
+    @Test
+    void writeDoesNotTouchDatabaseOnCallerThread() throws Exception {
+        writer = createWriter(2, Duration.ofHours(1));
+
+        writer.write("first");
+        assertThat(dataSource.connections.get()).isZero();
+        writer.write("second");
+
+        await(() -> writer.getWrittenCount() == 2);
+        assertThat(countRows()).isEqualTo(2);
+        assertThat(dataSource.connections.get()).isEqualTo(1);
+        assertThat(writerThreads).doesNotContain(Thread.currentThread().getName());
+    }
+
+    @Test
+    void flushesPartialBufferOnInterval() throws Exception {
+        writer = createWriter(100, Duration.ofMillis(50));
+
+        writer.write("only");
+
+        await(() -> writer.getWrittenCount() == 1);
+        assertThat(countRows()).isEqualTo(1);
+        assertThat(writer.getBufferSize()).isZero();
+    }
+
+    @Test
+    void destroyWritesRemainingBuffer() throws Exception {
+        writer = createWriter(100, Duration.ofHours(1));
+
+        writer.writeAll(List.of("a", "b", "c"));
+        writer.destroy();
+        writer = null;
+
+        assertThat(countRows()).isEqualTo(3);
+        assertThat(dataSource.connections.get()).isEqualTo(1);
+    }
+
+    @Test
+    void overflowBeyondMaxBufferSizeIsSpilledAndReplayed() throws Exception {
+        writer = createWriter(2, Duration.ofHours(1), 2);
+
+        writer.writeAll(List.of("a", "b", "c", "d", "e"));
+
+        // 超出缓冲的 3 条由调用线程直接落盘
+        assertThat(writer.getOverflowCount()).isEqualTo(3);
+        assertThat(writer.getSpilledCount()).isEqualTo(3);
+        await(() -> writer.getWrittenCount() == 5);
+        assertThat(countRows()).isEqualTo(5);
+        assertThat(spillPath.resolve("operation-log-spill.jsonl")).doesNotExist();
+    }
+
+    @Test
+    void malformedSpillLineIsMovedToFailedFile() throws Exception {
+        Files.write(spillPath.resolve("operation-log-spill.jsonl"),
+                List.of("\"first\"", "{broken", "\"second\""), StandardCharsets.UTF_8);
+        writer = createWriter(1, Duration.ofHours(1));
+
+        writer.write("live");
+
+        await(() -> writer.getWrittenCount() == 3);
+        assertThat(countRows()).isEqualTo(3);
+        assertThat(Files.readAllLines(spillPath.resolve("operation-log-failed.jsonl"), StandardCharsets.UTF_8))
+                .containsExactly("{broken");
+        assertThat(spillPath.resolve("operation-log-replay.jsonl")).doesNotExist();
+    }
+
+    private JdbcOperationLogWriter<String> createWriter(int batchSize, Duration flushInterval) {
+        return createWriter(batchSize, flushInterval, 10000);
+    }
+
+    private JdbcOperationLogWriter<String> createWriter(int batchSize, Duration flushInterval, int maxBufferSize) {
+        OperationLogProperties.Jdbc options = new OperationLogProperties.Jdbc();
+        options.setBatchSize(batchSize);
+        options.setMaxBufferSize(maxBufferSize);
+        options.setFlushInterval(flushInterval);
+        options.setSpillPath(spillPath.toString());
+        JdbcOperationLogWriter<String> jdbcWriter = new JdbcOperationLogWriter<>(dataSource, INSERT_SQL,
+                (statement, operationLog) -> {
+                    writerThreads.add(Thread.currentThread().getName());
+                    statement.setString(1, operationLog);
+                }, String.class, options);
+        jdbcWriter.afterPropertiesSet();
+        return jdbcWriter;
+    }
+
+    private int countRows() throws SQLException {
+        try (Connection connection = dataSource.getDelegateConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM operation_log")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("等待写入超时").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 统计写入器获取连接次数的数据源
+     */
+    private static final class CountingDataSource extends JdbcDataSource {
+
+        private final AtomicInteger connections = new AtomicInteger();
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            connections.incrementAndGet();
+            return super.getConnection();
+        }
+
+        private Connection getDelegateConnection() throws SQLException {
+            return super.getConnection();
+        }
+    }
+}
@@ -16,13 +16,26 @@
 package com.mobaijun.sse.config;
 
 import com.mobaijun.sse.controller.SseController;
+import com.mobaijun.sse.core.LocalSseEventStore;
+import com.mobaijun.sse.core.RedisSseEventStore;
+import com.mobaijun.sse.core.SseConnectionRegistry;
 import com.mobaijun.sse.core.SseEmitterManager;
+import com.mobaijun.sse.core.SseEventStore;
+import com.mobaijun.sse.core.SseReplayStoreType;
 import com.mobaijun.sse.listener.SseTopicListener;
 import com.mobaijun.sse.properties.SseProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.UUID;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
 
 /**
  * Description: [sse 配置类]
@@ -35,9 +48,27 @@ import org.springframework.context.annotation.Configuration;
 @EnableConfigurationProperties(SseProperties.class)
 public class SseConfiguration {
 
-    @Bean
-    public SseEmitterManager sseEmitterManager() {
-        return new SseEmitterManager();
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public SseEventStore sseEventStore(SseProperties sseProperties) {
+        if (sseProperties.getReplayStore() == SseReplayStoreType.REDIS) {
+            return new RedisSseEventStore(sseProperties.getReplayCapacity(), sseProperties.getReplayRetentionSeconds(),
+                    sseProperties.getReplayIdBlockSize());
+        }
+        return new LocalSseEventStore(sseProperties.getReplayCapacity(), sseProperties.getReplayRetentionSeconds());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(value = "sse.targeted-delivery", havingValue = "true", matchIfMissing = true)
+    public SseConnectionRegistry sseConnectionRegistry(SseProperties sseProperties) {
+        String nodeId = StringUtils.hasText(sseProperties.getNodeId()) ? sseProperties.getNodeId() : UUID.randomUUID().toString();
+        return new SseConnectionRegistry(nodeId, sseProperties.getNodeExpireSeconds());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public SseEmitterManager sseEmitterManager(SseProperties sseProperties, SseEventStore sseEventStore,
+                                               ObjectProvider<SseConnectionRegistry> sseConnectionRegistry) {
+        return new SseEmitterManager(sseProperties, sseEventStore, sseConnectionRegistry.getIfAvailable());
     }
 
     @Bean
@@ -49,4 +80,36 @@ public class SseConfiguration {
     public SseController sseController(SseEmitterManager sseEmitterManager) {
         return new SseController(sseEmitterManager);
     }
+
+    /**
+     * sse 连接指标，引入 micrometer 时注册
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    static class SseMetricsConfiguration {
+
+        @Bean
+        public MeterBinder sseMeterBinder(SseEmitterManager sseEmitterManager) {
+            return registry -> {
+                Gauge.builder("sse.connections", sseEmitterManager, SseEmitterManager::getConnectionCount)
+                        .description("当前节点的 SSE 连接数")
+                        .register(registry);
+                Gauge.builder("sse.users", sseEmitterManager, SseEmitterManager::getUserCount)
+                        .description("当前节点有 SSE 连接的用户数")
+                        .register(registry);
+                Gauge.builder("sse.queue.depth", sseEmitterManager, SseEmitterManager::getQueueDepth)
+                        .description("当前节点待发送的 SSE 事件数")
+                        .register(registry);
+                FunctionCounter.builder("sse.events.dropped", sseEmitterManager, SseEmitterManager::getDroppedCount)
+                        .description("发送队列已满被丢弃的 SSE 事件数")
+                        .register(registry);
+                FunctionCounter.builder("sse.heartbeats", sseEmitterManager, SseEmitterManager::getHeartbeatCount)
+                        .description("发送的 SSE 心跳数")
+                        .register(registry);
+                FunctionCounter.builder("sse.connections.reaped", sseEmitterManager, SseEmitterManager::getReapedCount)
+                        .description("因发送失败或空闲超时被回收的 SSE 连接数")
+                        .register(registry);
+            };
+        }
+    }
 }
@@ -27,6 +27,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -53,16 +54,18 @@ public class SseController implements DisposableBean {
     /**
      * 建立 SSE 连接
      *
-     * @param tokenValue 连接的令牌值
-     * @param userId     用户 ID
+     * @param tokenValue  连接的令牌值
+     * @param userId      用户 ID
+     * @param lastEventId 客户端最后收到的事件编号，浏览器重连时自动携带
      * @return SSEEmitter 连接对象
      */
     @Operation(summary = "建立 SSE 连接")
     @GetMapping(value = "${sse.path}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public SseEmitter connect(
             @Parameter(description = "连接的令牌值") @RequestParam("tokenValue") String tokenValue,
-            @Parameter(description = "用户 ID") @RequestParam("userId") Long userId) {
-        return sseEmitterManager.connect(userId, tokenValue);
+            @Parameter(description = "用户 ID") @RequestParam("userId") Long userId,
+            @Parameter(description = "最后收到的事件编号") @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return sseEmitterManager.connect(userId, tokenValue, lastEventId);
     }
 
     /**
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.sse.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Description: [基于本机内存环形缓冲区的 sse 事件存储]
+ * <p>
+ * 事件编号以启动时的毫秒时间戳为起点递增，重启后编号仍大于重启前下发的编号。
+ * 长时间没有新事件的用户缓冲区会被定时清理。
+ * <p>
+ * 仅适用于单节点部署：事件编号由各节点独立生成，客户端携带的 Last-Event-ID 只在签发它的节点上有意义，
+ * 多节点部署时客户端重连到其他节点会漏掉或重复事件，应使用 {@link RedisSseEventStore}。
+ * Author: [mobaijun]
+ * Date: [2024/10/9 17:52]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public class LocalSseEventStore implements SseEventStore {
+
+    /**
+     * 事件编号生成器
+     */
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * 用户id -> 事件缓冲区
+     */
+    private final Map<Long, EventRing> userRings = new ConcurrentHashMap<>();
+
+    /**
+     * 群发事件缓冲区
+     */
+    private final EventRing broadcastRing;
+
+    /**
+     * 每个缓冲区保留的事件条数
+     */
+    private final int capacity;
+
+    /**
+     * 缓冲区保留时长（毫秒）
+     */
+    private final long retentionMillis;
+
+    /**
+     * 过期缓冲区清理线程
+     */
+    private final ScheduledExecutorService cleaner;
+
+    public LocalSseEventStore(int capacity, long retentionSeconds) {
+        this.capacity = Math.max(capacity, 0);
+        this.retentionMillis = TimeUnit.SECONDS.toMillis(Math.max(retentionSeconds, 1));
+        this.broadcastRing = new EventRing(this.capacity);
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-replay-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(retentionMillis / 2, 1000);
+        this.cleaner.scheduleWithFixedDelay(this::evictExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    @Override
+    public void append(Collection<Long> userIds, SseEvent event) {
+        if (capacity == 0) {
+            return;
+        }
+        if (userIds == null || userIds.isEmpty()) {
+            broadcastRing.add(event);
+            return;
+        }
+        for (Long userId : userIds) {
+            userRings.computeIfAbsent(userId, k -> new EventRing(capacity)).add(event);
+        }
+    }
+
+    @Override
+    public List<SseEvent> replay(Long userId, long lastEventId) {
+        List<SseEvent> events = new ArrayList<>();
+        EventRing ring = userRings.get(userId);
+        if (ring != null) {
+            ring.collectAfter(lastEventId, events);
+        }
+        broadcastRing.collectAfter(lastEventId, events);
+        events.sort(Comparator.comparingLong(SseEvent::getId));
+        return events;
+    }
+
+    @Override
+    public void shutdown() {
+        cleaner.shutdown();
+    }
+
+    /**
+     * 清理超过保留时长没有新事件的用户缓冲区
+     */
+    private void evictExpired() {
+        long deadline = System.currentTimeMillis() - retentionMillis;
+        userRings.entrySet().removeIf(entry -> entry.getValue().lastAppendMillis < deadline);
+        broadcastRing.clearIfBefore(deadline);
+    }
+
+    /**
+     * 定长事件环形缓冲区，写满后覆盖最早的事件
+     */
+    private static final class EventRing {
+
+        /**
+         * 事件数组
+         */
+        private final SseEvent[] events;
+
+        /**
+         * 下一个写入位置
+         */
+        private int next;
+
+        /**
+         * 当前事件条数
+         */
+        private int size;
+
+        /**
+         * 最后一次写入时间
+         */
+        private volatile long lastAppendMillis = System.currentTimeMillis();
+
+        private EventRing(int capacity) {
+            this.events = new SseEvent[capacity];
+        }
+
+        private synchronized void add(SseEvent event) {
+            if (events.length == 0) {
+                return;
+            }
+            events[next] = event;
+            next = (next + 1) % events.length;
+            size = Math.min(size + 1, events.length);
+            lastAppendMillis = System.currentTimeMillis();
+        }
+
+        private synchronized void collectAfter(long lastEventId, List<SseEvent> target) {
+            int start = (next - size + events.length) % Math.max(events.length, 1);
+            for (int i = 0; i < size; i++) {
+                SseEvent event = events[(start + i) % events.length];
+                if (event.getId() > lastEventId) {
+                    target.add(event);
+                }
+            }
+        }
+
+        private synchronized void clearIfBefore(long deadline) {
+            if (lastAppendMillis < deadline) {
+                Arrays.fill(events, null);
+                next = 0;
+                size = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.sse.core;
+
+import com.mobaijun.redisson.util.RedisUtil;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import org.redisson.api.RBatch;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RScoredSortedSetAsync;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Description: [基于 Redis 的 sse 事件存储]
+ * <p>
+ * 事件编号由 Redis 原子计数器生成，每个节点一次用 INCRBY 预留一段编号在本地分配，
+ * 发送线程只有在号段用完时才访问 Redis；编号全集群唯一，单节点内单调递增，
+ * 不同节点之间按号段先后排序，号段越大节点间的先后顺序偏差越大。
+ * 每个用户的事件保存在以编号为分值的有序集合中，客户端重连到任意节点都可以重放；
+ * 写入异步提交，不阻塞发送线程，写入失败只影响断线重放。
+ * Author: [mobaijun]
+ * Date: [2024/10/9 17:52]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public class RedisSseEventStore implements SseEventStore {
+
+    /**
+     * 事件编号计数器 key
+     */
+    private static final String SEQUENCE_KEY = "sse:replay:sequence";
+
+    /**
+     * 用户事件 key 前缀
+     */
+    private static final String USER_KEY_PREFIX = "sse:replay:user:";
+
+    /**
+     * 群发事件 key
+     */
+    private static final String BROADCAST_KEY = "sse:replay:broadcast";
+
+    private static final Logger log = LoggerFactory.getLogger(RedisSseEventStore.class);
+
+    /**
+     * 每个用户保留的事件条数
+     */
+    private final int capacity;
+
+    /**
+     * 事件保留时长
+     */
+    private final Duration retention;
+
+    /**
+     * 每次从 Redis 预留的编号数量
+     */
+    private final int idBlockSize;
+
+    /**
+     * 号段分配锁
+     */
+    private final ReentrantLock idLock = new ReentrantLock();
+
+    /**
+     * 下一个可分配的编号
+     */
+    private long nextId;
+
+    /**
+     * 当前号段的最大编号
+     */
+    private long maxId;
+
+    public RedisSseEventStore(int capacity, long retentionSeconds) {
+        this(capacity, retentionSeconds, 100);
+    }
+
+    public RedisSseEventStore(int capacity, long retentionSeconds, int idBlockSize) {
+        this.capacity = Math.max(capacity, 0);
+        this.retention = Duration.ofSeconds(Math.max(retentionSeconds, 1));
+        this.idBlockSize = Math.max(idBlockSize, 1);
+    }
+
+    @Override
+    public long nextId() {
+        idLock.lock();
+        try {
+            if (nextId == 0 || nextId > maxId) {
+                maxId = RedisUtil.getClient().getAtomicLong(SEQUENCE_KEY).addAndGet(idBlockSize);
+                nextId = maxId - idBlockSize + 1;
+            }
+            return nextId++;
+        } finally {
+            idLock.unlock();
+        }
+    }
+
+    @Override
+    public void append(Collection<Long> userIds, SseEvent event) {
+        if (capacity == 0) {
+            return;
+        }
+        RBatch batch = RedisUtil.getClient().createBatch();
+        if (userIds == null || userIds.isEmpty()) {
+            appendAsync(batch, BROADCAST_KEY, event);
+        } else {
+            for (Long userId : userIds) {
+                appendAsync(batch, USER_KEY_PREFIX + userId, event);
+            }
+        }
+        batch.executeAsync().whenComplete((result, e) -> {
+            if (e != null) {
+                log.warn("SSE写入重放事件失败 eventId: {}", event.getId(), e);
+            }
+        });
+    }
+
+    @Override
+    public List<SseEvent> replay(Long userId, long lastEventId) {
+        RedissonClient client = RedisUtil.getClient();
+        List<SseEvent> events = new ArrayList<>();
+        events.addAll(rangeAfter(client.getScoredSortedSet(USER_KEY_PREFIX + userId), lastEventId));
+        events.addAll(rangeAfter(client.getScoredSortedSet(BROADCAST_KEY), lastEventId));
+        events.sort(Comparator.comparingLong(SseEvent::getId));
+        return events;
+    }
+
+    /**
+     * 写入事件，只保留最近的 capacity 条并刷新过期时间
+     *
+     * @param batch 批处理
+     * @param key   有序集合 key
+     * @param event 事件
+     */
+    private void appendAsync(RBatch batch, String key, SseEvent event) {
+        RScoredSortedSetAsync<SseEvent> events = batch.getScoredSortedSet(key);
+        events.addAsync(event.getId(), event);
+        events.removeRangeByRankAsync(0, -capacity - 1);
+        events.expireAsync(retention);
+    }
+
+    /**
+     * 查询编号大于 lastEventId 的事件
+     *
+     * @param events      有序集合
+     * @param lastEventId 客户端最后收到的事件编号
+     * @return 事件
+     */
+    private Collection<SseEvent> rangeAfter(RScoredSortedSet<SseEvent> events, long lastEventId) {
+        return events.valueRange(lastEventId, false, Double.POSITIVE_INFINITY, true);
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.sse.core;
+
+import com.mobaijun.redisson.util.RedisUtil;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucket;
+import org.redisson.api.RFuture;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Description: [基于 Redis 的 sse 用户与节点映射注册表]
+ * <p>
+ * 每个用户对应一个记录节点 id 的 Redis Set，节点存活标记过期后在路由时惰性剔除，
+ * 机制与 websocket 模块的 RedisSessionRegistry 相同。上下线只更新本地状态，Redis 登记在续期线程中执行。
+ * Author: [mobaijun]
+ * Date: [2024/10/9 17:52]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public class SseConnectionRegistry {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger log = LoggerFactory.getLogger(SseConnectionRegistry.class);
+
+    /**
+     * 用户 -> 节点 id 集合 的 key 前缀
+     */
+    public static final String USER_KEY_PREFIX = "sse:registry:user:";
+
+    /**
+     * 节点存活标记的 key 前缀
+     */
+    public static final String NODE_KEY_PREFIX = "sse:registry:node:";
+
+    /**
+     * 当前节点 id
+     */
+    private final String nodeId;
+
+    /**
+     * 节点存活标记的过期时间
+     */
+    private final Duration nodeExpire;
+
+    /**
+     * 当前节点在线的用户
+     */
+    private final Set<Long> localUserIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 下线移除失败、待补偿的用户
+     */
+    private final Set<Long> pendingOfflineUserIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 是否需要重新登记全部用户
+     */
+    private volatile boolean resyncRequired;
+
+    /**
+     * 续期与登记线程
+     */
+    private volatile ScheduledExecutorService heartbeatExecutor;
+
+    public SseConnectionRegistry(String nodeId, long nodeExpireSeconds) {
+        this.nodeId = nodeId;
+        this.nodeExpire = Duration.ofSeconds(Math.max(nodeExpireSeconds, 3));
+    }
+
+    /**
+     * 开启定时续期
+     */
+    public void start() {
+        this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-registry-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = nodeExpire.toMillis() / 3;
+        this.heartbeatExecutor.scheduleAtFixedRate(this::heartbeat, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 清理当前节点的所有注册信息
+     */
+    public void stop() {
+        if (heartbeatExecutor != null) {
+            heartbeatExecutor.shutdownNow();
+        }
+        try {
+            RBatch batch = RedisUtil.getClient().createBatch();
+            for (Long userId : localUserIds) {
+                batch.getSet(userKey(userId), StringCodec.INSTANCE).removeAsync(nodeId);
+            }
+            batch.getBucket(nodeKey(nodeId), StringCodec.INSTANCE).deleteAsync();
+            batch.execute();
+        } catch (Exception e) {
+            log.warn("清理 sse 节点注册信息失败, nodeId: {}", nodeId, e);
+        }
+        localUserIds.clear();
+    }
+
+    /**
+     * 续期存活标记，标记丢失或登记失败过时补偿移除并重新登记
+     */
+    void heartbeat() {
+        try {
+            RedissonClient client = RedisUtil.getClient();
+            RBucket<String> bucket = client.getBucket(nodeKey(nodeId), StringCodec.INSTANCE);
+            boolean absent = bucket.setIfAbsent(nodeId, nodeExpire);
+            if (!absent) {
+                bucket.expire(nodeExpire);
+            }
+            if (absent || resyncRequired || !pendingOfflineUserIds.isEmpty()) {
+                resyncRequired = false;
+                List<Long> offlineUserIds = new ArrayList<>(pendingOfflineUserIds);
+                RBatch batch = client.createBatch();
+                for (Long userId : offlineUserIds) {
+                    batch.getSet(userKey(userId), StringCodec.INSTANCE).removeAsync(nodeId);
+                }
+                for (Long userId : localUserIds) {
+                    batch.getSet(userKey(userId), StringCodec.INSTANCE).addAsync(nodeId);
+                }
+                batch.execute();
+                offlineUserIds.forEach(pendingOfflineUserIds::remove);
+            }
+        } catch (Exception e) {
+            resyncRequired = true;
+            log.warn("sse 节点存活标记续期失败, nodeId: {}", nodeId, e);
+        }
+    }
+
+    /**
+     * 用户在当前节点上线
+     *
+     * @param userId 用户id
+     */
+    public void online(Long userId) {
+        localUserIds.add(userId);
+        submitSync(userId);
+    }
+
+    /**
+     * 用户在当前节点下线
+     *
+     * @param userId 用户id
+     */
+    public void offline(Long userId) {
+        localUserIds.remove(userId);
+        submitSync(userId);
+    }
+
+    /**
+     * 在续期线程中按提交顺序同步用户的登记，续期线程不可用时在当前线程执行
+     *
+     * @param userId 用户id
+     */
+    private void submitSync(Long userId) {
+        ScheduledExecutorService executor = heartbeatExecutor;
+        if (executor != null) {
+            try {
+                executor.execute(() -> sync(userId));
+                return;
+            } catch (RejectedExecutionException e) {
+                log.debug("续期线程已关闭，直接同步 sse 用户: {}", userId);
+            }
+        }
+        sync(userId);
+    }
+
+    /**
+     * 按用户的最新状态登记或移除，失败时交给续期线程补偿
+     *
+     * @param userId 用户id
+     */
+    private void sync(Long userId) {
+        boolean online = localUserIds.contains(userId);
+        try {
+            if (online) {
+                pendingOfflineUserIds.remove(userId);
+                RedisUtil.getClient().getSet(userKey(userId), StringCodec.INSTANCE).add(nodeId);
+            } else {
+                RedisUtil.getClient().getSet(userKey(userId), StringCodec.INSTANCE).remove(nodeId);
+            }
+        } catch (Exception e) {
+            if (online) {
+                resyncRequired = true;
+            } else {
+                pendingOfflineUserIds.add(userId);
+            }
+            log.warn("同步 sse 用户登记失败，等待续期时补偿, userId: {}", userId, e);
+        }
+    }
+
+    /**
+     * 按持有节点对用户进行分组，忽略不在存活节点上的用户
+     *
+     * @param userIds 待发送的用户
+     * @return 节点 id -> 该节点持有的用户
+     */
+    public Map<String, List<Long>> route(Collection<Long> userIds) {
+        RedissonClient client = RedisUtil.getClient();
+        List<Long> users = new ArrayList<>(userIds);
+        RBatch batch = client.createBatch();
+        List<RFuture<Set<String>>> members = new ArrayList<>(users.size());
+        for (Long userId : users) {
+            members.add(batch.<String>getSet(userKey(userId), StringCodec.INSTANCE).readAllAsync());
+        }
+        batch.execute();
+
+        Map<String, Boolean> aliveNodes = new HashMap<>();
+        Map<String, List<Long>> routes = new LinkedHashMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            Long userId = users.get(i);
+            for (String node : members.get(i).toCompletableFuture().join()) {
+                if (aliveNodes.computeIfAbsent(node, this::isAlive)) {
+                    routes.computeIfAbsent(node, k -> new ArrayList<>()).add(userId);
+                } else {
+                    client.getSet(userKey(userId), StringCodec.INSTANCE).remove(node);
+                    log.debug("移除已下线节点 {} 上的用户: {}", node, userId);
+                }
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * 判断节点是否存活
+     *
+     * @param nodeId 节点 id
+     * @return 存活返回 true
+     */
+    private boolean isAlive(String nodeId) {
+        if (this.nodeId.equals(nodeId)) {
+            return true;
+        }
+        return RedisUtil.getClient().getBucket(nodeKey(nodeId), StringCodec.INSTANCE).isExists();
+    }
+
+    /**
+     * 当前节点 id
+     *
+     * @return 节点 id
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 节点存活标记的 key
+     *
+     * @param nodeId 节点 id
+     * @return redis key
+     */
+    private static String nodeKey(String nodeId) {
+        return NODE_KEY_PREFIX + nodeId;
+    }
+
+    /**
+     * 用户对应的注册表 key
+     *
+     * @param userId 用户id
+     * @return redis key
+     */
+    private static String userKey(Long userId) {
+        return USER_KEY_PREFIX + userId;
+    }
+}
@@ -17,19 +17,28 @@ package com.mobaijun.sse.core;
 
 import com.mobaijun.redisson.util.RedisUtil;
 import com.mobaijun.sse.message.SseMessage;
-import java.io.IOException;
+import com.mobaijun.sse.properties.SseProperties;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Description: [sse 工具类]
+ * <p>
+ * 每个连接拥有一个有界发送队列（{@link SseEmitterQueue}），发送消息只是入队，
+ * 由后台线程池完成网络写入，单个卡顿的客户端不会拖慢发送方。
+ * 每条事件都带有单调递增的编号并保存到 {@link SseEventStore}，客户端重连时按 {@code Last-Event-ID} 重放。
  * Author: [mobaijun]
  * Date: [2024/10/9 17:52]
  * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
@@ -46,7 +55,59 @@ public class SseEmitterManager implements Serializable {
      */
     private final static String SSE_TOPIC = "global:sse";
 
-    private final static Map<Long, Map<String, SseEmitter>> USER_TOKEN_EMITTERS = new ConcurrentHashMap<>();
+    private final static Map<Long, Map<String, SseEmitterQueue>> USER_TOKEN_EMITTERS = new ConcurrentHashMap<>();
+
+    /**
+     * sse 配置
+     */
+    private final SseProperties sseProperties;
+
+    /**
+     * 事件存储，用于断线重连后重放
+     */
+    private final transient SseEventStore eventStore;
+
+    /**
+     * 后台发送线程池
+     */
+    private final transient ExecutorService sendExecutor;
+
+    /**
+     * 心跳与空闲连接清理，心跳间隔为 0 时不启用
+     */
+    private final transient SseHeartbeatScheduler heartbeatScheduler;
+
+    /**
+     * 用户与节点映射注册表，为空时定向消息走全局频道广播
+     */
+    private final transient SseConnectionRegistry connectionRegistry;
+
+    public SseEmitterManager() {
+        this(new SseProperties());
+    }
+
+    public SseEmitterManager(SseProperties sseProperties) {
+        this(sseProperties, new LocalSseEventStore(sseProperties.getReplayCapacity(), sseProperties.getReplayRetentionSeconds()));
+    }
+
+    public SseEmitterManager(SseProperties sseProperties, SseEventStore eventStore) {
+        this(sseProperties, eventStore, null);
+    }
+
+    public SseEmitterManager(SseProperties sseProperties, SseEventStore eventStore, SseConnectionRegistry connectionRegistry) {
+        this.sseProperties = sseProperties;
+        this.eventStore = eventStore;
+        this.connectionRegistry = connectionRegistry;
+        AtomicInteger counter = new AtomicInteger();
+        this.sendExecutor = Executors.newFixedThreadPool(Math.max(sseProperties.getSendThreads(), 1), runnable -> {
+            Thread thread = new Thread(runnable, "sse-send-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeatScheduler = sseProperties.getHeartbeatIntervalSeconds() > 0
+                ? new SseHeartbeatScheduler(sseProperties.getHeartbeatIntervalSeconds(), sseProperties.getIdleTimeoutSeconds(), this::unregister)
+                : null;
+    }
 
     /**
      * 建立与指定用户的 SSE 连接
@@ -56,26 +117,39 @@ public class SseEmitterManager implements Serializable {
      * @return 返回一个 SseEmitter 实例，客户端可以通过该实例接收 SSE 事件
      */
     public SseEmitter connect(Long userId, String token) {
-        // 从 USER_TOKEN_EMITTERS 中获取或创建当前用户的 SseEmitter 映射表（ConcurrentHashMap）
-        // 每个用户可以有多个 SSE 连接，通过 token 进行区分
-        Map<String, SseEmitter> emitters = USER_TOKEN_EMITTERS.computeIfAbsent(userId, k -> new ConcurrentHashMap<>());
+        return connect(userId, token, null);
+    }
 
-        // 创建一个新的 SseEmitter 实例，超时时间设置为 0 表示无限制
+    /**
+     * 建立与指定用户的 SSE 连接，并重放客户端断线期间错过的事件
+     *
+     * @param userId      用户的唯一标识符，用于区分不同用户的连接
+     * @param token       用户的唯一令牌，用于识别具体的连接
+     * @param lastEventId 客户端最后收到的事件编号，即 {@code Last-Event-ID} 请求头，为空不重放
+     * @return 返回一个 SseEmitter 实例，客户端可以通过该实例接收 SSE 事件
+     */
+    public SseEmitter connect(Long userId, String token, String lastEventId) {
+        // 创建一个新的 SseEmitter 实例，超时时间设置为 0 表示无限制，失联连接由心跳任务回收
         SseEmitter emitter = new SseEmitter(0L);
+        SseEmitterQueue emitterQueue = new SseEmitterQueue(userId, token, emitter,
+                sseProperties.getQueueCapacity(), sseProperties.getOverflowPolicy(), sendExecutor);
 
-        emitters.put(token, emitter);
+        // 每个用户可以有多个 SSE 连接，通过 token 进行区分
+        SseEmitterQueue previous = register(emitterQueue);
+        if (previous != null) {
+            previous.complete();
+        }
 
         // 当 emitter 完成、超时或发生错误时，从映射表中移除对应的 token
-        emitter.onCompletion(() -> emitters.remove(token));
-        emitter.onTimeout(() -> emitters.remove(token));
-        emitter.onError((e) -> emitters.remove(token));
+        emitter.onCompletion(() -> unregister(emitterQueue));
+        emitter.onTimeout(() -> unregister(emitterQueue));
+        emitter.onError((e) -> unregister(emitterQueue));
 
-        try {
-            // 向客户端发送一条连接成功的事件
-            emitter.send(SseEmitter.event().comment("connected"));
-        } catch (IOException e) {
-            // 如果发送消息失败，则从映射表中移除 emitter
-            emitters.remove(token);
+        // 向客户端发送一条连接成功的事件
+        emitterQueue.offer(SseEmitter.event().comment("connected").build());
+        replay(emitterQueue, lastEventId);
+        if (heartbeatScheduler != null) {
+            heartbeatScheduler.schedule(emitterQueue);
         }
         return emitter;
     }
@@ -87,20 +161,63 @@ public class SseEmitterManager implements Serializable {
      * @param token  用户的唯一令牌，用于识别具体的连接
      */
     public void disconnect(Long userId, String token) {
-        Map<String, SseEmitter> emitters = USER_TOKEN_EMITTERS.get(userId);
-        if (!emitters.isEmpty()) {
+        Map<String, SseEmitterQueue> emitters = USER_TOKEN_EMITTERS.get(userId);
+        if (emitters == null) {
+            return;
+        }
+        SseEmitterQueue emitterQueue = emitters.get(token);
+        if (emitterQueue != null && unregister(emitterQueue)) {
             try {
-                SseEmitter sseEmitter = emitters.get(token);
-                sseEmitter.send(SseEmitter.event().comment("disconnected"));
-                sseEmitter.complete();
+                emitterQueue.getEmitter().send(SseEmitter.event().comment("disconnected"));
             } catch (Exception ignore) {
             }
-            emitters.remove(token);
-        } else {
-            USER_TOKEN_EMITTERS.remove(userId);
+            emitterQueue.complete();
         }
     }
 
+    /**
+     * 将连接加入连接表
+     *
+     * @param emitterQueue 连接的发送队列
+     * @return 同一 token 之前的连接，没有返回 null
+     */
+    private SseEmitterQueue register(SseEmitterQueue emitterQueue) {
+        SseEmitterQueue[] previous = new SseEmitterQueue[1];
+        // 上下线在 compute 内提交，与同一用户的下线串行；注册表只更新本地状态，Redis 登记异步执行
+        USER_TOKEN_EMITTERS.compute(emitterQueue.getUserId(), (userId, emitters) -> {
+            if (emitters == null) {
+                emitters = new ConcurrentHashMap<>();
+                if (connectionRegistry != null) {
+                    connectionRegistry.online(userId);
+                }
+            }
+            previous[0] = emitters.put(emitterQueue.getToken(), emitterQueue);
+            return emitters;
+        });
+        return previous[0];
+    }
+
+    /**
+     * 将连接从连接表中移除，用户没有剩余连接时一并移除用户
+     *
+     * @param emitterQueue 连接的发送队列
+     * @return 连接此前仍在连接表中返回 true
+     */
+    private boolean unregister(SseEmitterQueue emitterQueue) {
+        boolean[] removed = new boolean[1];
+        USER_TOKEN_EMITTERS.computeIfPresent(emitterQueue.getUserId(), (userId, emitters) -> {
+            removed[0] = emitters.remove(emitterQueue.getToken(), emitterQueue);
+            if (!emitters.isEmpty()) {
+                return emitters;
+            }
+            if (connectionRegistry != null) {
+                connectionRegistry.offline(userId);
+            }
+            return null;
+        });
+        return removed[0];
+    }
+
     /**
      * 订阅SSE消息主题，并提供一个消费者函数来处理接收到的消息
      *
@@ -108,6 +225,19 @@ public class SseEmitterManager implements Serializable {
      */
     public void subscribeMessage(Consumer<SseMessage> consumer) {
         RedisUtil.subscribe(SSE_TOPIC, SseMessage.class, consumer);
+        if (connectionRegistry != null) {
+            RedisUtil.subscribe(nodeTopic(connectionRegistry.getNodeId()), SseMessage.class, consumer);
+        }
+    }
+
+    /**
+     * 节点专属频道，只接收发给该节点上用户的定向消息
+     *
+     * @param nodeId 节点 id
+     * @return 频道名称
+     */
+    public static String nodeTopic(String nodeId) {
+        return SSE_TOPIC + ":" + nodeId;
     }
 
     /**
@@ -117,20 +247,19 @@ public class SseEmitterManager implements Serializable {
      * @param message 要发送的消息内容
      */
     public void sendMessage(Long userId, String message) {
-        Map<String, SseEmitter> emitters = USER_TOKEN_EMITTERS.get(userId);
-        if (!emitters.isEmpty()) {
-            for (Map.Entry<String, SseEmitter> entry : emitters.entrySet()) {
-                try {
-                    entry.getValue().send(SseEmitter.event()
-                            .name("message")
-                            .data(message));
-                } catch (Exception e) {
-                    emitters.remove(entry.getKey());
-                }
-            }
-        } else {
-            USER_TOKEN_EMITTERS.remove(userId);
-        }
+        SseEvent event = new SseEvent(eventStore.nextId(), message);
+        eventStore.append(List.of(userId), event);
+        sendEvent(userId, event);
+    }
+
+    /**
+     * 向指定的用户会话发送已保存过的事件
+     *
+     * @param userId 要发送消息的用户id
+     * @param event  事件
+     */
+    public void sendEvent(Long userId, SseEvent event) {
+        sendFrame(userId, eventFrame(event), event.getId());
     }
 
     /**
@@ -139,22 +268,101 @@ public class SseEmitterManager implements Serializable {
      * @param message 要发送的消息内容
      */
     public void sendMessage(String message) {
+        SseEvent event = new SseEvent(eventStore.nextId(), message);
+        eventStore.append(null, event);
+        sendEvent(event);
+    }
+
+    /**
+     * 本机全用户会话发送已保存过的事件
+     *
+     * @param event 事件
+     */
+    public void sendEvent(SseEvent event) {
+        // 事件帧只构建一次，所有连接共享
+        Set<ResponseBodyEmitter.DataWithMediaType> frame = eventFrame(event);
         for (Long userId : USER_TOKEN_EMITTERS.keySet()) {
-            sendMessage(userId, message);
+            sendFrame(userId, frame, event.getId());
         }
     }
 
+    /**
+     * 将事件帧放入指定用户所有连接的发送队列
+     *
+     * @param userId 用户id
+     * @param frame   事件帧
+     * @param eventId 事件编号
+     */
+    private void sendFrame(Long userId, Set<ResponseBodyEmitter.DataWithMediaType> frame, long eventId) {
+        Map<String, SseEmitterQueue> emitters = USER_TOKEN_EMITTERS.get(userId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitterQueue emitterQueue : emitters.values()) {
+            if (emitterQueue.isClosed()) {
+                unregister(emitterQueue);
+                continue;
+            }
+            emitterQueue.offer(frame, eventId);
+        }
+    }
+
+    /**
+     * 重放客户端错过的事件
+     *
+     * @param emitterQueue 连接的发送队列
+     * @param lastEventId  客户端最后收到的事件编号
+     */
+    private void replay(SseEmitterQueue emitterQueue, String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return;
+        }
+        long lastId;
+        try {
+            lastId = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            log.debug("SSE忽略无效的Last-Event-ID: {}", lastEventId);
+            return;
+        }
+        try {
+            emitterQueue.replay(eventStore.replay(emitterQueue.getUserId(), lastId));
+        } catch (Exception e) {
+            log.warn("SSE重放事件失败 userId: {} lastEventId: {}", emitterQueue.getUserId(), lastId, e);
+        }
+    }
+
+    /**
+     * 构建消息事件帧
+     *
+     * @param event 事件
+     * @return 事件帧
+     */
+    static Set<ResponseBodyEmitter.DataWithMediaType> eventFrame(SseEvent event) {
+        return SseEmitter.event()
+                .id(String.valueOf(event.getId()))
+                .name("message")
+                .data(event.getData())
+                .build();
+    }
+
     /**
      * 发布SSE订阅消息
      *
      * @param sseMessageDto 要发布的SSE消息对象
      */
     public void publishMessage(SseMessage sseMessageDto) {
+        // 事件只保存一次，所有节点按同一编号下发
+        SseEvent event = new SseEvent(eventStore.nextId(), sseMessageDto.getMessage());
+        eventStore.append(sseMessageDto.getUserIds(), event);
+        if (connectionRegistry != null) {
+            publishToNodes(sseMessageDto.getUserIds(), event);
+            return;
+        }
         List<Long> unsentUserIds = new ArrayList<>();
         // 当前服务内用户,直接发送消息
         for (Long userId : sseMessageDto.getUserIds()) {
             if (USER_TOKEN_EMITTERS.containsKey(userId)) {
-                sendMessage(userId, sseMessageDto.getMessage());
+                sendEvent(userId, event);
                 continue;
             }
             unsentUserIds.add(userId);
@@ -164,18 +372,124 @@ public class SseEmitterManager implements Serializable {
             SseMessage broadcastMessage = new SseMessage();
             broadcastMessage.setMessage(sseMessageDto.getMessage());
             broadcastMessage.setUserIds(unsentUserIds);
+            broadcastMessage.setEventId(event.getId());
             RedisUtil.publish(SSE_TOPIC, broadcastMessage, consumer -> log.info("SSE发送主题订阅消息topic: {} session keys: {} message: {}", SSE_TOPIC, unsentUserIds, sseMessageDto.getMessage()));
         }
     }
 
+    /**
+     * 按注册表把定向消息只发布到持有目标用户连接的节点
+     * <p>
+     * 同一用户可能在多个节点上都有连接，因此本机用户也要参与路由；不在任何存活节点上的用户不再发布，
+     * 事件已保存，用户重连后可以重放。
+     *
+     * @param userIds 目标用户
+     * @param event   事件
+     */
+    private void publishToNodes(List<Long> userIds, SseEvent event) {
+        // 当前服务内用户,直接发送消息
+        for (Long userId : userIds) {
+            if (USER_TOKEN_EMITTERS.containsKey(userId)) {
+                sendEvent(userId, event);
+            }
+        }
+        Map<String, List<Long>> routes = connectionRegistry.route(userIds);
+        routes.remove(connectionRegistry.getNodeId());
+        // 其他节点上的用户,发布到节点专属频道
+        routes.forEach((nodeId, nodeUserIds) -> {
+            SseMessage nodeMessage = new SseMessage();
+            nodeMessage.setMessage(event.getData());
+            nodeMessage.setUserIds(nodeUserIds);
+            nodeMessage.setEventId(event.getId());
+            String topic = nodeTopic(nodeId);
+            RedisUtil.publish(topic, nodeMessage, consumer -> log.debug("SSE发送节点订阅消息topic: {} session keys: {}", topic, nodeUserIds));
+        });
+    }
+
     /**
      * 向所有的用户发布订阅的消息(群发)
      *
      * @param message 要发布的消息内容
      */
     public void publishAll(String message) {
+        SseEvent event = new SseEvent(eventStore.nextId(), message);
+        eventStore.append(null, event);
         SseMessage broadcastMessage = new SseMessage();
         broadcastMessage.setMessage(message);
+        broadcastMessage.setEventId(event.getId());
         RedisUtil.publish(SSE_TOPIC, broadcastMessage, consumer -> log.info("SSE发送主题订阅消息topic:{} message:{}", SSE_TOPIC, message));
     }
+
+    /**
+     * 当前节点的连接数
+     *
+     * @return 连接数
+     */
+    public int getConnectionCount() {
+        return USER_TOKEN_EMITTERS.values().stream()
+                .mapToInt(Map::size)
+                .sum();
+    }
+
+    /**
+     * 当前节点有连接的用户数
+     *
+     * @return 用户数
+     */
+    public int getUserCount() {
+        return USER_TOKEN_EMITTERS.size();
+    }
+
+    /**
+     * 累计发送的心跳数
+     *
+     * @return 心跳数
+     */
+    public long getHeartbeatCount() {
+        return heartbeatScheduler == null ? 0 : heartbeatScheduler.getHeartbeatCount();
+    }
+
+    /**
+     * 因发送失败或空闲超时被回收的连接数
+     *
+     * @return 回收连接数
+     */
+    public long getReapedCount() {
+        return heartbeatScheduler == null ? 0 : heartbeatScheduler.getReapedCount();
+    }
+
+    /**
+     * 当前节点所有连接发送队列中待发送的事件总数
+     *
+     * @return 待发送事件数
+     */
+    public long getQueueDepth() {
+        return USER_TOKEN_EMITTERS.values().stream()
+                .flatMap(emitters -> emitters.values().stream())
+                .mapToLong(SseEmitterQueue::getQueueDepth)
+                .sum();
+    }
+
+    /**
+     * 当前节点所有连接累计丢弃的事件数
+     *
+     * @return 丢弃事件数
+     */
+    public long getDroppedCount() {
+        return USER_TOKEN_EMITTERS.values().stream()
+                .flatMap(emitters -> emitters.values().stream())
+                .mapToLong(SseEmitterQueue::getDroppedCount)
+                .sum();
+    }
+
+    /**
+     * 关闭后台发送线程池
+     */
+    public void shutdown() {
+        if (heartbeatScheduler != null) {
+            heartbeatScheduler.stop();
+        }
+        sendExecutor.shutdown();
+        eventStore.shutdown();
+    }
 }
@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.sse.core;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Description: [sse 连接的有界发送队列]
+ * <p>
+ * 发布事件只是入队，真正的网络写入由共享线程池中的后台任务串行完成，慢连接不会拖慢发送方。
+ * 队列满时按 {@link SseOverflowPolicy} 丢弃事件或断开连接。
+ * Author: [mobaijun]
+ * Date: [2024/10/9 17:52]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public class SseEmitterQueue {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger log = LoggerFactory.getLogger(SseEmitterQueue.class);
+
+    /**
+     * 用户 ID
+     */
+    private final Long userId;
+
+    /**
+     * 连接令牌
+     */
+    private final String token;
+
+    /**
+     * sse 连接
+     */
+    private final SseEmitter emitter;
+
+    /**
+     * 队列容量
+     */
+    private final int capacity;
+
+    /**
+     * 队列已满时的处理策略
+     */
+    private final SseOverflowPolicy overflowPolicy;
+
+    /**
+     * 后台发送线程池
+     */
+    private final Executor executor;
+
+    /**
+     * 待发送的事件帧，受 {@code this} 锁保护
+     */
+    private final Deque<Set<ResponseBodyEmitter.DataWithMediaType>> queue = new ArrayDeque<>();
+
+    /**
+     * 是否已有后台发送任务在执行
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * 已发送事件数
+     */
+    private final AtomicLong sentCount = new AtomicLong();
+
+    /**
+     * 丢弃事件数
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * 入队的第一个实时事件编号，受 {@code this} 锁保护，用于重放时去重
+     */
+    private long firstLiveEventId = Long.MAX_VALUE;
+
+    /**
+     * 最近一次成功发送的时间，连接建立时为建立时间
+     */
+    private volatile long lastActivityMillis = System.currentTimeMillis();
+
+    /**
+     * 连接是否已关闭
+     */
+    private volatile boolean closed;
+
+    public SseEmitterQueue(Long userId, String token, SseEmitter emitter, int capacity,
+                           SseOverflowPolicy overflowPolicy, Executor executor) {
+        this.userId = userId;
+        this.token = token;
+        this.emitter = emitter;
+        this.capacity = Math.max(capacity, 1);
+        this.overflowPolicy = overflowPolicy == null ? SseOverflowPolicy.DROP_OLDEST : overflowPolicy;
+        this.executor = executor;
+    }
+
+    /**
+     * 事件帧入队
+     *
+     * @param frame 已构建好的事件帧，可在多个连接间共享
+     * @return 入队成功返回 true，被丢弃或连接已关闭返回 false
+     */
+    public boolean offer(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        return offer(frame, -1);
+    }
+
+    /**
+     * 带编号的事件帧入队
+     *
+     * @param frame   已构建好的事件帧，可在多个连接间共享
+     * @param eventId 事件编号，小于 0 表示没有编号
+     * @return 入队成功返回 true，被丢弃或连接已关闭返回 false
+     */
+    public boolean offer(Set<ResponseBodyEmitter.DataWithMediaType> frame, long eventId) {
+        if (closed) {
+            return false;
+        }
+        boolean accepted = true;
+        boolean disconnect = false;
+        synchronized (this) {
+            if (eventId >= 0 && firstLiveEventId == Long.MAX_VALUE) {
+                firstLiveEventId = eventId;
+            }
+            if (queue.size() >= capacity) {
+                droppedCount.incrementAndGet();
+                switch (overflowPolicy) {
+                    case DROP_NEWEST -> accepted = false;
+                    case DISCONNECT -> {
+                        accepted = false;
+                        disconnect = true;
+                    }
+                    default -> queue.pollFirst();
+                }
+            }
+            if (accepted) {
+                queue.offerLast(frame);
+            }
+        }
+        if (disconnect) {
+            log.warn("SSE连接发送队列已满，断开连接 userId: {} token: {}", userId, token);
+            complete();
+            return false;
+        }
+        if (accepted) {
+            scheduleDrain();
+        }
+        return accepted;
+    }
+
+    /**
+     * 重放客户端错过的事件
+     * <p>
+     * 重放事件插入队首，先于实时事件发送；编号不小于第一个实时事件的事件已经在队列中，跳过以免重复。
+     * 重放条数受事件存储容量限制，不计入队列容量。
+     *
+     * @param events 按编号升序排列的事件
+     */
+    public void replay(List<SseEvent> events) {
+        if (closed || events.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (int i = events.size() - 1; i >= 0; i--) {
+                SseEvent event = events.get(i);
+                if (event.getId() < firstLiveEventId) {
+                    queue.offerFirst(SseEmitterManager.eventFrame(event));
+                }
+            }
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * 正常关闭连接
+     */
+    public void complete() {
+        closed = true;
+        synchronized (this) {
+            queue.clear();
+        }
+        try {
+            emitter.complete();
+        } catch (Exception ignore) {
+        }
+    }
+
+    /**
+     * 没有后台任务在执行时提交一个发送任务
+     */
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                log.warn("SSE发送任务被拒绝 userId: {} token: {}", userId, token);
+            }
+        }
+    }
+
+    /**
+     * 串行发送队列中的事件，直到队列为空
+     */
+    private void drain() {
+        try {
+            Set<ResponseBodyEmitter.DataWithMediaType> frame;
+            while (!closed && (frame = poll()) != null) {
+                try {
+                    emitter.send(frame);
+                    sentCount.incrementAndGet();
+                    lastActivityMillis = System.currentTimeMillis();
+                } catch (Exception e) {
+                    // 发送失败说明连接已不可用，关闭后由回调移除
+                    log.debug("SSE发送失败，关闭连接 userId: {} token: {}", userId, token, e);
+                    closed = true;
+                    synchronized (this) {
+                        queue.clear();
+                    }
+                    emitter.completeWithError(e);
+                }
+            }
+        } finally {
+            draining.set(false);
+        }
+        // 释放标记后可能有新事件入队，需要再次检查
+        boolean pending;
+        synchronized (this) {
+            pending = !queue.isEmpty();
+        }
+        if (pending && !closed) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * 取出队首事件帧
+     *
+     * @return 队首事件帧，队列为空返回 null
+     */
+    private synchronized Set<ResponseBodyEmitter.DataWithMediaType> poll() {
+        return queue.pollFirst();
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public long getLastActivityMillis() {
+        return lastActivityMillis;
+    }
+
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.sse.core;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Description: [带编号的 sse 事件]
+ * <p>
+ * 事件编号单调递增，作为 SSE 的 {@code id} 字段下发，客户端重连时通过 {@code Last-Event-ID} 请求头带回。
+ * Author: [mobaijun]
+ * Date: [2024/10/9 17:52]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public class SseEvent implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 事件编号
+     */
+    private long id;
+
+    /**
+     * 事件内容
+     */
+    private String data;
+
+    public SseEvent() {
+    }
+
+    public SseEvent(long id, String data) {
+        this.id = id;
+        this.data = data;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public void setData(String data) {
+        this.data = data;
+    }
+
+    @Override
+    public String toString() {
+        return "SseEvent{" +
+                "id=" + id +
+                ", data='" + data + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.sse.core;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Description: [sse 事件存储]
+ * <p>
+ * 为每个用户保留最近的若干条事件，客户端断线重连时按 {@code Last-Event-ID} 重放错过的事件。
+ * 群发事件单独保存一份，重放时与用户事件按编号合并。
+ * Author: [mobaijun]
+ * Date: [2024/10/9 17:52]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public interface SseEventStore {
+
+    /**
+     * 生成下一个事件编号，编号单调递增
+     *
+     * @return 事件编号
+     */
+    long nextId();
+
+    /**
+     * 保存事件
+     *
+     * @param userIds 接收事件的用户id，为空表示群发
+     * @param event   事件
+     */
+    void append(Collection<Long> userIds, SseEvent event);
+
+    /**
+     * 查询指定用户编号大于 lastEventId 的事件
+     *
+     * @param userId      用户id
+     * @param lastEventId 客户端最后收到的事件编号
+     * @return 按编号升序排列的事件
+     */
+    List<SseEvent> replay(Long userId, long lastEventId);
+
+    /**
+     * 释放资源
+     */
+    default void shutdown() {
+    }
+}
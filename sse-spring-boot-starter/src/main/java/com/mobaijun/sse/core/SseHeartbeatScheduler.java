@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.sse.core;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Description: [基于时间轮的 sse 心跳与空闲连接清理]
+ * <p>
+ * 每个连接在时间轮上挂一个定时任务，到期时：
+ * <ul>
+ *     <li>连接已关闭：交给回收回调从连接表中移除；</li>
+ *     <li>有待发送事件但超过空闲超时仍未成功发送：判定客户端已失联，关闭并回收；</li>
+ *     <li>一个心跳周期内没有发送过任何事件：入队一个共享的注释帧作为心跳，由发送线程池批量写出。</li>
+ * </ul>
+ * 定时任务随连接建立时间分散在时间轮各个槽位上，不会在同一时刻对所有连接集中写入。
+ * Author: [mobaijun]
+ * Date: [2024/10/9 17:52]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public class SseHeartbeatScheduler {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger log = LoggerFactory.getLogger(SseHeartbeatScheduler.class);
+
+    /**
+     * 心跳帧，所有连接共享
+     */
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT_FRAME = SseEmitter.event().comment("heartbeat").build();
+
+    /**
+     * 时间轮
+     */
+    private final HashedWheelTimer timer;
+
+    /**
+     * 心跳间隔（毫秒）
+     */
+    private final long intervalMillis;
+
+    /**
+     * 空闲超时（毫秒）
+     */
+    private final long idleTimeoutMillis;
+
+    /**
+     * 回收回调，负责把连接从连接表中移除，返回连接此前是否仍在连接表中
+     */
+    private final Predicate<SseEmitterQueue> reaper;
+
+    /**
+     * 累计发送心跳数
+     */
+    private final AtomicLong heartbeatCount = new AtomicLong();
+
+    /**
+     * 累计回收连接数
+     */
+    private final AtomicLong reapedCount = new AtomicLong();
+
+    public SseHeartbeatScheduler(long intervalSeconds, long idleTimeoutSeconds, Predicate<SseEmitterQueue> reaper) {
+        this.intervalMillis = TimeUnit.SECONDS.toMillis(Math.max(intervalSeconds, 1));
+        this.idleTimeoutMillis = Math.max(TimeUnit.SECONDS.toMillis(idleTimeoutSeconds), intervalMillis);
+        this.reaper = reaper;
+        this.timer = new HashedWheelTimer(runnable -> {
+            Thread thread = new Thread(runnable, "sse-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        }, 100, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * 为连接注册心跳任务
+     *
+     * @param emitterQueue 连接的发送队列
+     */
+    public void schedule(SseEmitterQueue emitterQueue) {
+        try {
+            timer.newTimeout(new HeartbeatTask(emitterQueue), intervalMillis, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException e) {
+            // 时间轮已停止，应用正在关闭
+            log.debug("SSE心跳时间轮已停止 userId: {} token: {}", emitterQueue.getUserId(), emitterQueue.getToken());
+        }
+    }
+
+    /**
+     * 停止时间轮
+     */
+    public void stop() {
+        timer.stop();
+    }
+
+    public long getHeartbeatCount() {
+        return heartbeatCount.get();
+    }
+
+    public long getReapedCount() {
+        return reapedCount.get();
+    }
+
+    /**
+     * 单个连接的心跳任务，执行完毕后重新挂到时间轮上
+     */
+    private final class HeartbeatTask implements TimerTask {
+
+        /**
+         * 连接的发送队列
+         */
+        private final SseEmitterQueue emitterQueue;
+
+        private HeartbeatTask(SseEmitterQueue emitterQueue) {
+            this.emitterQueue = emitterQueue;
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            if (emitterQueue.isClosed()) {
+                reap();
+                return;
+            }
+            long idleMillis = System.currentTimeMillis() - emitterQueue.getLastActivityMillis();
+            if (emitterQueue.getQueueDepth() > 0 && idleMillis >= idleTimeoutMillis) {
+                log.debug("SSE连接空闲超时，回收连接 userId: {} token: {}", emitterQueue.getUserId(), emitterQueue.getToken());
+                emitterQueue.complete();
+                reap();
+                return;
+            }
+            // 一个周期内有过实际发送就不需要额外心跳
+            if (idleMillis >= intervalMillis && emitterQueue.offer(HEARTBEAT_FRAME)) {
+                heartbeatCount.incrementAndGet();
+            }
+            try {
+                timeout.timer().newTimeout(this, intervalMillis, TimeUnit.MILLISECONDS);
+            } catch (IllegalStateException ignore) {
+                // 时间轮已停止，应用正在关闭
+            }
+        }
+
+        /**
+         * 回收连接，只统计仍留在连接表中的连接
+         */
+        private void reap() {
+            if (reaper.test(emitterQueue)) {
+                reapedCount.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.sse.core;
+
+/**
+ * Description: [sse 重放事件的存储方式]
+ * Author: [mobaijun]
+ * Date: [2024/10/9 17:52]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public enum SseReplayStoreType {
+
+    /**
+     * 本机内存环形缓冲区，仅适用于单节点部署
+     * <p>
+     * 事件编号由各节点独立生成，多节点部署时客户端在其他节点重连会按错误的编号重放
+     */
+    LOCAL,
+
+    /**
+     * Redis 存储，任意节点重连都能重放
+     */
+    REDIS
+}
@@ -16,6 +16,7 @@
 package com.mobaijun.sse.listener;
 
 import com.mobaijun.sse.core.SseEmitterManager;
+import com.mobaijun.sse.core.SseEvent;
 import com.mobaijun.sse.message.SseMessage;
 import jakarta.annotation.Resource;
 import java.util.List;
@@ -49,7 +50,7 @@ public class SseTopicListener implements ApplicationRunner, Ordered {
     @Override
     public void run(ApplicationArguments args) {
         sseEmitterManager.subscribeMessage(message -> {
-            log.info("SSE主题订阅收到消息session keys={} message={}",
+            log.debug("SSE主题订阅收到消息session keys={} message={}",
                     message.getUserIds(), message.getMessage());
             sendMessageToUsers(message);
         });
@@ -66,10 +67,20 @@ public class SseTopicListener implements ApplicationRunner, Ordered {
         List<Long> userIds = message.getUserIds();
         String msgContent = message.getMessage();
 
+        // 没有事件编号的消息来自旧版本节点，按新消息处理
+        if (message.getEventId() == null) {
+            if (userIds != null && !userIds.isEmpty()) {
+                userIds.forEach(userId -> sseEmitterManager.sendMessage(userId, msgContent));
+            } else {
+                sseEmitterManager.sendMessage(msgContent);
+            }
+            return;
+        }
+        SseEvent event = new SseEvent(message.getEventId(), msgContent);
         if (userIds != null && !userIds.isEmpty()) {
-            userIds.forEach(userId -> sseEmitterManager.sendMessage(userId, msgContent));
+            userIds.forEach(userId -> sseEmitterManager.sendEvent(userId, event));
         } else {
-            sseEmitterManager.sendMessage(msgContent);
+            sseEmitterManager.sendEvent(event);
         }
     }
 
@@ -40,6 +40,11 @@ public class SseMessage implements Serializable {
      */
     private String message;
 
+    /**
+     * 事件编号，由发布节点生成，接收节点按此编号下发
+     */
+    private Long eventId;
+
     public SseMessage() {
     }
 
@@ -64,11 +69,20 @@ public class SseMessage implements Serializable {
         this.message = message;
     }
 
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
     @Override
     public String toString() {
         return "SseMessage{" +
                 "userIds=" + userIds +
                 ", message='" + message + '\'' +
+                ", eventId=" + eventId +
                 '}';
     }
 }
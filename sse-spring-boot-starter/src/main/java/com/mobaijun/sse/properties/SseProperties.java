@@ -15,6 +15,8 @@
  */
 package com.mobaijun.sse.properties;
 
+import com.mobaijun.sse.core.SseOverflowPolicy;
+import com.mobaijun.sse.core.SseReplayStoreType;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -36,6 +38,66 @@ public class SseProperties {
      */
     private String path;
 
+    /**
+     * 每个连接发送队列的容量（事件条数）
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * 发送队列已满时的处理策略
+     */
+    private SseOverflowPolicy overflowPolicy = SseOverflowPolicy.DROP_OLDEST;
+
+    /**
+     * 后台发送线程数
+     */
+    private int sendThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+    /**
+     * 每个用户保留用于断线重放的事件条数，0 表示不保留
+     */
+    private int replayCapacity = 100;
+
+    /**
+     * 重放事件的存储方式，默认 LOCAL 仅适用于单节点部署，多节点部署时使用 REDIS
+     */
+    private SseReplayStoreType replayStore = SseReplayStoreType.LOCAL;
+
+    /**
+     * 使用 REDIS 存储时每次预留的事件编号数量
+     */
+    private int replayIdBlockSize = 100;
+
+    /**
+     * 重放事件保留时长（秒）
+     */
+    private long replayRetentionSeconds = 300;
+
+    /**
+     * 心跳间隔（秒），连接在一个间隔内没有发送过事件时发送注释帧保活，0 表示不发送心跳
+     */
+    private long heartbeatIntervalSeconds = 15;
+
+    /**
+     * 空闲超时（秒），有待发送事件但超过该时长仍未成功发送的连接会被回收
+     */
+    private long idleTimeoutSeconds = 60;
+
+    /**
+     * 是否按用户所在节点定向投递消息，关闭时定向消息走全局频道广播
+     */
+    private boolean targetedDelivery = true;
+
+    /**
+     * 当前节点 id，为空时启动时随机生成
+     */
+    private String nodeId;
+
+    /**
+     * 节点存活标记的过期时间（秒）
+     */
+    private long nodeExpireSeconds = 30;
+
     public Boolean getEnabled() {
         return enabled;
     }
@@ -52,11 +114,119 @@ public class SseProperties {
         this.path = path;
     }
 
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public SseOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(SseOverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getSendThreads() {
+        return sendThreads;
+    }
+
+    public void setSendThreads(int sendThreads) {
+        this.sendThreads = sendThreads;
+    }
+
+    public int getReplayCapacity() {
+        return replayCapacity;
+    }
+
+    public void setReplayCapacity(int replayCapacity) {
+        this.replayCapacity = replayCapacity;
+    }
+
+    public SseReplayStoreType getReplayStore() {
+        return replayStore;
+    }
+
+    public void setReplayStore(SseReplayStoreType replayStore) {
+        this.replayStore = replayStore;
+    }
+
+    public int getReplayIdBlockSize() {
+        return replayIdBlockSize;
+    }
+
+    public void setReplayIdBlockSize(int replayIdBlockSize) {
+        this.replayIdBlockSize = replayIdBlockSize;
+    }
+
+    public long getReplayRetentionSeconds() {
+        return replayRetentionSeconds;
+    }
+
+    public void setReplayRetentionSeconds(long replayRetentionSeconds) {
+        this.replayRetentionSeconds = replayRetentionSeconds;
+    }
+
+    public long getHeartbeatIntervalSeconds() {
+        return heartbeatIntervalSeconds;
+    }
+
+    public void setHeartbeatIntervalSeconds(long heartbeatIntervalSeconds) {
+        this.heartbeatIntervalSeconds = heartbeatIntervalSeconds;
+    }
+
+    public long getIdleTimeoutSeconds() {
+        return idleTimeoutSeconds;
+    }
+
+    public void setIdleTimeoutSeconds(long idleTimeoutSeconds) {
+        this.idleTimeoutSeconds = idleTimeoutSeconds;
+    }
+
+    public boolean isTargetedDelivery() {
+        return targetedDelivery;
+    }
+
+    public void setTargetedDelivery(boolean targetedDelivery) {
+        this.targetedDelivery = targetedDelivery;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public long getNodeExpireSeconds() {
+        return nodeExpireSeconds;
+    }
+
+    public void setNodeExpireSeconds(long nodeExpireSeconds) {
+        this.nodeExpireSeconds = nodeExpireSeconds;
+    }
+
     @Override
     public String toString() {
         return "SseProperties{" +
                 "enabled=" + enabled +
                 ", path='" + path + '\'' +
+                ", queueCapacity=" + queueCapacity +
+                ", overflowPolicy=" + overflowPolicy +
+                ", sendThreads=" + sendThreads +
+                ", replayCapacity=" + replayCapacity +
+                ", replayStore=" + replayStore +
+                ", replayIdBlockSize=" + replayIdBlockSize +
+                ", replayRetentionSeconds=" + replayRetentionSeconds +
+                ", heartbeatIntervalSeconds=" + heartbeatIntervalSeconds +
+                ", idleTimeoutSeconds=" + idleTimeoutSeconds +
+                ", targetedDelivery=" + targetedDelivery +
+                ", nodeId='" + nodeId + '\'' +
+                ", nodeExpireSeconds=" + nodeExpireSeconds +
                 '}';
     }
 }
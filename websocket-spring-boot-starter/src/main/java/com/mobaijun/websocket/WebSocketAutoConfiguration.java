@@ -15,18 +15,22 @@
  */
 package com.mobaijun.websocket;
 
+import com.mobaijun.websocket.codec.WebSocketMessageCodec;
 import com.mobaijun.websocket.config.SockJsServiceConfigurer;
 import com.mobaijun.websocket.configuration.LocalMessageDistributorConfig;
 import com.mobaijun.websocket.configuration.RedisMessageDistributorConfig;
 import com.mobaijun.websocket.configuration.RocketMqMessageDistributorConfig;
 import com.mobaijun.websocket.configuration.WebSocketHandlerConfig;
+import com.mobaijun.websocket.configuration.WebSocketMessageCodecConfig;
 import com.mobaijun.websocket.handler.JsonMessageHandler;
 import com.mobaijun.websocket.handler.PingJsonMessageHandler;
 import com.mobaijun.websocket.hodler.JsonMessageHandlerInitializer;
+import com.mobaijun.websocket.hodler.WebSocketMessageCodecInitializer;
 import com.mobaijun.websocket.message.JsonWebSocketMessage;
 import com.mobaijun.websocket.properties.WebSocketProperties;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -52,7 +56,7 @@ import org.springframework.web.socket.server.HandshakeInterceptor;
 @RequiredArgsConstructor
 @EnableConfigurationProperties(WebSocketProperties.class)
 @Import({WebSocketHandlerConfig.class, LocalMessageDistributorConfig.class, RedisMessageDistributorConfig.class,
-        RocketMqMessageDistributorConfig.class})
+        RocketMqMessageDistributorConfig.class, WebSocketMessageCodecConfig.class})
 public class WebSocketAutoConfiguration {
 
     /**
@@ -121,4 +125,17 @@ public class WebSocketAutoConfiguration {
             List<JsonMessageHandler<? extends JsonWebSocketMessage>> jsonMessageHandlerList) {
         return new JsonMessageHandlerInitializer(jsonMessageHandlerList);
     }
+
+    /**
+     * 注册 WebSocketMessageCodecInitializer 收集所有的消息编解码器
+     *
+     * @param webSocketMessageCodecs 消息编解码器
+     * @return WebSocketMessageCodecInitializer
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public WebSocketMessageCodecInitializer webSocketMessageCodecInitializer(
+            ObjectProvider<WebSocketMessageCodec> webSocketMessageCodecs) {
+        return new WebSocketMessageCodecInitializer(webSocketMessageCodecs.orderedStream().toList());
+    }
 }
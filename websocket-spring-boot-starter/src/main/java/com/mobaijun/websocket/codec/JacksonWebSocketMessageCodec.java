@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Description: 基于 Jackson 的 WebSocket 消息编解码器
+ * <p>
+ * 传入不同 JsonFactory 的 ObjectMapper 即可支持不同格式，例如 CBORFactory 对应 CBOR 二进制格式。
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:27]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@Getter
+@RequiredArgsConstructor
+public class JacksonWebSocketMessageCodec implements WebSocketMessageCodec {
+
+    /**
+     * CBOR 子协议名称
+     */
+    public static final String CBOR = "cbor";
+
+    /**
+     * 子协议名称
+     */
+    private final String subProtocol;
+
+    /**
+     * 是否使用二进制帧传输
+     */
+    private final boolean binary;
+
+    /**
+     * 编解码使用的 ObjectMapper
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 当前编解码器对应的子协议
+     *
+     * @return 子协议名称
+     */
+    @Override
+    public String subProtocol() {
+        return this.subProtocol;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * Description: WebSocket 消息编解码器
+ * <p>
+ * 每个编解码器对应一个 WebSocket 子协议，客户端在握手时通过 {@code Sec-WebSocket-Protocol}
+ * 协商使用的编解码器；未协商子协议的 session 使用默认的 JSON 文本格式。
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:27]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public interface WebSocketMessageCodec {
+
+    /**
+     * 当前编解码器对应的子协议
+     *
+     * @return 子协议名称
+     */
+    String subProtocol();
+
+    /**
+     * 是否使用二进制帧传输
+     *
+     * @return 二进制帧返回 true，文本帧返回 false
+     */
+    boolean isBinary();
+
+    /**
+     * 编解码使用的 ObjectMapper，其底层 JsonFactory 决定了消息格式
+     *
+     * @return ObjectMapper
+     */
+    ObjectMapper getObjectMapper();
+
+    /**
+     * 将消息编码为 WebSocket 消息帧
+     *
+     * @param message 消息对象
+     * @return 消息帧
+     * @throws IOException 编码异常
+     */
+    default WebSocketMessage<?> encode(Object message) throws IOException {
+        if (isBinary()) {
+            return new BinaryMessage(getObjectMapper().writeValueAsBytes(message));
+        }
+        // 直接输出 UTF-8 字节，文本帧保留编码结果，发送时无需再次编码
+        return new TextMessage(getObjectMapper().writeValueAsBytes(message));
+    }
+}
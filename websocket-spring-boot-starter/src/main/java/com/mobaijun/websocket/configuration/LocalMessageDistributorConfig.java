@@ -16,11 +16,13 @@
 package com.mobaijun.websocket.configuration;
 
 import com.mobaijun.websocket.constant.MessageDistributorTypeConstants;
+import com.mobaijun.websocket.distribute.FanOutExecutor;
 import com.mobaijun.websocket.distribute.LocalMessageDistributor;
 import com.mobaijun.websocket.distribute.MessageDistributor;
 import com.mobaijun.websocket.properties.WebSocketProperties;
 import com.mobaijun.websocket.session.WebSocketSessionStore;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
@@ -49,11 +51,14 @@ public class LocalMessageDistributorConfig {
      * <p>此消息分发器依赖于 {@link WebSocketSessionStore} 进行 WebSocket 会话的管理，
      * 只适用于单机环境，不支持集群下的消息分发。
      *
+     * @param fanOutExecutor 可选的并行扇出执行器
      * @return 配置好的本地消息分发器实例 {@link LocalMessageDistributor}
      */
     @Bean
     @ConditionalOnMissingBean(MessageDistributor.class)
-    public LocalMessageDistributor messageDistributor() {
-        return new LocalMessageDistributor(this.webSocketSessionStore);
+    public LocalMessageDistributor messageDistributor(ObjectProvider<FanOutExecutor> fanOutExecutor) {
+        LocalMessageDistributor messageDistributor = new LocalMessageDistributor(this.webSocketSessionStore);
+        fanOutExecutor.ifAvailable(messageDistributor::setFanOutExecutor);
+        return messageDistributor;
     }
 }
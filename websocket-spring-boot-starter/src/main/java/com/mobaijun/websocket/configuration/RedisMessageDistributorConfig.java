@@ -16,12 +16,16 @@
 package com.mobaijun.websocket.configuration;
 
 import com.mobaijun.websocket.constant.MessageDistributorTypeConstants;
+import com.mobaijun.websocket.distribute.FanOutExecutor;
 import com.mobaijun.websocket.distribute.MessageDistributor;
 import com.mobaijun.websocket.distribute.RedisMessageDistributor;
 import com.mobaijun.websocket.distribute.RedisMessageListenerInitializer;
+import com.mobaijun.websocket.distribute.RedisSessionRegistry;
 import com.mobaijun.websocket.properties.WebSocketProperties;
 import com.mobaijun.websocket.session.WebSocketSessionStore;
+import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -31,6 +35,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.util.StringUtils;
 
 /**
  * Description:
@@ -54,19 +59,50 @@ public class RedisMessageDistributorConfig {
      */
     private final WebSocketSessionStore webSocketSessionStore;
 
+    /**
+     * 配置 sessionKey 与节点映射注册表。
+     *
+     * <p>记录每个 sessionKey 所在的节点，使定向消息只投递到持有目标连接的节点。
+     * 未配置节点 id 时，启动时随机生成。
+     * <p>
+     * 注册表作为 {@link com.mobaijun.websocket.session.SessionKeyListener} 会在创建 {@link WebSocketSessionStore} 时被注入，
+     * 因此声明为静态方法，不依赖持有 WebSocketSessionStore 的配置类实例，避免循环依赖。
+     *
+     * @param stringRedisTemplate Redis 操作模板，依赖注入
+     * @param webSocketProperties WebSocket 配置属性
+     * @return sessionKey 与节点映射注册表
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public static RedisSessionRegistry redisSessionRegistry(StringRedisTemplate stringRedisTemplate,
+                                                            WebSocketProperties webSocketProperties) {
+        String nodeId = webSocketProperties.getNodeId();
+        if (!StringUtils.hasText(nodeId)) {
+            nodeId = UUID.randomUUID().toString();
+        }
+        return new RedisSessionRegistry(stringRedisTemplate, nodeId, webSocketProperties.getNodeExpireSeconds());
+    }
+
     /**
      * 配置 Redis 消息分发器。
      *
      * <p>如果没有其他自定义的 {@link MessageDistributor} 实例，则会创建并返回
      * 基于 Redis 的 {@link RedisMessageDistributor}，用于在分布式环境中进行消息分发。
      *
-     * @param stringRedisTemplate Redis 操作模板，依赖注入
+     * @param stringRedisTemplate  Redis 操作模板，依赖注入
+     * @param redisSessionRegistry sessionKey 与节点映射注册表
+     * @param fanOutExecutor       可选的并行扇出执行器
      * @return 配置好的 Redis 消息分发器实例
      */
     @Bean
     @ConditionalOnMissingBean(MessageDistributor.class)
-    public RedisMessageDistributor messageDistributor(StringRedisTemplate stringRedisTemplate) {
-        return new RedisMessageDistributor(this.webSocketSessionStore, stringRedisTemplate);
+    public RedisMessageDistributor messageDistributor(StringRedisTemplate stringRedisTemplate,
+                                                      RedisSessionRegistry redisSessionRegistry,
+                                                      ObjectProvider<FanOutExecutor> fanOutExecutor) {
+        RedisMessageDistributor messageDistributor =
+                new RedisMessageDistributor(this.webSocketSessionStore, stringRedisTemplate, redisSessionRegistry);
+        fanOutExecutor.ifAvailable(messageDistributor::setFanOutExecutor);
+        return messageDistributor;
     }
 
     /**
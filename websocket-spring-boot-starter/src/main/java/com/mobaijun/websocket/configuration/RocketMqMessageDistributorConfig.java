@@ -16,12 +16,14 @@
 package com.mobaijun.websocket.configuration;
 
 import com.mobaijun.websocket.constant.MessageDistributorTypeConstants;
+import com.mobaijun.websocket.distribute.FanOutExecutor;
 import com.mobaijun.websocket.distribute.MessageDistributor;
 import com.mobaijun.websocket.distribute.RocketmqMessageDistributor;
 import com.mobaijun.websocket.properties.WebSocketProperties;
 import com.mobaijun.websocket.session.WebSocketSessionStore;
 import lombok.RequiredArgsConstructor;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
@@ -51,12 +53,17 @@ public class RocketMqMessageDistributorConfig {
      * <p>如果没有其他自定义的 {@link MessageDistributor} 实例，则会创建并返回
      * 基于 RocketMQ 的 {@link RocketmqMessageDistributor}，用于分布式环境中的消息分发。
      *
-     * @param template RocketMQ 操作模板，依赖注入
+     * @param template       RocketMQ 操作模板，依赖注入
+     * @param fanOutExecutor 可选的并行扇出执行器
      * @return 配置好的 RocketMQ 消息分发器实例
      */
     @Bean
     @ConditionalOnMissingBean(MessageDistributor.class)
-    public RocketmqMessageDistributor messageDistributor(RocketMQTemplate template) {
-        return new RocketmqMessageDistributor(this.webSocketSessionStore, template);
+    public RocketmqMessageDistributor messageDistributor(RocketMQTemplate template,
+                                                         ObjectProvider<FanOutExecutor> fanOutExecutor) {
+        RocketmqMessageDistributor messageDistributor =
+                new RocketmqMessageDistributor(this.webSocketSessionStore, template);
+        fanOutExecutor.ifAvailable(messageDistributor::setFanOutExecutor);
+        return messageDistributor;
     }
 }
@@ -15,16 +15,26 @@
  */
 package com.mobaijun.websocket.configuration;
 
+import com.mobaijun.websocket.distribute.FanOutExecutor;
 import com.mobaijun.websocket.handler.CustomWebSocketHandler;
 import com.mobaijun.websocket.handler.PlanTextMessageHandler;
 import com.mobaijun.websocket.properties.WebSocketProperties;
 import com.mobaijun.websocket.session.DefaultWebSocketSessionStore;
 import com.mobaijun.websocket.session.MapSessionWebSocketHandlerDecorator;
+import com.mobaijun.websocket.session.SendTimeWatchdog;
+import com.mobaijun.websocket.session.SessionIndexResolver;
 import com.mobaijun.websocket.session.SessionKeyGenerator;
+import com.mobaijun.websocket.session.SessionKeyListener;
 import com.mobaijun.websocket.session.WebSocketSessionStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.socket.WebSocketHandler;
 
@@ -39,6 +49,11 @@ import org.springframework.web.socket.WebSocketHandler;
 @RequiredArgsConstructor
 public class WebSocketHandlerConfig {
 
+    /**
+     * 异步发送线程池 bean 名称
+     */
+    public static final String SEND_EXECUTOR_BEAN_NAME = "webSocketSendExecutor";
+
     /**
      * WebSocket 配置属性，通过构造方法注入
      */
@@ -50,14 +65,19 @@ public class WebSocketHandlerConfig {
      * <p>如果没有其他自定义的 WebSocketSessionStore 实例被注册，则创建一个默认的会话存储器。
      * 可以通过可选的 SessionKeyGenerator 自定义会话键的生成方式。
      *
-     * @param sessionKeyGenerator 可选的会话键生成器，默认为空
+     * @param sessionKeyGenerator   可选的会话键生成器，默认为空
+     * @param sessionKeyListeners   sessionKey 上下线监听器
+     * @param sessionIndexResolvers 二级索引解析器
      * @return 默认的 WebSocket 会话存储器实例
      */
     @Bean
     @ConditionalOnMissingBean
     public WebSocketSessionStore webSocketSessionStore(
-            @Autowired(required = false) SessionKeyGenerator sessionKeyGenerator) {
-        return new DefaultWebSocketSessionStore(sessionKeyGenerator);
+            @Autowired(required = false) SessionKeyGenerator sessionKeyGenerator,
+            ObjectProvider<SessionKeyListener> sessionKeyListeners,
+            ObjectProvider<SessionIndexResolver> sessionIndexResolvers) {
+        return new DefaultWebSocketSessionStore(sessionKeyGenerator, sessionKeyListeners.orderedStream().toList(),
+                sessionIndexResolvers.orderedStream().toList());
     }
 
     /**
@@ -69,17 +89,71 @@ public class WebSocketHandlerConfig {
      *
      * @param webSocketSessionStore  WebSocket 会话存储器实例
      * @param planTextMessageHandler 可选的文本消息处理器，默认为空
+     * @param webSocketSendExecutor  可选的异步发送线程池，开启异步发送时存在
+     * @param sendTimeWatchdog       可选的发送超时检查器，开启异步发送时存在
      * @return 配置好的 WebSocket 处理器实例
      */
     @Bean
     @ConditionalOnMissingBean(WebSocketHandler.class)
     public WebSocketHandler webSocketHandler(WebSocketSessionStore webSocketSessionStore,
-                                             @Autowired(required = false) PlanTextMessageHandler planTextMessageHandler) {
+                                             @Autowired(required = false) PlanTextMessageHandler planTextMessageHandler,
+                                             @Autowired(required = false) @Qualifier(SEND_EXECUTOR_BEAN_NAME)
+                                             ExecutorService webSocketSendExecutor,
+                                             ObjectProvider<SendTimeWatchdog> sendTimeWatchdog) {
         CustomWebSocketHandler customWebSocketHandler = new CustomWebSocketHandler(planTextMessageHandler);
         if (this.webSocketProperties.isMapSession()) {
             return new MapSessionWebSocketHandlerDecorator(customWebSocketHandler, webSocketSessionStore,
-                    this.webSocketProperties.getConcurrent());
+                    this.webSocketProperties.getConcurrent(), webSocketSendExecutor, sendTimeWatchdog.getIfAvailable());
         }
         return customWebSocketHandler;
     }
+
+    /**
+     * 配置并行扇出执行器。
+     *
+     * <p>仅在开启 {@code websocket.fan-out.enabled} 时创建，消息分发器会按 session 所在通道并行发送。
+     *
+     * @return 并行扇出执行器
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = WebSocketProperties.PREFIX + ".fan-out", name = "enabled", havingValue = "true")
+    public FanOutExecutor fanOutExecutor() {
+        return new FanOutExecutor(this.webSocketProperties.getFanOut());
+    }
+
+    /**
+     * 配置异步发送队列的后台发送线程池。
+     *
+     * <p>仅在开启 {@code websocket.concurrent.async-send} 时创建，所有 session 共享该线程池，
+     * 每个 session 同一时刻最多占用一个线程。
+     *
+     * @return 后台发送线程池
+     */
+    @Bean(name = SEND_EXECUTOR_BEAN_NAME, destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = SEND_EXECUTOR_BEAN_NAME)
+    @ConditionalOnProperty(prefix = WebSocketProperties.PREFIX + ".concurrent", name = "async-send", havingValue = "true")
+    public ExecutorService webSocketSendExecutor() {
+        int threads = Math.max(this.webSocketProperties.getConcurrent().getSendThreads(), 1);
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "websocket-send-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 配置异步发送队列的发送超时检查器。
+     *
+     * <p>仅在开启 {@code websocket.concurrent.async-send} 时创建，检查线程随容器关闭而停止。
+     *
+     * @return 发送超时检查器
+     */
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = WebSocketProperties.PREFIX + ".concurrent", name = "async-send", havingValue = "true")
+    public SendTimeWatchdog sendTimeWatchdog() {
+        return new SendTimeWatchdog();
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.configuration;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.mobaijun.websocket.codec.JacksonWebSocketMessageCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Description: 二进制消息编解码器配置类
+ * <p>当 classpath 中存在 jackson-dataformat-cbor 时，注册子协议为 {@code cbor} 的二进制编解码器，
+ * 客户端握手时携带 {@code Sec-WebSocket-Protocol: cbor} 即可使用 CBOR 二进制帧收发消息。
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:25]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(CBORFactory.class)
+public class WebSocketMessageCodecConfig {
+
+    /**
+     * 配置 CBOR 二进制编解码器。
+     *
+     * @return CBOR 编解码器
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "cborWebSocketMessageCodec")
+    public JacksonWebSocketMessageCodec cborWebSocketMessageCodec() {
+        ObjectMapper mapper = new ObjectMapper(new CBORFactory())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return new JacksonWebSocketMessageCodec(JacksonWebSocketMessageCodec.CBOR, true, mapper);
+    }
+}
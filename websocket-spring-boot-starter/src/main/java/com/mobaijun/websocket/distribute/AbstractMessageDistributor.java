@@ -16,9 +16,12 @@
 package com.mobaijun.websocket.distribute;
 
 import com.mobaijun.websocket.dto.MessageDTO;
-import com.mobaijun.websocket.message.WebSocketMessageSender;
 import com.mobaijun.websocket.session.WebSocketSessionStore;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.socket.WebSocketSession;
@@ -42,6 +45,12 @@ public abstract class AbstractMessageDistributor implements MessageDistributor {
      */
     private final WebSocketSessionStore webSocketSessionStore;
 
+    /**
+     * 并行扇出执行器，为空时在调用线程串行发送
+     */
+    @Setter
+    private FanOutExecutor fanOutExecutor;
+
     /**
      * 构造一个 {@code AbstractMessageDistributor} 实例，并指定
      * {@link WebSocketSessionStore}。
@@ -59,10 +68,21 @@ public abstract class AbstractMessageDistributor implements MessageDistributor {
 
     /**
      * 对当前服务中的 websocket 连接做消息推送
+     * <p>
+     * 配置了 {@link FanOutExecutor} 时，消息在发送线程池中并行发送，本方法不会阻塞调用线程；
+     * 发送异常以及存在失败 session 时会记录日志，调用方无需处理返回结果。
      *
      * @param messageDO 消息实体
+     * @return 发送结果
      */
-    protected void doSend(MessageDTO messageDO) {
+    protected CompletableFuture<FanOutResult> doSend(MessageDTO messageDO) {
+        // 按二级索引发送，直接遍历索引快照，无需扫描全部 session
+        if (messageDO.getIndexName() != null && !Boolean.TRUE.equals(messageDO.getNeedBroadcast())) {
+            Collection<WebSocketSession> indexed = this.webSocketSessionStore.getSessionsByIndex(
+                    messageDO.getIndexName(), messageDO.getIndexValue());
+            return send(messageDO, new ArrayList<>(indexed));
+        }
+
         // 是否广播发送
         Boolean needBroadcast = messageDO.getNeedBroadcast();
 
@@ -75,25 +95,51 @@ public abstract class AbstractMessageDistributor implements MessageDistributor {
         }
         if (CollectionUtils.isEmpty(sessionKeys)) {
             log.warn("发送 websocket 消息，却没有找到对应 sessionKeys, messageDo: {}", messageDO);
-            return;
+            return CompletableFuture.completedFuture(FanOutResult.EMPTY);
         }
 
-        String messageText = messageDO.getMessageText();
         Boolean onlyOneClientInSameKey = messageDO.getOnlyOneClientInSameKey();
-        // 遍历 sessionKeys，发送消息
+        // 遍历 sessionKeys，收集目标 session
+        List<WebSocketSession> targets = new ArrayList<>(sessionKeys.size());
         for (Object sessionKey : sessionKeys) {
             Collection<WebSocketSession> sessions = this.webSocketSessionStore.getSessions(sessionKey);
             if (!CollectionUtils.isEmpty(sessions)) {
                 // 相同 sessionKey 的客户端只推送一次操作
                 if (onlyOneClientInSameKey != null && onlyOneClientInSameKey) {
-                    WebSocketSession wsSession = sessions.iterator().next();
-                    WebSocketMessageSender.send(wsSession, messageText);
+                    targets.add(sessions.iterator().next());
                     continue;
                 }
-                for (WebSocketSession wsSession : sessions) {
-                    WebSocketMessageSender.send(wsSession, messageText);
-                }
+                targets.addAll(sessions);
             }
         }
+
+        return send(messageDO, targets);
+    }
+
+    /**
+     * 将消息发送给目标 session
+     *
+     * @param messageDO 消息实体
+     * @param targets   目标 session
+     * @return 发送结果
+     */
+    private CompletableFuture<FanOutResult> send(MessageDTO messageDO, List<WebSocketSession> targets) {
+        // 消息帧按编解码器只编码一次，协商了相同子协议的 session 共享同一个消息帧
+        MessageFrames frames = new MessageFrames(messageDO.getMessageText());
+        String coalesceKey = messageDO.getCoalesceKey();
+        CompletableFuture<FanOutResult> future;
+        if (this.fanOutExecutor != null) {
+            future = this.fanOutExecutor.execute(targets, frames, coalesceKey);
+        } else {
+            future = CompletableFuture.completedFuture(FanOutExecutor.sendShard(targets, frames, coalesceKey));
+        }
+        return future.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                log.error("发送 websocket 消息异常, messageDo: {}", messageDO, throwable);
+            } else if (result.failed() > 0 || result.rejected() > 0) {
+                log.warn("发送 websocket 消息部分失败, 成功: {}, 失败: {}, 跳过: {}, 通道已满: {}, messageDo: {}",
+                        result.succeeded(), result.failed(), result.skipped(), result.rejected(), messageDO);
+            }
+        });
     }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.distribute;
+
+import com.mobaijun.websocket.message.WebSocketMessageSender;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Description: 并行扇出执行器
+ * <p>
+ * 发送线程池由若干单线程通道组成，每个 session 按 id 固定落在同一个通道上：
+ * 同一个 session 的消息始终按提交顺序串行发送，也不会被多个线程同时调用 sendMessage；
+ * 不同通道之间并行发送。发送完成后通过 {@link CompletableFuture} 返回成功、失败、跳过的数量。
+ * <p>
+ * 每个通道的任务队列有界，未开启异步发送队列的 session 卡住时只会占满所在通道，
+ * 此后落在该通道上的 session 直接计入 {@link FanOutResult#rejected()}，不会无限堆积内存。
+ * 建议同时开启异步发送队列，使单个慢连接不占用通道线程。
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:26]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public class FanOutExecutor {
+
+    /**
+     * 发送通道，每个通道一个线程
+     */
+    private final ExecutorService[] lanes;
+
+    /**
+     * 构造函数
+     *
+     * @param options 并行扇出配置
+     */
+    public FanOutExecutor(FanOutOptions options) {
+        this.lanes = new ExecutorService[Math.max(options.getParallelism(), 1)];
+        for (int i = 0; i < this.lanes.length; i++) {
+            String name = "websocket-fan-out-" + (i + 1);
+            this.lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(options.getQueueCapacity(), 1)), runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * 将同一个消息并行发送给所有目标 session
+     *
+     * @param sessions    目标 session
+     * @param frames      按编解码器缓存的消息帧
+     * @param coalesceKey 合并标识，为空不合并
+     * @return 发送结果
+     */
+    public CompletableFuture<FanOutResult> execute(List<WebSocketSession> sessions, MessageFrames frames,
+                                                   String coalesceKey) {
+        if (sessions.isEmpty()) {
+            return CompletableFuture.completedFuture(FanOutResult.EMPTY);
+        }
+        // 按 session 所在通道分组
+        List<List<WebSocketSession>> groups = new ArrayList<>(this.lanes.length);
+        for (int i = 0; i < this.lanes.length; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (WebSocketSession session : sessions) {
+            int lane = session == null ? 0 : Math.floorMod(session.getId().hashCode(), this.lanes.length);
+            groups.get(lane).add(session);
+        }
+
+        CompletableFuture<FanOutResult> result = CompletableFuture.completedFuture(FanOutResult.EMPTY);
+        for (int i = 0; i < this.lanes.length; i++) {
+            List<WebSocketSession> group = groups.get(i);
+            if (group.isEmpty()) {
+                continue;
+            }
+            CompletableFuture<FanOutResult> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> sendShard(group, frames, coalesceKey), this.lanes[i]);
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.completedFuture(FanOutResult.rejected(group.size()));
+            }
+            result = result.thenCombine(future, FanOutResult::merge);
+        }
+        return result;
+    }
+
+    /**
+     * 在当前线程串行发送
+     *
+     * @param sessions    目标 session
+     * @param frames      按编解码器缓存的消息帧
+     * @param coalesceKey 合并标识，为空不合并
+     * @return 发送结果
+     */
+    public static FanOutResult sendShard(List<WebSocketSession> sessions, MessageFrames frames,
+                                         String coalesceKey) {
+        int succeeded = 0;
+        int failed = 0;
+        int skipped = 0;
+        for (WebSocketSession session : sessions) {
+            if (session == null || !session.isOpen()) {
+                skipped++;
+            } else if (WebSocketMessageSender.send(session, frames.frameFor(session), coalesceKey)) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+        }
+        return new FanOutResult(succeeded, failed, skipped, 0);
+    }
+
+    /**
+     * 关闭发送线程池
+     */
+    public void shutdown() {
+        for (ExecutorService lane : this.lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.distribute;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Description: 并行扇出配置类
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:26]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@Getter
+@Setter
+@ToString
+public class FanOutOptions {
+
+    /**
+     * 是否开启并行扇出，开启后消息分发不再阻塞调用线程
+     */
+    private boolean enabled = false;
+
+    /**
+     * 发送通道数，即一次扇出最多同时占用的发送线程数；同一个 session 始终使用同一个通道
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 每个发送通道最多排队的扇出任务数，队列已满时该通道上的 session 本次不发送，计入 {@link FanOutResult#rejected()}
+     */
+    private int queueCapacity = 1024;
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.distribute;
+
+/**
+ * Description: 一次消息扇出的发送结果
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:26]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ *
+ * @param succeeded 发送成功的 session 数
+ * @param failed    发送失败的 session 数
+ * @param skipped   已关闭而跳过的 session 数
+ * @param rejected  发送通道队列已满而未发送的 session 数
+ */
+public record FanOutResult(int succeeded, int failed, int skipped, int rejected) {
+
+    /**
+     * 空结果
+     */
+    public static final FanOutResult EMPTY = new FanOutResult(0, 0, 0, 0);
+
+    /**
+     * 合并两个发送结果
+     *
+     * @param other 另一个发送结果
+     * @return 合并后的发送结果
+     */
+    public FanOutResult merge(FanOutResult other) {
+        return new FanOutResult(this.succeeded + other.succeeded, this.failed + other.failed,
+                this.skipped + other.skipped, this.rejected + other.rejected);
+    }
+
+    /**
+     * 发送通道队列已满时的结果
+     *
+     * @param rejected 未发送的 session 数
+     * @return 发送结果
+     */
+    public static FanOutResult rejected(int rejected) {
+        return new FanOutResult(0, 0, 0, rejected);
+    }
+
+    /**
+     * 本次扇出的目标 session 总数
+     *
+     * @return 目标 session 总数
+     */
+    public int total() {
+        return this.succeeded + this.failed + this.skipped + this.rejected;
+    }
+}
@@ -17,6 +17,7 @@ package com.mobaijun.websocket.distribute;
 
 import com.mobaijun.websocket.dto.MessageDTO;
 import com.mobaijun.websocket.session.WebSocketSessionStore;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Description:
@@ -55,4 +56,15 @@ public class LocalMessageDistributor extends AbstractMessageDistributor {
     public void distribute(MessageDTO messageDO) {
         doSend(messageDO);
     }
+
+    /**
+     * 分发消息到 WebSocket 会话，并返回发送结果。
+     *
+     * @param messageDO 需要发送的消息对象。
+     * @return 发送结果
+     */
+    @Override
+    public CompletableFuture<FanOutResult> distributeAsync(MessageDTO messageDO) {
+        return doSend(messageDO);
+    }
 }
@@ -16,6 +16,7 @@
 package com.mobaijun.websocket.distribute;
 
 import com.mobaijun.websocket.dto.MessageDTO;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Description: 消息分发器接口
@@ -32,4 +33,18 @@ public interface MessageDistributor {
      * @param messageDO 发送的消息，包含消息的详细信息
      */
     void distribute(MessageDTO messageDO);
+
+    /**
+     * 消息分发，并返回本节点的发送结果
+     * <p>
+     * 返回的结果只统计当前节点持有的 session，投递到其他节点的部分不在统计范围内；
+     * 默认实现不统计发送结果，分发后直接返回空结果。
+     *
+     * @param messageDO 发送的消息，包含消息的详细信息
+     * @return 本节点的发送结果
+     */
+    default CompletableFuture<FanOutResult> distributeAsync(MessageDTO messageDO) {
+        distribute(messageDO);
+        return CompletableFuture.completedFuture(FanOutResult.EMPTY);
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.distribute;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mobaijun.json.util.JsonUtil;
+import com.mobaijun.websocket.codec.WebSocketMessageCodec;
+import com.mobaijun.websocket.hodler.WebSocketMessageCodecHolder;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Description: 一次分发中按编解码器缓存的消息帧
+ * <p>
+ * 未协商子协议的 session 共享同一个 JSON 文本帧；协商了子协议的 session 按编解码器各编码一次，
+ * 同一编解码器的 session 共享同一个消息帧。消息文本不是合法 JSON 时，所有 session 都使用文本帧。
+ * <p>
+ * 文本帧由预先编码好的 UTF-8 字节构造，{@link TextMessage#asBytes()} 与 {@link TextMessage#getPayloadLength()}
+ * 直接返回共享的字节，不会按 session 重复编码。注意标准 JSR-356 适配器通过 {@code sendText(String)} 写出文本帧，
+ * 容器仍会在每个连接上各自完成 UTF-8 编码，这部分开销只能通过二进制子协议（共享同一个字节数组）避免。
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:26]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@Slf4j
+public class MessageFrames {
+
+    /**
+     * 消息文本
+     */
+    private final String messageText;
+
+    /**
+     * 默认的 JSON 文本帧
+     */
+    private final TextMessage textMessage;
+
+    /**
+     * 子协议 -> 消息帧，编码失败时为 empty
+     */
+    private final Map<String, Optional<WebSocketMessage<?>>> codecFrames = new ConcurrentHashMap<>();
+
+    /**
+     * 解析后的消息，延迟到第一次遇到协商了子协议的 session 时解析
+     */
+    private volatile JsonNode tree;
+
+    /**
+     * 消息文本是否已解析失败
+     */
+    private volatile boolean notJson;
+
+    public MessageFrames(String messageText) {
+        this.messageText = messageText;
+        this.textMessage = new TextMessage(messageText.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 获取 session 对应的消息帧
+     *
+     * @param session 目标 session
+     * @return 消息帧
+     */
+    public WebSocketMessage<?> frameFor(WebSocketSession session) {
+        WebSocketMessageCodec codec = WebSocketMessageCodecHolder.getCodec(session);
+        if (codec == null) {
+            return this.textMessage;
+        }
+        return this.codecFrames.computeIfAbsent(codec.subProtocol(), protocol -> encode(codec))
+                .orElse(this.textMessage);
+    }
+
+    /**
+     * 使用编解码器编码消息
+     *
+     * @param codec 编解码器
+     * @return 消息帧，无法编码时为 empty
+     */
+    private Optional<WebSocketMessage<?>> encode(WebSocketMessageCodec codec) {
+        JsonNode node = tree();
+        if (node == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(codec.encode(node));
+        } catch (IOException e) {
+            log.error("消息编码({}) 异常，使用文本帧发送", codec.subProtocol(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 解析消息文本
+     *
+     * @return 解析结果，不是合法 JSON 时返回 null
+     */
+    private JsonNode tree() {
+        if (this.tree == null && !this.notJson) {
+            synchronized (this) {
+                if (this.tree == null && !this.notJson) {
+                    try {
+                        this.tree = JsonUtil.getObjectMapper().readTree(this.messageText);
+                    } catch (IOException e) {
+                        this.notJson = true;
+                        log.debug("消息文本不是 JSON，协商了子协议的 session 也使用文本帧发送");
+                    }
+                }
+            }
+        }
+        return this.tree;
+    }
+}
@@ -19,14 +19,22 @@ import com.mobaijun.json.util.JsonUtil;
 import com.mobaijun.websocket.dto.MessageDTO;
 import com.mobaijun.websocket.session.WebSocketSessionStore;
 import io.micrometer.common.lang.NonNull;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.CollectionUtils;
 
 /**
  * Description: Redis 消息分发器
+ * <p>
+ * 广播消息通过全局频道 {@link #CHANNEL} 发送；定向消息借助 {@link RedisSessionRegistry}
+ * 找到持有目标 sessionKey 的节点，仅投递到这些节点各自的频道。
  * Author: [mobaijun]
  * Date: [2024/8/23 9:26]
  * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
@@ -44,53 +52,128 @@ public class RedisMessageDistributor extends AbstractMessageDistributor implemen
      */
     private final StringRedisTemplate stringRedisTemplate;
 
+    /**
+     * sessionKey 与节点映射注册表
+     */
+    private final RedisSessionRegistry redisSessionRegistry;
+
+    /**
+     * 当前节点的定向频道名称
+     */
+    @Getter
+    private final String nodeChannel;
+
     /**
      * 构造函数
      *
      * @param webSocketSessionStore WebSocket 会话存储，用于管理会话
      * @param stringRedisTemplate   Redis 操作模板，用于发送消息
+     * @param redisSessionRegistry  sessionKey 与节点映射注册表
      */
     public RedisMessageDistributor(WebSocketSessionStore webSocketSessionStore,
-                                   StringRedisTemplate stringRedisTemplate) {
+                                   StringRedisTemplate stringRedisTemplate,
+                                   RedisSessionRegistry redisSessionRegistry) {
         super(webSocketSessionStore);
         this.stringRedisTemplate = stringRedisTemplate;
+        this.redisSessionRegistry = redisSessionRegistry;
+        this.nodeChannel = nodeChannel(redisSessionRegistry.getNodeId());
+    }
+
+    /**
+     * 获取指定节点的定向频道名称
+     *
+     * @param nodeId 节点 id
+     * @return 频道名称
+     */
+    public static String nodeChannel(String nodeId) {
+        return CHANNEL + ":" + nodeId;
     }
 
     /**
      * 消息分发
      * <p>
-     * 将消息对象序列化为 JSON 字符串，并通过 Redis 频道进行分发。
+     * 广播消息序列化后发送到全局频道；定向消息按持有节点分组，本节点直接发送，其他节点投递到各自的频道。
      *
      * @param messageDO 发送的消息对象
      */
     @Override
     public void distribute(MessageDTO messageDO) {
+        distributeAsync(messageDO);
+    }
+
+    /**
+     * 消息分发，并返回本节点的发送结果
+     * <p>
+     * 经频道投递的部分由接收节点发送，不计入返回结果。
+     *
+     * @param messageDO 发送的消息对象
+     * @return 本节点的发送结果
+     */
+    @Override
+    public CompletableFuture<FanOutResult> distributeAsync(MessageDTO messageDO) {
+        // 广播以及按二级索引发送的消息，各节点都可能持有目标 session，走全局频道
+        if (Boolean.TRUE.equals(messageDO.getNeedBroadcast()) || messageDO.getIndexName() != null) {
+            publish(CHANNEL, messageDO);
+            return CompletableFuture.completedFuture(FanOutResult.EMPTY);
+        }
+        if (CollectionUtils.isEmpty(messageDO.getSessionKeys())) {
+            log.warn("发送 websocket 消息，却没有找到对应 sessionKeys, messageDo: {}", messageDO);
+            return CompletableFuture.completedFuture(FanOutResult.EMPTY);
+        }
+
+        Map<String, List<Object>> routes = this.redisSessionRegistry.route(messageDO.getSessionKeys());
+        String localNodeId = this.redisSessionRegistry.getNodeId();
+        CompletableFuture<FanOutResult> result = CompletableFuture.completedFuture(FanOutResult.EMPTY);
+        for (Map.Entry<String, List<Object>> route : routes.entrySet()) {
+            MessageDTO nodeMessage = new MessageDTO()
+                    .setNeedBroadcast(false)
+                    .setOnlyOneClientInSameKey(messageDO.getOnlyOneClientInSameKey())
+                    .setSessionKeys(route.getValue())
+                    .setMessageText(messageDO.getMessageText())
+                    .setCoalesceKey(messageDO.getCoalesceKey());
+            if (localNodeId.equals(route.getKey())) {
+                result = result.thenCombine(doSend(nodeMessage), FanOutResult::merge);
+            } else {
+                publish(nodeChannel(route.getKey()), nodeMessage);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 将消息序列化为 JSON 字符串并发送到指定频道
+     *
+     * @param channel   频道名称
+     * @param messageDO 发送的消息对象
+     */
+    private void publish(String channel, MessageDTO messageDO) {
         // 将消息对象转换为 JSON 字符串
         String str = JsonUtil.toJsonString(messageDO);
         assert str != null; // 确保转换结果不为空
         // 通过 Redis 频道将消息发送出去
-        this.stringRedisTemplate.convertAndSend(CHANNEL, str);
+        this.stringRedisTemplate.convertAndSend(channel, str);
     }
 
     /**
      * 处理从 Redis 频道接收到的消息
      * <p>
-     * 当接收到 Redis 频道的消息时，进行处理。
+     * 当接收到全局频道或当前节点频道的消息时，进行处理。
      *
      * @param message Redis 消息对象
      * @param bytes   消息体的字节数组
      */
     @Override
     public void onMessage(@NonNull Message message, byte[] bytes) {
-        log.info("redis channel Listener message send {}", message);
-
         // 反序列化 Redis 频道名称
         byte[] channelBytes = message.getChannel();
         RedisSerializer<String> stringSerializer = this.stringRedisTemplate.getStringSerializer();
         String channel = stringSerializer.deserialize(channelBytes);
 
         // 仅处理匹配的频道
-        if (CHANNEL.equals(channel)) {
+        if (CHANNEL.equals(channel) || this.nodeChannel.equals(channel)) {
+            if (log.isDebugEnabled()) {
+                log.debug("redis channel Listener message send {}", message);
+            }
             // 反序列化消息体
             byte[] bodyBytes = message.getBody();
             String body = stringSerializer.deserialize(bodyBytes);
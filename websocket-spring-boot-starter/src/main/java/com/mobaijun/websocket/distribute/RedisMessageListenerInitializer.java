@@ -16,7 +16,9 @@
 package com.mobaijun.websocket.distribute;
 
 import jakarta.annotation.PostConstruct;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.PatternTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
@@ -43,14 +45,15 @@ public class RedisMessageListenerInitializer {
      * 在类初始化后添加消息监听器
      * <p>
      * 使用 @PostConstruct 注解的方法将在类实例化并注入依赖之后调用。该方法将 Redis 消息分发器
-     * 注册到 Redis 消息监听容器中，以便它能够监听指定的 Redis 频道并处理接收到的消息。
+     * 注册到 Redis 消息监听容器中，以便它能够监听全局广播频道以及当前节点的定向频道并处理接收到的消息。
      */
     @PostConstruct
     public void addMessageListener() {
         // 将 Redis 消息分发器注册到 Redis 消息监听容器中，并指定监听的频道
         this.redisMessageListenerContainer.addMessageListener(
                 this.redisWebsocketMessageListener,
-                new PatternTopic(RedisMessageDistributor.CHANNEL)
+                List.of(new PatternTopic(RedisMessageDistributor.CHANNEL),
+                        new ChannelTopic(this.redisWebsocketMessageListener.getNodeChannel()))
         );
     }
 }
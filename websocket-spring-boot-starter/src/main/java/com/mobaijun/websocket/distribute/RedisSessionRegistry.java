@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.distribute;
+
+import com.mobaijun.websocket.session.SessionKeyListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Description: 基于 Redis 的 sessionKey 与节点映射注册表
+ * <p>
+ * 每个 sessionKey 对应一个 Redis Set，记录持有该 sessionKey 连接的节点 id；
+ * 每个节点定时续期自己的存活标记，存活标记过期的节点视为宕机，
+ * 在路由时会被惰性地从 Set 中剔除。
+ * 上下线回调只更新本地状态，Redis 登记交给续期线程按提交顺序执行，不在连接存储器的锁内访问 Redis。
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:26]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@Slf4j
+public class RedisSessionRegistry implements SessionKeyListener {
+
+    /**
+     * sessionKey -> 节点 id 集合 的 key 前缀
+     */
+    public static final String SESSION_KEY_PREFIX = "websocket:registry:session:";
+
+    /**
+     * 节点存活标记的 key 前缀
+     */
+    public static final String NODE_KEY_PREFIX = "websocket:registry:node:";
+
+    /**
+     * StringRedisTemplate 实例，用于操作 Redis
+     */
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 当前节点 id
+     */
+    @Getter
+    private final String nodeId;
+
+    /**
+     * 节点存活标记的过期时间
+     */
+    private final Duration nodeExpire;
+
+    /**
+     * 当前节点已注册的 sessionKey，用于 Redis 数据丢失后的重新注册以及下线清理
+     */
+    private final Set<String> localSessionKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 下线时未能从 Redis 移除的 sessionKey，由续期线程补偿
+     */
+    private final Set<String> pendingOfflineKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 是否有上线登记失败，需要由续期线程重新登记全部 sessionKey
+     */
+    private volatile boolean resyncRequired;
+
+    /**
+     * 节点存活标记续期线程，同时负责上下线登记
+     */
+    private volatile ScheduledExecutorService heartbeatExecutor;
+
+    /**
+     * 构造函数
+     *
+     * @param stringRedisTemplate Redis 操作模板
+     * @param nodeId              当前节点 id
+     * @param nodeExpireSeconds   节点存活标记的过期时间（s）
+     */
+    public RedisSessionRegistry(StringRedisTemplate stringRedisTemplate, String nodeId, int nodeExpireSeconds) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.nodeId = nodeId;
+        this.nodeExpire = Duration.ofSeconds(Math.max(nodeExpireSeconds, 3));
+    }
+
+    /**
+     * 注册节点存活标记并开启定时续期
+     */
+    @PostConstruct
+    public void start() {
+        this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "websocket-registry-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = this.nodeExpire.toMillis() / 3;
+        this.heartbeatExecutor.scheduleAtFixedRate(this::heartbeat, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 节点下线时清理当前节点的所有注册信息
+     */
+    @PreDestroy
+    public void stop() {
+        if (this.heartbeatExecutor != null) {
+            this.heartbeatExecutor.shutdownNow();
+        }
+        try {
+            byte[] member = this.nodeId.getBytes(StandardCharsets.UTF_8);
+            this.stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String sessionKey : this.localSessionKeys) {
+                    connection.setCommands().sRem(sessionRegistryKey(sessionKey), member);
+                }
+                connection.keyCommands().del(nodeKey(this.nodeId).getBytes(StandardCharsets.UTF_8));
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("清理 websocket 节点注册信息失败, nodeId: {}", this.nodeId, e);
+        }
+        this.localSessionKeys.clear();
+    }
+
+    /**
+     * 续期当前节点的存活标记
+     * <p>
+     * 若存活标记不存在（首次启动、续期中断后已被判定宕机或 Redis 数据丢失），或上下线登记曾经失败，
+     * 则先补偿移除下线失败的 sessionKey，再重新注册当前节点持有的全部 sessionKey。
+     * 重新注册在补偿移除之后执行，即使期间同一 sessionKey 重新上线也不会被误删。
+     */
+    void heartbeat() {
+        try {
+            String nodeKey = nodeKey(this.nodeId);
+            Boolean absent = this.stringRedisTemplate.opsForValue().setIfAbsent(nodeKey, this.nodeId, this.nodeExpire);
+            boolean resync = Boolean.TRUE.equals(absent) || this.resyncRequired || !this.pendingOfflineKeys.isEmpty();
+            if (!Boolean.TRUE.equals(absent)) {
+                this.stringRedisTemplate.expire(nodeKey, this.nodeExpire);
+            }
+            if (resync) {
+                this.resyncRequired = false;
+                List<String> offlineKeys = new ArrayList<>(this.pendingOfflineKeys);
+                byte[] member = this.nodeId.getBytes(StandardCharsets.UTF_8);
+                this.stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (String sessionKey : offlineKeys) {
+                        connection.setCommands().sRem(sessionRegistryKey(sessionKey), member);
+                    }
+                    for (String sessionKey : this.localSessionKeys) {
+                        connection.setCommands().sAdd(sessionRegistryKey(sessionKey), member);
+                    }
+                    return null;
+                });
+                offlineKeys.forEach(this.pendingOfflineKeys::remove);
+            }
+        } catch (Exception e) {
+            this.resyncRequired = true;
+            log.warn("websocket 节点存活标记续期失败, nodeId: {}", this.nodeId, e);
+        }
+    }
+
+    /**
+     * sessionKey 在当前节点上线，异步登记到注册表
+     *
+     * @param sessionKey session 唯一标识
+     */
+    @Override
+    public void onSessionKeyOnline(Object sessionKey) {
+        String key = String.valueOf(sessionKey);
+        this.localSessionKeys.add(key);
+        submitSync(key);
+    }
+
+    /**
+     * sessionKey 在当前节点下线，异步从注册表移除
+     *
+     * @param sessionKey session 唯一标识
+     */
+    @Override
+    public void onSessionKeyOffline(Object sessionKey) {
+        String key = String.valueOf(sessionKey);
+        this.localSessionKeys.remove(key);
+        submitSync(key);
+    }
+
+    /**
+     * 提交 sessionKey 的登记同步任务
+     * <p>
+     * 同步任务在单线程的续期线程中按提交顺序执行，执行时按 sessionKey 的最新状态登记或移除，
+     * 同一 sessionKey 快速上下线时 Redis 中的结果与本地状态一致。续期线程未启动或已关闭时在当前线程执行。
+     *
+     * @param sessionKey session 唯一标识
+     */
+    private void submitSync(String sessionKey) {
+        ScheduledExecutorService executor = this.heartbeatExecutor;
+        if (executor != null) {
+            try {
+                executor.execute(() -> sync(sessionKey));
+                return;
+            } catch (RejectedExecutionException e) {
+                log.debug("续期线程已关闭，直接同步 sessionKey: {}", sessionKey);
+            }
+        }
+        sync(sessionKey);
+    }
+
+    /**
+     * 按 sessionKey 的当前状态同步注册表
+     * <p>
+     * Redis 不可用时只记录日志，不影响连接，由续期线程重新登记或补偿移除。
+     *
+     * @param sessionKey session 唯一标识
+     */
+    private void sync(String sessionKey) {
+        boolean online = this.localSessionKeys.contains(sessionKey);
+        try {
+            if (online) {
+                this.pendingOfflineKeys.remove(sessionKey);
+                this.stringRedisTemplate.opsForSet().add(SESSION_KEY_PREFIX + sessionKey, this.nodeId);
+            } else {
+                this.stringRedisTemplate.opsForSet().remove(SESSION_KEY_PREFIX + sessionKey, this.nodeId);
+            }
+        } catch (Exception e) {
+            if (online) {
+                this.resyncRequired = true;
+                log.warn("登记 sessionKey 失败，等待续期时重新登记, sessionKey: {}", sessionKey, e);
+            } else {
+                this.pendingOfflineKeys.add(sessionKey);
+                log.warn("移除 sessionKey 登记失败，等待续期时补偿, sessionKey: {}", sessionKey, e);
+            }
+        }
+    }
+
+    /**
+     * 按持有节点对 sessionKeys 进行分组
+     * <p>
+     * 不在任何存活节点上的 sessionKey 会被忽略，已宕机节点的登记信息会被顺带清理。
+     *
+     * @param sessionKeys 待发送的 sessionKeys
+     * @return 节点 id -> 该节点持有的 sessionKeys
+     */
+    public Map<String, List<Object>> route(Collection<Object> sessionKeys) {
+        List<Object> keys = new ArrayList<>(sessionKeys);
+        List<Object> members = this.stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Object sessionKey : keys) {
+                connection.setCommands().sMembers(sessionRegistryKey(String.valueOf(sessionKey)));
+            }
+            return null;
+        });
+
+        Map<String, Boolean> aliveNodes = new HashMap<>();
+        Map<String, List<Object>> routes = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            Object sessionKey = keys.get(i);
+            if (!(members.get(i) instanceof Collection<?> nodeIds)) {
+                continue;
+            }
+            for (Object node : nodeIds) {
+                String nodeId = String.valueOf(node);
+                if (aliveNodes.computeIfAbsent(nodeId, this::isAlive)) {
+                    routes.computeIfAbsent(nodeId, k -> new ArrayList<>()).add(sessionKey);
+                } else {
+                    this.stringRedisTemplate.opsForSet().remove(SESSION_KEY_PREFIX + sessionKey, nodeId);
+                    log.debug("移除已下线节点 {} 上的 sessionKey: {}", nodeId, sessionKey);
+                }
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * 判断节点是否存活
+     *
+     * @param nodeId 节点 id
+     * @return 存活返回 true
+     */
+    private boolean isAlive(String nodeId) {
+        if (this.nodeId.equals(nodeId)) {
+            return true;
+        }
+        return Boolean.TRUE.equals(this.stringRedisTemplate.hasKey(nodeKey(nodeId)));
+    }
+
+    /**
+     * 节点存活标记的 key
+     *
+     * @param nodeId 节点 id
+     * @return redis key
+     */
+    private static String nodeKey(String nodeId) {
+        return NODE_KEY_PREFIX + nodeId;
+    }
+
+    /**
+     * sessionKey 对应的注册表 key
+     *
+     * @param sessionKey session 唯一标识
+     * @return redis key 字节数组
+     */
+    private static byte[] sessionRegistryKey(String sessionKey) {
+        return (SESSION_KEY_PREFIX + sessionKey).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -48,6 +48,16 @@ public class MessageDTO implements Serializable {
      */
     private Boolean onlyOneClientInSameKey;
 
+    /**
+     * 按二级索引发送时的索引名称，例如 group、tenant、topic，设置后忽略 sessionKeys 与 onlyOneClientInSameKey
+     */
+    private String indexName;
+
+    /**
+     * 按二级索引发送时的索引值，跨节点分发时经过 JSON 序列化，建议使用字符串
+     */
+    private Object indexValue;
+
     /**
      * 需要发送的 sessionKeys 集合，当广播时，不需要
      */
@@ -57,4 +67,9 @@ public class MessageDTO implements Serializable {
      * 需要发送的消息文本
      */
     private String messageText;
+
+    /**
+     * 合并标识，开启异步发送队列时，同一 session 中相同标识的待发送消息仅保留最新一条
+     */
+    private String coalesceKey;
 }
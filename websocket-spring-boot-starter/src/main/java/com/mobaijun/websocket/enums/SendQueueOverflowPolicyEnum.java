@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.enums;
+
+/**
+ * Description: session 发送队列已满时的处理策略
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:28]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public enum SendQueueOverflowPolicyEnum {
+
+    /**
+     * 丢弃队列中最早的消息，保留最新消息
+     */
+    DROP_OLDEST,
+
+    /**
+     * 丢弃当前新进入的消息
+     */
+    DROP_NEWEST
+}
@@ -15,6 +15,7 @@
  */
 package com.mobaijun.websocket.handler;
 
+import com.mobaijun.websocket.enums.SendQueueOverflowPolicyEnum;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -47,4 +48,34 @@ public class ConcurrentWebSocketSessionOptions {
      * 发送消息缓冲上限 (byte)
      */
     private int bufferSizeLimit = 1024 * 100;
+
+    /**
+     * 是否启用异步发送队列，开启后每个 session 拥有独立的有界发送队列，由后台线程发送，生产者不会被慢连接阻塞
+     */
+    private boolean asyncSend = false;
+
+    /**
+     * 每个 session 发送队列的容量（消息条数）
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * 发送队列已满时的处理策略
+     */
+    private SendQueueOverflowPolicyEnum queueOverflowPolicy = SendQueueOverflowPolicyEnum.DROP_OLDEST;
+
+    /**
+     * 是否合并相同 coalesceKey 的待发送消息，仅保留最新一条
+     */
+    private boolean coalesce = true;
+
+    /**
+     * 连续丢弃多少条消息后断开连接，小于等于 0 表示不断开
+     */
+    private int maxDropsBeforeDisconnect = 0;
+
+    /**
+     * 发送队列的后台发送线程数
+     */
+    private int sendThreads = Runtime.getRuntime().availableProcessors() * 2;
 }
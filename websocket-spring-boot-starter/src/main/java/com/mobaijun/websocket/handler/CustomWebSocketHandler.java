@@ -15,27 +15,37 @@
  */
 package com.mobaijun.websocket.handler;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.json.JsonReadFeature;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.mobaijun.websocket.codec.WebSocketMessageCodec;
 import com.mobaijun.websocket.exception.ErrorJsonMessageException;
 import com.mobaijun.websocket.hodler.JsonMessageHandlerHolder;
+import com.mobaijun.websocket.hodler.WebSocketMessageCodecHolder;
 import com.mobaijun.websocket.message.JsonWebSocketMessage;
 import io.micrometer.common.lang.NonNull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
 /**
  * Description: 自定义 WebSocket 消息处理器
+ * <p>
+ * 支持文本帧与二进制帧，二进制帧的格式由握手时协商的子协议对应的 {@link WebSocketMessageCodec} 决定。
  * Author: [mobaijun]
  * Date: [2024/8/23 9:27]
  * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
  */
 @Slf4j
-public class CustomWebSocketHandler extends TextWebSocketHandler {
+public class CustomWebSocketHandler extends AbstractWebSocketHandler implements SubProtocolCapable {
 
     /**
      * 消息解析器，用于解析 JSON 消息
@@ -67,6 +77,17 @@ public class CustomWebSocketHandler extends TextWebSocketHandler {
         this.planTextMessageHandler = planTextMessageHandler;
     }
 
+    /**
+     * 握手时可协商的子协议，即所有已注册的编解码器
+     *
+     * @return 子协议集合
+     */
+    @Override
+    @NonNull
+    public List<String> getSubProtocols() {
+        return WebSocketMessageCodecHolder.getSubProtocols();
+    }
+
     /**
      * 处理 WebSocket 文本消息
      * <p>
@@ -85,10 +106,12 @@ public class CustomWebSocketHandler extends TextWebSocketHandler {
 
         // 获取消息载荷
         String payload = message.getPayload();
+        WebSocketMessageCodec codec = WebSocketMessageCodecHolder.getCodec(session);
+        ObjectMapper mapper = codec != null && !codec.isBinary() ? codec.getObjectMapper() : MAPPER;
         try {
             // 尝试使用 JSON 处理
-            handleWithJson(session, payload);
-        } catch (ErrorJsonMessageException ex) {
+            handleWithJson(session, mapper, mapper.createParser(payload));
+        } catch (ErrorJsonMessageException | IOException ex) {
             log.debug("消息载荷 [{}] 回退使用 PlanTextMessageHandler，原因：{}", payload, ex.getMessage());
             // 处理 JSON 异常后，使用 PlanTextMessageHandler 处理普通文本消息
             if (this.planTextMessageHandler != null) {
@@ -100,47 +123,94 @@ public class CustomWebSocketHandler extends TextWebSocketHandler {
     }
 
     /**
-     * 使用 JSON 处理消息
+     * 处理 WebSocket 二进制消息
      * <p>
-     * 解析消息载荷，检查其格式，并调用相应的消息处理器。
+     * 使用 session 协商的二进制编解码器解析消息，未协商编解码器的二进制消息将被忽略。
      *
      * @param session 当前 WebSocket 会话
-     * @param payload 消息载荷
+     * @param message 接收到的二进制消息
      */
-    private void handleWithJson(WebSocketSession session, String payload) {
-        // 消息类型必有一个属性 type，先解析以获取该属性
-        JsonNode jsonNode;
+    @Override
+    protected void handleBinaryMessage(@NonNull WebSocketSession session, BinaryMessage message) {
+        if (message.getPayloadLength() == 0) {
+            return;
+        }
+        WebSocketMessageCodec codec = WebSocketMessageCodecHolder.getCodec(session);
+        if (codec == null || !codec.isBinary()) {
+            log.error("[handleBinaryMessage] session({}) 未协商二进制编解码器，忽略二进制消息", session.getId());
+            return;
+        }
+        ObjectMapper mapper = codec.getObjectMapper();
+        ByteBuffer buffer = message.getPayload();
         try {
-            jsonNode = MAPPER.readTree(payload);
-        } catch (JsonProcessingException e) {
-            throw new ErrorJsonMessageException("json 解析异常");
+            JsonParser parser;
+            if (buffer.hasArray()) {
+                parser = mapper.createParser(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            } else {
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.duplicate().get(bytes);
+                parser = mapper.createParser(bytes);
+            }
+            handleWithJson(session, mapper, parser);
+        } catch (ErrorJsonMessageException | IOException ex) {
+            log.error("[handleBinaryMessage] session({}) 二进制消息解析失败，原因：{}", session.getId(), ex.getMessage());
         }
+    }
 
-        // 确保消息类型是 object 类型
-        if (!jsonNode.isObject()) {
-            throw new ErrorJsonMessageException("json 格式异常！非 object 类型！");
-        }
+    /**
+     * 使用 JSON 处理消息
+     * <p>
+     * 单次流式读取消息载荷：扫描顶层属性获取 type 的同时将 token 缓存下来，
+     * 找到对应的消息处理器后直接从缓存的 token 绑定到目标类，不再重复解析载荷。
+     *
+     * @param session 当前 WebSocket 会话
+     * @param mapper  消息解析器
+     * @param parser  消息载荷解析器
+     * @throws IOException 解析异常
+     */
+    private void handleWithJson(WebSocketSession session, ObjectMapper mapper, JsonParser parser) throws IOException {
+        JsonWebSocketMessage websocketMessageJson;
+        JsonMessageHandler<JsonWebSocketMessage> jsonMessageHandler;
+        try (parser) {
+            // 确保消息类型是 object 类型
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ErrorJsonMessageException("json 格式异常！非 object 类型！");
+            }
 
-        JsonNode typeNode = jsonNode.get(JsonWebSocketMessage.TYPE_FIELD);
-        String messageType = typeNode.asText();
-        if (messageType == null) {
-            throw new ErrorJsonMessageException("json 无 type 属性");
-        }
+            // 消息类型必有一个属性 type，扫描顶层属性获取该属性
+            String messageType = null;
+            TokenBuffer tokens = new TokenBuffer(parser);
+            tokens.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+                if (messageType == null && JsonWebSocketMessage.TYPE_FIELD.equals(fieldName)
+                        && valueToken != null && valueToken.isScalarValue()) {
+                    messageType = parser.getValueAsString();
+                }
+                tokens.writeFieldName(fieldName);
+                tokens.copyCurrentStructure(parser);
+            }
+            tokens.writeEndObject();
 
-        // 根据消息类型获取对应的消息处理器
-        JsonMessageHandler<JsonWebSocketMessage> jsonMessageHandler = JsonMessageHandlerHolder.getHandler(messageType);
-        if (jsonMessageHandler == null) {
-            log.error("[handleTextMessage] 消息类型（{}）不存在对应的消息处理器", messageType);
-            return;
-        }
+            if (messageType == null) {
+                throw new ErrorJsonMessageException("json 无 type 属性");
+            }
 
-        // 处理消息
-        Class<? extends JsonWebSocketMessage> messageClass = jsonMessageHandler.getMessageClass();
-        JsonWebSocketMessage websocketMessageJson;
-        try {
-            websocketMessageJson = MAPPER.treeToValue(jsonNode, messageClass);
-        } catch (JsonProcessingException e) {
-            throw new ErrorJsonMessageException("消息序列化异常，class " + messageClass);
+            // 根据消息类型获取对应的消息处理器
+            jsonMessageHandler = JsonMessageHandlerHolder.getHandler(messageType);
+            if (jsonMessageHandler == null) {
+                log.error("[handleTextMessage] 消息类型（{}）不存在对应的消息处理器", messageType);
+                return;
+            }
+
+            // 处理消息
+            Class<? extends JsonWebSocketMessage> messageClass = jsonMessageHandler.getMessageClass();
+            try (JsonParser tokenParser = tokens.asParser(mapper)) {
+                websocketMessageJson = mapper.readValue(tokenParser, messageClass);
+            } catch (IOException e) {
+                throw new ErrorJsonMessageException("消息序列化异常，class " + messageClass);
+            }
         }
         jsonMessageHandler.handle(session, websocketMessageJson);
     }
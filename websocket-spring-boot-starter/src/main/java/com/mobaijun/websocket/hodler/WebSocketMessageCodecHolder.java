@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.hodler;
+
+import com.mobaijun.websocket.codec.WebSocketMessageCodec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Description: 消息编解码器持有者
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:27]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public final class WebSocketMessageCodecHolder {
+
+    /**
+     * 子协议 -> 编解码器
+     */
+    private static final Map<String, WebSocketMessageCodec> CODEC_MAP = new ConcurrentHashMap<>();
+
+    private WebSocketMessageCodecHolder() {
+    }
+
+    /**
+     * 获取 session 协商的编解码器
+     *
+     * @param session 当前 session
+     * @return 编解码器，未协商子协议时返回 null，使用默认 JSON 文本格式
+     */
+    public static WebSocketMessageCodec getCodec(WebSocketSession session) {
+        String acceptedProtocol = session.getAcceptedProtocol();
+        if (acceptedProtocol == null || acceptedProtocol.isEmpty()) {
+            return null;
+        }
+        return CODEC_MAP.get(acceptedProtocol);
+    }
+
+    /**
+     * 获取所有支持的子协议
+     *
+     * @return 子协议集合
+     */
+    public static List<String> getSubProtocols() {
+        return new ArrayList<>(CODEC_MAP.keySet());
+    }
+
+    /**
+     * 添加编解码器
+     *
+     * @param codec 编解码器
+     */
+    public static void addCodec(WebSocketMessageCodec codec) {
+        CODEC_MAP.put(codec.subProtocol(), codec);
+    }
+}
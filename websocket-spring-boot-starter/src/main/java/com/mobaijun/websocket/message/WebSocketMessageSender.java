@@ -16,9 +16,13 @@
 package com.mobaijun.websocket.message;
 
 import com.mobaijun.json.util.JsonUtil;
+import com.mobaijun.websocket.codec.WebSocketMessageCodec;
+import com.mobaijun.websocket.hodler.WebSocketMessageCodecHolder;
+import com.mobaijun.websocket.session.BufferedWebSocketSessionDecorator;
 import java.io.IOException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 /**
@@ -40,7 +44,17 @@ public final class WebSocketMessageSender {
      * @param message 消息
      */
     public static void send(WebSocketSession session, JsonWebSocketMessage message) {
-        send(session, JsonUtil.toJsonString(message));
+        WebSocketMessageCodec codec = session == null ? null : WebSocketMessageCodecHolder.getCodec(session);
+        if (codec == null) {
+            send(session, JsonUtil.toJsonString(message));
+            return;
+        }
+        // 按 session 协商的子协议编码，二进制编解码器使用二进制帧发送
+        try {
+            send(session, codec.encode(message), null);
+        } catch (IOException e) {
+            log.error("[send] session({}) 消息编码({}) 异常", session, codec.subProtocol(), e);
+        }
     }
 
     /**
@@ -51,6 +65,33 @@ public final class WebSocketMessageSender {
      * @return 发送成功返回 true
      */
     public static boolean send(WebSocketSession session, String message) {
+        return send(session, new TextMessage(message));
+    }
+
+    /**
+     * 发送已编码好的消息帧
+     * <p>
+     * {@link TextMessage} 为不可变对象，广播时可复用同一个实例发送给所有 session，避免每个 session 重复构建消息帧。
+     *
+     * @param session 客户端
+     * @param message 消息帧
+     * @return 发送成功返回 true
+     */
+    public static boolean send(WebSocketSession session, TextMessage message) {
+        return send(session, message, null);
+    }
+
+    /**
+     * 发送已编码好的消息帧
+     * <p>
+     * 当 session 开启了异步发送队列时，携带相同 coalesceKey 的待发送消息会被合并，仅发送最新一条。
+     *
+     * @param session     客户端
+     * @param message     消息帧，文本帧或二进制帧
+     * @param coalesceKey 合并标识，为空不合并
+     * @return 发送（入队）成功返回 true
+     */
+    public static boolean send(WebSocketSession session, WebSocketMessage<?> message, String coalesceKey) {
         if (session == null) {
             log.error("[send] session 为 null");
             return false;
@@ -59,8 +100,12 @@ public final class WebSocketMessageSender {
             log.error("[send] session 已经关闭");
             return false;
         }
+        if (session instanceof BufferedWebSocketSessionDecorator bufferedSession) {
+            bufferedSession.sendMessage(message, coalesceKey);
+            return true;
+        }
         try {
-            session.sendMessage(new TextMessage(message));
+            session.sendMessage(message);
         } catch (IOException e) {
             log.error("[send] session({}) 发送消息({}) 异常", session, message, e);
             return false;
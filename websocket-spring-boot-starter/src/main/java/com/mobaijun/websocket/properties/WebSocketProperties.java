@@ -15,6 +15,7 @@
  */
 package com.mobaijun.websocket.properties;
 
+import com.mobaijun.websocket.distribute.FanOutOptions;
 import com.mobaijun.websocket.handler.ConcurrentWebSocketSessionOptions;
 import lombok.Getter;
 import lombok.Setter;
@@ -86,11 +87,27 @@ public class WebSocketProperties {
     @NestedConfigurationProperty
     private ConcurrentWebSocketSessionOptions concurrent = new ConcurrentWebSocketSessionOptions();
 
+    /**
+     * 并行扇出相关配置
+     */
+    @NestedConfigurationProperty
+    private FanOutOptions fanOut = new FanOutOptions();
+
     /**
      * 消息分发器：local | redis，默认 local, 如果自定义的话，可以配置为其他任意值
      */
     private WebSocketProperties.MessageDistributorTypeEnum messageDistributor = WebSocketProperties.MessageDistributorTypeEnum.LOCAL;
 
+    /**
+     * 当前节点标识，redis 分发器用于定向投递，为空时启动时随机生成
+     */
+    private String nodeId;
+
+    /**
+     * 节点存活标记的过期时间（s），redis 分发器按其三分之一的间隔续期，节点宕机后超时视为下线
+     */
+    private int nodeExpireSeconds = 30;
+
     /**
      * 消息分发器类型，用于解决集群场景下的消息跨节点推送问题
      */
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Description: 基于 session 属性的二级索引解析器
+ * <p>
+ * 读取握手阶段写入 {@link WebSocketSession#getAttributes()} 的属性作为索引值，
+ * 属性值为集合时，session 同时属于集合中的每个索引值。
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:29]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@RequiredArgsConstructor
+public class AttributeSessionIndexResolver implements SessionIndexResolver {
+
+    /**
+     * 索引名称
+     */
+    private final String indexName;
+
+    /**
+     * session 属性名
+     */
+    private final String attributeName;
+
+    /**
+     * 索引名称
+     *
+     * @return 索引名称
+     */
+    @Override
+    public String indexName() {
+        return this.indexName;
+    }
+
+    /**
+     * 读取 session 属性作为索引值
+     *
+     * @param webSocketSession 当前session
+     * @return 索引值集合
+     */
+    @Override
+    public Collection<Object> resolve(WebSocketSession webSocketSession) {
+        Object value = webSocketSession.getAttributes().get(this.attributeName);
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        if (value instanceof Collection<?> values) {
+            return new ArrayList<>(values);
+        }
+        return Collections.singletonList(value);
+    }
+}
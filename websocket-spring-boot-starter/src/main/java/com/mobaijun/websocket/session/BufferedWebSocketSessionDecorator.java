@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.session;
+
+import com.mobaijun.websocket.enums.SendQueueOverflowPolicyEnum;
+import com.mobaijun.websocket.handler.ConcurrentWebSocketSessionOptions;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+/**
+ * Description: 带有界发送队列的 WebSocketSession 装饰器
+ * <p>
+ * {@link #sendMessage(WebSocketMessage)} 只负责入队，真正的网络写入由共享线程池中的后台任务串行完成，
+ * 因此调用方永远不会被慢连接阻塞。队列满时按 {@link SendQueueOverflowPolicyEnum} 丢弃消息，
+ * 连续丢弃达到上限后断开连接；携带相同 coalesceKey 的待发送消息会被合并，仅保留最新一条。
+ * 单次网络写入超过 sendTimeLimit 的连接会由 {@link SendTimeWatchdog} 关闭，避免少数卡住的连接占满共享发送线程。
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:28]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@Slf4j
+public class BufferedWebSocketSessionDecorator extends WebSocketSessionDecorator {
+
+    /**
+     * 并发 websocket 配置
+     */
+    private final ConcurrentWebSocketSessionOptions options;
+
+    /**
+     * 后台发送线程池
+     */
+    private final Executor sendExecutor;
+
+    /**
+     * 发送超时检查器，为空时不检查 sendTimeLimit
+     */
+    private final SendTimeWatchdog watchdog;
+
+    /**
+     * 待发送队列，受 {@code this} 锁保护
+     */
+    private final Deque<Entry> queue = new ArrayDeque<>();
+
+    /**
+     * coalesceKey -> 队列中的待发送消息，受 {@code this} 锁保护
+     */
+    private final Map<String, Entry> coalesceEntries = new HashMap<>();
+
+    /**
+     * 是否已有后台发送任务在执行
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * 已发送消息数
+     */
+    private final AtomicLong sentCount = new AtomicLong();
+
+    /**
+     * 累计丢弃消息数
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * 累计合并消息数
+     */
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * 连续丢弃消息数，发送成功后清零
+     */
+    private final AtomicLong consecutiveDrops = new AtomicLong();
+
+    /**
+     * 是否因慢消费被断开
+     */
+    private volatile boolean limitExceeded;
+
+    /**
+     * 当前网络写入的开始时间，0 表示没有在写入
+     */
+    private volatile long sendStartMillis;
+
+    /**
+     * 构造函数
+     *
+     * @param delegate     被装饰的 session
+     * @param options      并发 websocket 配置
+     * @param sendExecutor 后台发送线程池
+     */
+    public BufferedWebSocketSessionDecorator(WebSocketSession delegate, ConcurrentWebSocketSessionOptions options,
+                                             Executor sendExecutor) {
+        this(delegate, options, sendExecutor, null);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param delegate     被装饰的 session
+     * @param options      并发 websocket 配置
+     * @param sendExecutor 后台发送线程池
+     * @param watchdog     发送超时检查器，为空时不检查 sendTimeLimit
+     */
+    public BufferedWebSocketSessionDecorator(WebSocketSession delegate, ConcurrentWebSocketSessionOptions options,
+                                             Executor sendExecutor, SendTimeWatchdog watchdog) {
+        super(delegate);
+        this.options = options;
+        this.sendExecutor = sendExecutor;
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * 消息入队，由后台线程发送
+     *
+     * @param message 消息
+     */
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        sendMessage(message, null);
+    }
+
+    /**
+     * 消息入队，由后台线程发送
+     *
+     * @param message     消息
+     * @param coalesceKey 合并标识，队列中已存在相同标识的消息时直接替换，为空不合并
+     */
+    public void sendMessage(WebSocketMessage<?> message, String coalesceKey) {
+        if (this.limitExceeded || !isOpen()) {
+            return;
+        }
+        boolean dropped = false;
+        synchronized (this) {
+            Entry existing = coalesceKey != null && this.options.isCoalesce() ? this.coalesceEntries.get(coalesceKey) : null;
+            if (existing != null) {
+                existing.message = message;
+                this.coalescedCount.incrementAndGet();
+            } else {
+                if (this.queue.size() >= this.options.getQueueCapacity()) {
+                    dropped = true;
+                    if (this.options.getQueueOverflowPolicy() == SendQueueOverflowPolicyEnum.DROP_NEWEST) {
+                        message = null;
+                    } else {
+                        Entry oldest = this.queue.pollFirst();
+                        if (oldest != null && oldest.coalesceKey != null) {
+                            this.coalesceEntries.remove(oldest.coalesceKey, oldest);
+                        }
+                    }
+                }
+                if (message != null) {
+                    Entry entry = new Entry(message, this.options.isCoalesce() ? coalesceKey : null);
+                    this.queue.offerLast(entry);
+                    if (entry.coalesceKey != null) {
+                        this.coalesceEntries.put(entry.coalesceKey, entry);
+                    }
+                }
+            }
+        }
+        if (dropped) {
+            onDrop();
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * 当前队列深度
+     *
+     * @return 待发送消息数
+     */
+    public synchronized int getQueueDepth() {
+        return this.queue.size();
+    }
+
+    /**
+     * 已发送消息数
+     *
+     * @return 已发送消息数
+     */
+    public long getSentCount() {
+        return this.sentCount.get();
+    }
+
+    /**
+     * 累计丢弃消息数
+     *
+     * @return 丢弃消息数
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    /**
+     * 累计合并消息数
+     *
+     * @return 合并消息数
+     */
+    public long getCoalescedCount() {
+        return this.coalescedCount.get();
+    }
+
+    /**
+     * 是否因慢消费被断开
+     *
+     * @return 被断开返回 true
+     */
+    public boolean isLimitExceeded() {
+        return this.limitExceeded;
+    }
+
+    /**
+     * 检查当前网络写入是否超过 sendTimeLimit，超过则关闭连接，关闭后阻塞的写入会以异常结束并释放发送线程
+     */
+    void checkSendTimeLimit() {
+        long start = this.sendStartMillis;
+        int sendTimeLimit = this.options.getSendTimeLimit();
+        if (start == 0 || sendTimeLimit <= 0 || this.limitExceeded
+                || System.currentTimeMillis() - start <= sendTimeLimit) {
+            return;
+        }
+        this.limitExceeded = true;
+        log.warn("session({}) 发送耗时超过 {} ms，判定为慢消费者，断开连接", getId(), sendTimeLimit);
+        synchronized (this) {
+            this.queue.clear();
+            this.coalesceEntries.clear();
+        }
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("session({}) 关闭异常", getId(), e);
+        }
+    }
+
+    /**
+     * 记录丢弃，连续丢弃达到上限后断开连接
+     */
+    private void onDrop() {
+        this.droppedCount.incrementAndGet();
+        long drops = this.consecutiveDrops.incrementAndGet();
+        int maxDrops = this.options.getMaxDropsBeforeDisconnect();
+        if (maxDrops > 0 && drops >= maxDrops && !this.limitExceeded) {
+            this.limitExceeded = true;
+            log.warn("session({}) 连续丢弃 {} 条消息，判定为慢消费者，断开连接", getId(), drops);
+            synchronized (this) {
+                this.queue.clear();
+                this.coalesceEntries.clear();
+            }
+            try {
+                getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.debug("session({}) 关闭异常", getId(), e);
+            }
+        }
+    }
+
+    /**
+     * 没有后台任务在执行时提交一个发送任务
+     */
+    private void scheduleDrain() {
+        if (this.draining.compareAndSet(false, true)) {
+            try {
+                this.sendExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                this.draining.set(false);
+                log.warn("session({}) 发送任务被拒绝", getId(), e);
+            }
+        }
+    }
+
+    /**
+     * 串行发送队列中的消息，直到队列为空
+     */
+    private void drain() {
+        if (this.watchdog != null) {
+            this.watchdog.watch(this);
+        }
+        try {
+            Entry entry;
+            while ((entry = poll()) != null) {
+                if (this.limitExceeded || !isOpen()) {
+                    synchronized (this) {
+                        this.queue.clear();
+                        this.coalesceEntries.clear();
+                    }
+                    return;
+                }
+                this.sendStartMillis = System.currentTimeMillis();
+                try {
+                    getDelegate().sendMessage(entry.message);
+                    this.sentCount.incrementAndGet();
+                    this.consecutiveDrops.set(0);
+                } catch (IOException | RuntimeException e) {
+                    // 单条消息发送失败不影响后续消息，也不能让 draining 标记残留
+                    log.error("[send] session({}) 发送消息异常", getId(), e);
+                } finally {
+                    this.sendStartMillis = 0;
+                }
+            }
+        } finally {
+            if (this.watchdog != null) {
+                this.watchdog.unwatch(this);
+            }
+            this.draining.set(false);
+        }
+        // 释放标记后可能有新消息入队，需要再次检查
+        boolean pending;
+        synchronized (this) {
+            pending = !this.queue.isEmpty();
+        }
+        if (pending) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * 取出队首消息
+     *
+     * @return 队首消息，队列为空返回 null
+     */
+    private synchronized Entry poll() {
+        Entry entry = this.queue.pollFirst();
+        if (entry != null && entry.coalesceKey != null) {
+            this.coalesceEntries.remove(entry.coalesceKey, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 待发送消息
+     */
+    private static final class Entry {
+
+        /**
+         * 合并标识
+         */
+        private final String coalesceKey;
+
+        /**
+         * 消息，合并时被替换为最新消息
+         */
+        private WebSocketMessage<?> message;
+
+        private Entry(WebSocketMessage<?> message, String coalesceKey) {
+            this.message = message;
+            this.coalesceKey = coalesceKey;
+        }
+    }
+}
@@ -18,7 +18,10 @@ package com.mobaijun.websocket.session;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +29,10 @@ import org.springframework.web.socket.WebSocketSession;
 
 /**
  * Description: 默认的 WebSocketSession 存储器
+ * <p>
+ * 除 sessionKey 主索引外，还维护由 {@link SessionIndexResolver} 解析的二级索引（如分组、租户）
+ * 以及通过 {@link #addIndex} 动态加入的索引（如 topic 订阅）。二级索引的每个索引值对应一个不可变快照，
+ * 连接建立或断开时以写时复制的方式替换，按索引广播时直接遍历快照，复杂度为 O(分组大小)，且不与连接变更竞争。
  * Author: [mobaijun]
  * Date: [2024/8/23 9:28]
  * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
@@ -43,13 +50,59 @@ public class DefaultWebSocketSessionStore implements WebSocketSessionStore {
      */
     private final ConcurrentHashMap<Object, Map<String, WebSocketSession>> sessionKeyToWsSessions = new ConcurrentHashMap<>();
 
+    /**
+     * sessionKey 上下线监听器
+     */
+    private final List<SessionKeyListener> sessionKeyListeners;
+
+    /**
+     * 二级索引解析器
+     */
+    private final List<SessionIndexResolver> sessionIndexResolvers;
+
+    /**
+     * 二级索引：索引名称 -> 索引值 -> 不可变的 session 快照（wsSessionId -> session）
+     */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Object, Map<String, WebSocketSession>>> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * wsSessionId -> 当前 session 所在的二级索引，用于断开连接时清理索引
+     */
+    private final ConcurrentHashMap<String, Set<IndexEntry>> sessionIndexEntries = new ConcurrentHashMap<>();
+
     /**
      * 构造方法
      *
      * @param sessionKeyGenerator 生成 session key 的接口
      */
     public DefaultWebSocketSessionStore(SessionKeyGenerator sessionKeyGenerator) {
+        this(sessionKeyGenerator, Collections.emptyList());
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param sessionKeyGenerator 生成 session key 的接口
+     * @param sessionKeyListeners sessionKey 上下线监听器
+     */
+    public DefaultWebSocketSessionStore(SessionKeyGenerator sessionKeyGenerator,
+                                        List<SessionKeyListener> sessionKeyListeners) {
+        this(sessionKeyGenerator, sessionKeyListeners, Collections.emptyList());
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param sessionKeyGenerator   生成 session key 的接口
+     * @param sessionKeyListeners   sessionKey 上下线监听器
+     * @param sessionIndexResolvers 二级索引解析器
+     */
+    public DefaultWebSocketSessionStore(SessionKeyGenerator sessionKeyGenerator,
+                                        List<SessionKeyListener> sessionKeyListeners,
+                                        List<SessionIndexResolver> sessionIndexResolvers) {
         this.sessionKeyGenerator = sessionKeyGenerator;
+        this.sessionKeyListeners = sessionKeyListeners == null ? Collections.emptyList() : List.copyOf(sessionKeyListeners);
+        this.sessionIndexResolvers = sessionIndexResolvers == null ? Collections.emptyList() : List.copyOf(sessionIndexResolvers);
     }
 
     /**
@@ -60,13 +113,29 @@ public class DefaultWebSocketSessionStore implements WebSocketSessionStore {
     @Override
     public void addSession(WebSocketSession wsSession) {
         Object sessionKey = this.sessionKeyGenerator.sessionKey(wsSession);
-        Map<String, WebSocketSession> sessions = this.sessionKeyToWsSessions.get(sessionKey);
-        if (sessions == null) {
-            sessions = new ConcurrentHashMap<>();
-            this.sessionKeyToWsSessions.putIfAbsent(sessionKey, sessions);
-            sessions = this.sessionKeyToWsSessions.get(sessionKey);
+        // 上线回调在 compute 中执行，与同一 sessionKey 的下线回调串行，快速重连时不会乱序；回调不能阻塞
+        this.sessionKeyToWsSessions.compute(sessionKey, (key, sessions) -> {
+            if (sessions == null) {
+                sessions = new ConcurrentHashMap<>();
+                sessions.put(wsSession.getId(), wsSession);
+                for (SessionKeyListener listener : this.sessionKeyListeners) {
+                    notifyListener(() -> listener.onSessionKeyOnline(key), key);
+                }
+            } else {
+                sessions.put(wsSession.getId(), wsSession);
+            }
+            return sessions;
+        });
+
+        // 维护二级索引
+        for (SessionIndexResolver resolver : this.sessionIndexResolvers) {
+            Collection<Object> indexValues = resolver.resolve(wsSession);
+            if (indexValues != null) {
+                for (Object indexValue : indexValues) {
+                    putIndex(wsSession, resolver.indexName(), indexValue);
+                }
+            }
         }
-        sessions.put(wsSession.getId(), wsSession);
     }
 
     /**
@@ -79,25 +148,52 @@ public class DefaultWebSocketSessionStore implements WebSocketSessionStore {
         Object sessionKey = this.sessionKeyGenerator.sessionKey(session);
         String wsSessionId = session.getId();
 
-        Map<String, WebSocketSession> sessions = this.sessionKeyToWsSessions.get(sessionKey);
-        if (sessions != null) {
-            try (WebSocketSession webSocketSession = sessions.remove(wsSessionId)) {
-                boolean result = webSocketSession != null;
-                if (log.isDebugEnabled()) {
-                    log.debug("Removal of " + wsSessionId + " was " + result);
-                }
+        // 清理二级索引
+        Set<IndexEntry> entries = this.sessionIndexEntries.remove(wsSessionId);
+        if (entries != null) {
+            for (IndexEntry entry : entries) {
+                dropIndex(wsSessionId, entry.indexName(), entry.indexValue());
             }
+        }
 
-            if (sessions.isEmpty()) {
-                this.sessionKeyToWsSessions.remove(sessionKey);
-                if (log.isDebugEnabled()) {
-                    log.debug("Removed the corresponding HTTP Session for " + wsSessionId
-                            + " since it contained no WebSocket mappings");
-                }
+        WebSocketSession[] removed = new WebSocketSession[1];
+        // 下线回调在 compute 中执行，与同一 sessionKey 的上线回调串行
+        this.sessionKeyToWsSessions.computeIfPresent(sessionKey, (key, sessions) -> {
+            removed[0] = sessions.remove(wsSessionId);
+            if (!sessions.isEmpty()) {
+                return sessions;
+            }
+            for (SessionKeyListener listener : this.sessionKeyListeners) {
+                notifyListener(() -> listener.onSessionKeyOffline(key), key);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Removed the corresponding HTTP Session for " + wsSessionId
+                        + " since it contained no WebSocket mappings");
+            }
+            return null;
+        });
+
+        try (WebSocketSession webSocketSession = removed[0]) {
+            if (log.isDebugEnabled()) {
+                log.debug("Removal of " + wsSessionId + " was " + (webSocketSession != null));
             }
         }
     }
 
+    /**
+     * 执行 sessionKey 上下线回调，回调异常不影响连接的建立和断开
+     *
+     * @param callback   回调
+     * @param sessionKey session 唯一标识
+     */
+    private void notifyListener(Runnable callback, Object sessionKey) {
+        try {
+            callback.run();
+        } catch (Exception e) {
+            log.error("sessionKey: {} 上下线回调异常", sessionKey, e);
+        }
+    }
+
     /**
      * 获取当前所有在线的 session
      *
@@ -136,4 +232,110 @@ public class DefaultWebSocketSessionStore implements WebSocketSessionStore {
     public Collection<Object> getSessionKeys() {
         return this.sessionKeyToWsSessions.keySet();
     }
+
+    /**
+     * 根据二级索引获取 wsSessions
+     *
+     * @param indexName  索引名称
+     * @param indexValue 索引值
+     * @return 不可变的 session 快照
+     */
+    @Override
+    public Collection<WebSocketSession> getSessionsByIndex(String indexName, Object indexValue) {
+        Map<Object, Map<String, WebSocketSession>> index = this.indexes.get(indexName);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        Map<String, WebSocketSession> snapshot = index.get(indexValue);
+        return snapshot == null ? Collections.emptyList() : snapshot.values();
+    }
+
+    /**
+     * 将 session 加入二级索引
+     *
+     * @param session    WebSocketSession
+     * @param indexName  索引名称
+     * @param indexValue 索引值
+     */
+    @Override
+    public void addIndex(WebSocketSession session, String indexName, Object indexValue) {
+        // 使用存储器中的 session 实例，保证索引中的 session 与主索引一致（可能是装饰后的 session）
+        Map<String, WebSocketSession> sessions = this.sessionKeyToWsSessions.get(this.sessionKeyGenerator.sessionKey(session));
+        WebSocketSession storedSession = sessions == null ? null : sessions.get(session.getId());
+        if (storedSession == null) {
+            log.warn("session({}) 未在存储器中，无法加入索引 {}:{}", session.getId(), indexName, indexValue);
+            return;
+        }
+        putIndex(storedSession, indexName, indexValue);
+    }
+
+    /**
+     * 将 session 移出二级索引
+     *
+     * @param session    WebSocketSession
+     * @param indexName  索引名称
+     * @param indexValue 索引值
+     */
+    @Override
+    public void removeIndex(WebSocketSession session, String indexName, Object indexValue) {
+        Set<IndexEntry> entries = this.sessionIndexEntries.get(session.getId());
+        if (entries != null && entries.remove(new IndexEntry(indexName, indexValue))) {
+            dropIndex(session.getId(), indexName, indexValue);
+        }
+    }
+
+    /**
+     * 写时复制地将 session 加入索引值对应的快照
+     *
+     * @param session    WebSocketSession
+     * @param indexName  索引名称
+     * @param indexValue 索引值
+     */
+    private void putIndex(WebSocketSession session, String indexName, Object indexValue) {
+        if (indexValue == null) {
+            return;
+        }
+        this.sessionIndexEntries.computeIfAbsent(session.getId(), id -> ConcurrentHashMap.newKeySet())
+                .add(new IndexEntry(indexName, indexValue));
+        this.indexes.computeIfAbsent(indexName, name -> new ConcurrentHashMap<>())
+                .compute(indexValue, (value, snapshot) -> {
+                    Map<String, WebSocketSession> copy = snapshot == null ? new HashMap<>() : new HashMap<>(snapshot);
+                    copy.put(session.getId(), session);
+                    return Collections.unmodifiableMap(copy);
+                });
+    }
+
+    /**
+     * 写时复制地将 session 从索引值对应的快照中移除，快照为空时删除该索引值
+     *
+     * @param wsSessionId wsSession 标识
+     * @param indexName   索引名称
+     * @param indexValue  索引值
+     */
+    private void dropIndex(String wsSessionId, String indexName, Object indexValue) {
+        ConcurrentHashMap<Object, Map<String, WebSocketSession>> index = this.indexes.get(indexName);
+        if (index == null) {
+            return;
+        }
+        index.computeIfPresent(indexValue, (value, snapshot) -> {
+            if (!snapshot.containsKey(wsSessionId)) {
+                return snapshot;
+            }
+            if (snapshot.size() == 1) {
+                return null;
+            }
+            Map<String, WebSocketSession> copy = new HashMap<>(snapshot);
+            copy.remove(wsSessionId);
+            return Collections.unmodifiableMap(copy);
+        });
+    }
+
+    /**
+     * session 所在的二级索引
+     *
+     * @param indexName  索引名称
+     * @param indexValue 索引值
+     */
+    private record IndexEntry(String indexName, Object indexValue) {
+    }
 }
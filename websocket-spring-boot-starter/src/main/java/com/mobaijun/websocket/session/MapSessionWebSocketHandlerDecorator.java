@@ -17,6 +17,7 @@ package com.mobaijun.websocket.session;
 
 import com.mobaijun.websocket.handler.ConcurrentWebSocketSessionOptions;
 import io.micrometer.common.lang.NonNull;
+import java.util.concurrent.Executor;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.WebSocketSession;
@@ -41,6 +42,16 @@ public class MapSessionWebSocketHandlerDecorator extends WebSocketHandlerDecorat
      */
     private final ConcurrentWebSocketSessionOptions concurrentWebSocketSessionOptions;
 
+    /**
+     * 异步发送队列的后台发送线程池，未开启异步发送时为空
+     */
+    private final Executor sendExecutor;
+
+    /**
+     * 异步发送队列的发送超时检查器
+     */
+    private final SendTimeWatchdog sendTimeWatchdog;
+
     /**
      * 构造函数
      *
@@ -50,9 +61,40 @@ public class MapSessionWebSocketHandlerDecorator extends WebSocketHandlerDecorat
      */
     public MapSessionWebSocketHandlerDecorator(WebSocketHandler delegate, WebSocketSessionStore webSocketSessionStore,
                                                ConcurrentWebSocketSessionOptions concurrentWebSocketSessionOptions) {
+        this(delegate, webSocketSessionStore, concurrentWebSocketSessionOptions, null);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param delegate                          装饰器
+     * @param webSocketSessionStore             存储session的容器
+     * @param concurrentWebSocketSessionOptions 并发websocket配置
+     * @param sendExecutor                      异步发送队列的后台发送线程池
+     */
+    public MapSessionWebSocketHandlerDecorator(WebSocketHandler delegate, WebSocketSessionStore webSocketSessionStore,
+                                               ConcurrentWebSocketSessionOptions concurrentWebSocketSessionOptions,
+                                               Executor sendExecutor) {
+        this(delegate, webSocketSessionStore, concurrentWebSocketSessionOptions, sendExecutor, null);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param delegate                          装饰器
+     * @param webSocketSessionStore             存储session的容器
+     * @param concurrentWebSocketSessionOptions 并发websocket配置
+     * @param sendExecutor                      异步发送队列的后台发送线程池
+     * @param sendTimeWatchdog                  异步发送队列的发送超时检查器
+     */
+    public MapSessionWebSocketHandlerDecorator(WebSocketHandler delegate, WebSocketSessionStore webSocketSessionStore,
+                                               ConcurrentWebSocketSessionOptions concurrentWebSocketSessionOptions,
+                                               Executor sendExecutor, SendTimeWatchdog sendTimeWatchdog) {
         super(delegate);
         this.webSocketSessionStore = webSocketSessionStore;
         this.concurrentWebSocketSessionOptions = concurrentWebSocketSessionOptions;
+        this.sendExecutor = sendExecutor;
+        this.sendTimeWatchdog = sendTimeWatchdog;
     }
 
     /**
@@ -62,8 +104,12 @@ public class MapSessionWebSocketHandlerDecorator extends WebSocketHandlerDecorat
      */
     @Override
     public void afterConnectionEstablished(@NonNull WebSocketSession wsSession) {
-        // 包装一层，防止并发发送出现问题
-        if (Boolean.TRUE.equals(this.concurrentWebSocketSessionOptions.isEnable())) {
+        // 异步发送队列，生产者只入队，不会被慢连接阻塞
+        if (this.concurrentWebSocketSessionOptions.isAsyncSend() && this.sendExecutor != null) {
+            wsSession = new BufferedWebSocketSessionDecorator(wsSession, this.concurrentWebSocketSessionOptions,
+                    this.sendExecutor, this.sendTimeWatchdog);
+        } else if (Boolean.TRUE.equals(this.concurrentWebSocketSessionOptions.isEnable())) {
+            // 包装一层，防止并发发送出现问题
             wsSession = new ConcurrentWebSocketSessionDecorator(wsSession,
                     this.concurrentWebSocketSessionOptions.getSendTimeLimit(),
                     this.concurrentWebSocketSessionOptions.getBufferSizeLimit(),
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.session;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Description: 异步发送队列的发送超时检查器
+ * <p>
+ * 定时检查正在执行网络写入的 {@link BufferedWebSocketSessionDecorator}，写入超过 sendTimeLimit 的连接会被关闭。
+ * 由 Spring 容器管理生命周期，应用关闭时停止检查线程。
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:28]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+@Slf4j
+public class SendTimeWatchdog {
+
+    /**
+     * 发送超时检查间隔（ms）
+     */
+    private static final long PERIOD_MILLIS = 500;
+
+    /**
+     * 正在执行网络写入的 session
+     */
+    private final Set<BufferedWebSocketSessionDecorator> sending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 发送超时检查线程
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * 开启定时检查
+     */
+    public void start() {
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "websocket-send-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::check, PERIOD_MILLIS, PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止定时检查
+     */
+    public void shutdown() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+        this.sending.clear();
+    }
+
+    /**
+     * session 开始执行网络写入
+     *
+     * @param session 异步发送的 session
+     */
+    void watch(BufferedWebSocketSessionDecorator session) {
+        this.sending.add(session);
+    }
+
+    /**
+     * session 结束网络写入
+     *
+     * @param session 异步发送的 session
+     */
+    void unwatch(BufferedWebSocketSessionDecorator session) {
+        this.sending.remove(session);
+    }
+
+    /**
+     * 检查所有正在写入的 session
+     */
+    private void check() {
+        for (BufferedWebSocketSessionDecorator session : this.sending) {
+            try {
+                session.checkSendTimeLimit();
+            } catch (RuntimeException e) {
+                log.warn("session({}) 发送超时检查异常", session.getId(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.session;
+
+import java.util.Collection;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Description: WebSocketSession 二级索引解析器
+ * <p>
+ * 在连接建立时解析 session 所属的索引值（如分组、租户），由会话存储器维护索引，
+ * 按索引查询 session 时无需全量扫描。
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:29]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public interface SessionIndexResolver {
+
+    /**
+     * 索引名称，例如 group、tenant
+     *
+     * @return 索引名称
+     */
+    String indexName();
+
+    /**
+     * 解析 session 在该索引下的取值
+     *
+     * @param webSocketSession 当前session
+     * @return 索引值集合，不属于任何索引值时返回空集合
+     */
+    Collection<Object> resolve(WebSocketSession webSocketSession);
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.session;
+
+/**
+ * Description: sessionKey 上下线监听器
+ * <p>
+ * 当某个 sessionKey 在当前节点出现第一个连接，或最后一个连接断开时回调，
+ * 可用于维护集群范围内的 sessionKey 与节点映射关系。
+ * 回调在存储器对该 sessionKey 加锁期间执行，以保证同一 sessionKey 的上下线顺序，
+ * 实现中不应执行网络 I/O 等阻塞操作，需要时应交给其他线程异步完成。
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:29]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+public interface SessionKeyListener {
+
+    /**
+     * sessionKey 在当前节点上线（出现第一个连接）
+     *
+     * @param sessionKey session 唯一标识
+     */
+    void onSessionKeyOnline(Object sessionKey);
+
+    /**
+     * sessionKey 在当前节点下线（最后一个连接断开）
+     *
+     * @param sessionKey session 唯一标识
+     */
+    void onSessionKeyOffline(Object sessionKey);
+}
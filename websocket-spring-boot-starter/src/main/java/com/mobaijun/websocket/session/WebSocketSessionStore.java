@@ -15,7 +15,11 @@
  */
 package com.mobaijun.websocket.session;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.web.socket.WebSocketSession;
 
 /**
@@ -26,6 +30,11 @@ import org.springframework.web.socket.WebSocketSession;
  */
 public interface WebSocketSessionStore {
 
+    /**
+     * 默认二级索引实现中，索引值集合在 session attributes 中的属性名前缀
+     */
+    String INDEX_ATTRIBUTE_PREFIX = "websocket.index.";
+
     /**
      * 添加一个 session
      *
@@ -61,4 +70,56 @@ public interface WebSocketSessionStore {
      * @return sessionKey 集合
      */
     Collection<Object> getSessionKeys();
+
+    /**
+     * 根据二级索引获取 wsSessions，返回结果为快照，可安全遍历
+     * <p>
+     * 默认实现遍历 {@link #getSessions()}，按 {@link #addIndex} 记录在 session attributes 中的索引值过滤，
+     * 复杂度与在线 session 数成正比；需要高频按索引发送时应覆盖该方法维护独立索引。
+     *
+     * @param indexName  索引名称，例如 group、tenant、topic
+     * @param indexValue 索引值
+     * @return Collection<WebSocketSession> websocket session集合
+     */
+    default Collection<WebSocketSession> getSessionsByIndex(String indexName, Object indexValue) {
+        String attributeName = INDEX_ATTRIBUTE_PREFIX + indexName;
+        List<WebSocketSession> sessions = new ArrayList<>();
+        for (WebSocketSession session : getSessions()) {
+            if (session.getAttributes().get(attributeName) instanceof Set<?> values && values.contains(indexValue)) {
+                sessions.add(session);
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * 将 session 加入二级索引，例如订阅某个 topic
+     * <p>
+     * 默认实现将索引值记录在 session attributes 中。
+     *
+     * @param session    WebSocketSession
+     * @param indexName  索引名称
+     * @param indexValue 索引值
+     */
+    @SuppressWarnings("unchecked")
+    default void addIndex(WebSocketSession session, String indexName, Object indexValue) {
+        if (indexValue == null) {
+            return;
+        }
+        ((Set<Object>) session.getAttributes().computeIfAbsent(INDEX_ATTRIBUTE_PREFIX + indexName,
+                name -> ConcurrentHashMap.newKeySet())).add(indexValue);
+    }
+
+    /**
+     * 将 session 移出二级索引，例如取消订阅某个 topic
+     *
+     * @param session    WebSocketSession
+     * @param indexName  索引名称
+     * @param indexValue 索引值
+     */
+    default void removeIndex(WebSocketSession session, String indexName, Object indexValue) {
+        if (session.getAttributes().get(INDEX_ATTRIBUTE_PREFIX + indexName) instanceof Set<?> values) {
+            values.remove(indexValue);
+        }
+    }
 }
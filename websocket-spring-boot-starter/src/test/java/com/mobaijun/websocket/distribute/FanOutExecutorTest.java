@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.distribute;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Description: [并行扇出执行器测试，包含 1k/10k/100k 连接的扇出基准]
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:26]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+class FanOutExecutorTest {
+
+    private static final String MESSAGE = "{\"type\":\"notice\",\"content\":\"hello\"}";
+
+    /**
+     * 每轮基准的预热次数
+     */
+    private static final int WARMUP_ROUNDS = 3;
+
+    /**
+     * 每轮基准的计时次数
+     */
+    private static final int MEASURE_ROUNDS = 5;
+
+    private FanOutExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 10_000, 100_000})
+    void fanOutThroughput(int sessionCount) {
+        executor = new FanOutExecutor(new FanOutOptions());
+        List<StubWebSocketSession> sessions = sessions(sessionCount);
+        List<WebSocketSession> targets = List.copyOf(sessions);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            FanOutExecutor.sendShard(targets, new MessageFrames(MESSAGE), null);
+            executor.execute(targets, new MessageFrames(MESSAGE), null).join();
+        }
+
+        long serialNanos = 0;
+        long parallelNanos = 0;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            FanOutResult serial = FanOutExecutor.sendShard(targets, new MessageFrames(MESSAGE), null);
+            serialNanos += System.nanoTime() - start;
+            assertThat(serial.succeeded()).isEqualTo(sessionCount);
+
+            start = System.nanoTime();
+            FanOutResult parallel = executor.execute(targets, new MessageFrames(MESSAGE), null).join();
+            parallelNanos += System.nanoTime() - start;
+            assertThat(parallel.succeeded()).isEqualTo(sessionCount);
+        }
+
+        int rounds = (WARMUP_ROUNDS + MEASURE_ROUNDS) * 2;
+        assertThat(sessions).allSatisfy(session -> assertThat(session.getSent()).isEqualTo(rounds));
+        System.out.printf("fan-out %,d sessions: serial %.2f ms, parallel %.2f ms (%d lanes)%n", sessionCount,
+                serialNanos / 1e6 / MEASURE_ROUNDS, parallelNanos / 1e6 / MEASURE_ROUNDS,
+                new FanOutOptions().getParallelism());
+    }
+
+    @Test
+    void sameSessionIsSentInSubmitOrderOnOneLane() {
+        FanOutOptions options = new FanOutOptions();
+        options.setParallelism(4);
+        executor = new FanOutExecutor(options);
+        List<WebSocketSession> targets = List.copyOf(sessions(100));
+
+        CompletableFuture<FanOutResult> first = executor.execute(targets, new MessageFrames(MESSAGE), null);
+        CompletableFuture<FanOutResult> second = executor.execute(targets, new MessageFrames(MESSAGE), null);
+
+        assertThat(first.join().succeeded()).isEqualTo(100);
+        assertThat(second.join().succeeded()).isEqualTo(100);
+    }
+
+    @Test
+    void stalledLaneRejectsInsteadOfQueueingWithoutBound() throws Exception {
+        FanOutOptions options = new FanOutOptions();
+        options.setParallelism(1);
+        options.setQueueCapacity(2);
+        executor = new FanOutExecutor(options);
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch stalled = new CountDownLatch(1);
+        StubWebSocketSession slow = new StubWebSocketSession("slow");
+        slow.onSend(() -> {
+            stalled.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        List<WebSocketSession> targets = List.of(slow);
+
+        CompletableFuture<FanOutResult> running = executor.execute(targets, new MessageFrames(MESSAGE), null);
+        assertThat(stalled.await(5, TimeUnit.SECONDS)).isTrue();
+        // 线程卡住后队列只能再容纳 2 个任务
+        CompletableFuture<FanOutResult> queued1 = executor.execute(targets, new MessageFrames(MESSAGE), null);
+        CompletableFuture<FanOutResult> queued2 = executor.execute(targets, new MessageFrames(MESSAGE), null);
+        FanOutResult rejected = executor.execute(targets, new MessageFrames(MESSAGE), null).join();
+
+        assertThat(rejected.rejected()).isEqualTo(1);
+        assertThat(rejected.total()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.join().succeeded()).isEqualTo(1);
+        assertThat(queued1.join().succeeded()).isEqualTo(1);
+        assertThat(queued2.join().succeeded()).isEqualTo(1);
+        assertThat(slow.getSent()).isEqualTo(3);
+    }
+
+    private static List<StubWebSocketSession> sessions(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new StubWebSocketSession("session-" + i))
+                .toList();
+    }
+}
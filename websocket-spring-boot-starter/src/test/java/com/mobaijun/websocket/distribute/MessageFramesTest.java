@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2022 [www.mobaijun.com]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.mobaijun.websocket.distribute;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Description: [消息帧测试，对比按 session 编码与共享预编码字节的内存分配和吞吐]
+ * Author: [mobaijun]
+ * Date: [2024/8/23 9:26]
+ * IntelliJ IDEA Version: [IntelliJ IDEA 2023.1.4]
+ */
+class MessageFramesTest {
+
+    private static final int SESSION_COUNT = 10_000;
+
+    private static final String MESSAGE = "{\"type\":\"notice\",\"content\":\"" + "消息内容".repeat(64) + "\"}";
+
+    @Test
+    void sessionsWithoutSubProtocolShareOnePreEncodedFrame() {
+        MessageFrames frames = new MessageFrames(MESSAGE);
+        WebSocketMessage<?> first = frames.frameFor(new StubWebSocketSession("a"));
+        WebSocketMessage<?> second = frames.frameFor(new StubWebSocketSession("b"));
+
+        assertThat(first).isSameAs(second).isInstanceOf(TextMessage.class);
+        TextMessage text = (TextMessage) first;
+        assertThat(text.getPayload()).isEqualTo(MESSAGE);
+        assertThat(text.asBytes()).isSameAs(text.asBytes());
+    }
+
+    @Test
+    void preEncodedFrameAvoidsPerSessionEncoding() {
+        List<WebSocketSession> sessions = IntStream.range(0, SESSION_COUNT)
+                .mapToObj(i -> (WebSocketSession) new StubWebSocketSession("session-" + i))
+                .toList();
+        MessageFrames frames = new MessageFrames(MESSAGE);
+        TextMessage stringBacked = new TextMessage(MESSAGE);
+
+        // 预热
+        encodeAll(sessions, frames::frameFor);
+        encodeAll(sessions, session -> stringBacked);
+
+        long sharedStart = System.nanoTime();
+        long shared = encodeAll(sessions, frames::frameFor);
+        long sharedNanos = System.nanoTime() - sharedStart;
+        long perSessionStart = System.nanoTime();
+        long perSession = encodeAll(sessions, session -> stringBacked);
+        long perSessionNanos = System.nanoTime() - perSessionStart;
+
+        System.out.printf("%,d sessions x %,d bytes: shared %,d B / %.2f ms, per-session %,d B / %.2f ms%n",
+                SESSION_COUNT, stringBacked.getPayloadLength(), shared, sharedNanos / 1e6,
+                perSession, perSessionNanos / 1e6);
+        // 按 session 编码至少为每个连接分配一份消息字节
+        assertThat(perSession).isGreaterThan((long) SESSION_COUNT * stringBacked.getPayloadLength());
+        assertThat(shared).isLessThan(perSession / 10);
+    }
+
+    /**
+     * 模拟按字节写出的发送适配器，返回当前线程的内存分配量
+     *
+     * @param sessions 目标 session
+     * @param frameFor 获取 session 的消息帧
+     * @return 分配的字节数
+     */
+    private static long encodeAll(List<WebSocketSession> sessions, Function<WebSocketSession, WebSocketMessage<?>> frameFor) {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        long length = 0;
+        for (WebSocketSession session : sessions) {
+            length += ((TextMessage) frameFor.apply(session)).asBytes().length;
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        assertThat(length).isPositive();
+        return allocated;
+    }
+}